@@ -0,0 +1,73 @@
+package birthstats;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+// CSV import hot path over the whole fixture: tokenizing alone, then tokenizing plus binding
+// every row to the INSERT statement the way the import pipeline does.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvImportBenchmark {
+    private static final int BATCH_SIZE = 1000;
+
+    private InMemoryDatabase database;
+    private PreparedStatement insert;
+
+    @Setup
+    public void setUp() {
+        Fixture.csvBytes();
+        database = new InMemoryDatabase(Fixture.rows());
+        insert = database.statement();
+    }
+
+    @Benchmark
+    public long tokenize() throws IOException {
+        long sum = 0;
+        try (CsvTokenizer csv = new CsvTokenizer(Fixture.csvReader())) {
+            csv.next();
+            while (csv.next()) {
+                sum += csv.getInt(7);
+                for (int field = 1; field < 7; field++) {
+                    sum += csv.getString(field).length();
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long tokenizeAndBind() throws IOException, SQLException {
+        RecordBatch batch = new RecordBatch(BATCH_SIZE);
+        try (CsvTokenizer csv = new CsvTokenizer(Fixture.csvReader())) {
+            csv.next();
+            while (csv.next()) {
+                batch.add(csv);
+                if (batch.isFull()) {
+                    batch.addBatchTo(insert);
+                    insert.executeBatch();
+                    batch.clear();
+                }
+            }
+        }
+        batch.addBatchTo(insert);
+        insert.executeBatch();
+        return database.getBatchedRows();
+    }
+}
@@ -0,0 +1,78 @@
+package birthstats;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+// Row formatting of the CSV, JSON and XML exports: every fixture row read from a result set
+// and encoded through Utf8Sink into a channel that discards the bytes.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExportBenchmark {
+    @Param({"CSV", "JSON", "XML"})
+    public ExportFormat format;
+
+    private InMemoryDatabase database;
+    private final NullChannel channel = new NullChannel();
+
+    @Setup
+    public void setUp() {
+        database = new InMemoryDatabase(Fixture.rows());
+    }
+
+    @Benchmark
+    public long writeRows() throws SQLException, IOException {
+        try (ResultSet rs = database.query();
+             Utf8Sink out = new Utf8Sink(channel, 1 << 20)) {
+            out.append(format.header);
+            boolean first = true;
+            while (rs.next()) {
+                if (!first) {
+                    out.append(format.separator);
+                }
+                format.writeRow(rs, out);
+                first = false;
+            }
+            out.append(format.footer);
+            out.flush();
+            return out.getBytesWritten();
+        }
+    }
+
+    private static final class NullChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
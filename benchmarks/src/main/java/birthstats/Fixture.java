@@ -0,0 +1,84 @@
+package birthstats;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// The bundled opendata112b210.csv, loaded once per JVM: the raw bytes for the parsing
+// benchmarks and the parsed rows (with generated IDs) for everything downstream.
+final class Fixture {
+    static final String RESOURCE = "/opendata112b210.csv";
+
+    private static byte[] csvBytes;
+    private static List<Object[]> rows;
+    private static ColumnarCache cache;
+
+    private Fixture() {
+    }
+
+    static synchronized byte[] csvBytes() {
+        if (csvBytes == null) {
+            try (InputStream in = Fixture.class.getResourceAsStream(RESOURCE)) {
+                if (in == null) {
+                    throw new IllegalStateException(RESOURCE + " is missing from the benchmark classpath");
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream(4 << 20);
+                byte[] buffer = new byte[65536];
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, n);
+                }
+                csvBytes = out.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return csvBytes;
+    }
+
+    static Reader csvReader() {
+        return new InputStreamReader(new ByteArrayInputStream(csvBytes()), StandardCharsets.UTF_8);
+    }
+
+    // Rows in grid order: ID, StatYear, RecordType, AreaCode, AreaName, Gender, BirthWeight,
+    // MultipleBirth, BirthCount
+    static synchronized List<Object[]> rows() {
+        if (rows == null) {
+            List<Object[]> parsed = new ArrayList<>();
+            try (CsvTokenizer csv = new CsvTokenizer(csvReader())) {
+                csv.next();  // Header
+                while (csv.next()) {
+                    parsed.add(new Object[] {
+                        parsed.size() + 1, csv.getInt(0), csv.getString(1), csv.getString(2), csv.getString(3),
+                        csv.getString(4), csv.getString(5), csv.getString(6), csv.getInt(7)
+                    });
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows = parsed;
+        }
+        return rows;
+    }
+
+    static synchronized ColumnarCache cache() {
+        if (cache == null) {
+            List<Object[]> source = rows();
+            ColumnarCache loaded = new ColumnarCache(source.size());
+            for (Object[] row : source) {
+                loaded.add((Integer) row[0], (Integer) row[1], (String) row[2], (String) row[3], (String) row[4],
+                    (String) row[5], (String) row[6], (String) row[7], (Integer) row[8]);
+            }
+            loaded.trimToSize();
+            cache = loaded;
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,110 @@
+package birthstats;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+
+// Offline stand-in for SQL Server. Every query returns the fixture rows in the column order of
+// ExportFormat.SELECT_SQL; statements accept parameters and batches and discard them. The JDBC
+// objects are dynamic proxies, so each call carries a small fixed dispatch cost that is the
+// same from run to run.
+final class InMemoryDatabase {
+    private final Object[][] rows;
+    private long batchedRows;
+
+    InMemoryDatabase(List<Object[]> source) {
+        rows = source.toArray(new Object[0][]);
+    }
+
+    // A fresh forward-only cursor over all rows
+    ResultSet query() {
+        Cursor cursor = new Cursor();
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {ResultSet.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "next":
+                        return ++cursor.row < rows.length;
+                    case "getInt":
+                        return cursor.getInt((Integer) args[0]);
+                    case "getLong":
+                        return (long) cursor.getInt((Integer) args[0]);
+                    case "getString":
+                        return cursor.getString((Integer) args[0]);
+                    case "wasNull":
+                        return cursor.wasNull;
+                    default:
+                        return defaultValue(method.getReturnType());
+                }
+            });
+    }
+
+    long getBatchedRows() {
+        return batchedRows;
+    }
+
+    Connection connection() {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "createStatement":
+                    case "prepareStatement":
+                        return statement();
+                    case "getAutoCommit":
+                    case "isValid":
+                        return true;
+                    default:
+                        return defaultValue(method.getReturnType());
+                }
+            });
+    }
+
+    PreparedStatement statement() {
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {PreparedStatement.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "executeQuery":
+                        return query();
+                    case "addBatch":
+                        batchedRows++;
+                        return null;
+                    case "executeBatch":
+                        return new int[0];
+                    default:
+                        return defaultValue(method.getReturnType());
+                }
+            });
+    }
+
+    private final class Cursor {
+        int row = -1;
+        boolean wasNull;
+
+        int getInt(int column) {
+            Object value = rows[row][column - 1];
+            wasNull = value == null;
+            return wasNull ? 0 : (Integer) value;
+        }
+
+        String getString(int column) {
+            Object value = rows[row][column - 1];
+            wasNull = value == null;
+            return wasNull ? null : value.toString();
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
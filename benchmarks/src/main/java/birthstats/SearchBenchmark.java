@@ -0,0 +1,54 @@
+package birthstats;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Search box queries: compiling to the SQL filter, and evaluating the compiled predicate over
+// every fixture row in the columnar cache as an opened snapshot does.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+    // Area names are the Chinese names used in the data set (Banqiao, Xinyi)
+    @Param({"year:112", "code:6500*", "count>10 year:110..112", "area:板橋", "信義 count>0", "6500"})
+    public String query;
+
+    private ColumnarCache table;
+    private NGramIndex areaNames;
+
+    @Setup
+    public void setUp() {
+        table = Fixture.cache();
+        List<String> names = new ArrayList<>();
+        for (int code = 0; code < table.cardinality(BirthColumn.AREA_NAME); code++) {
+            names.add(table.decode(BirthColumn.AREA_NAME, code));
+        }
+        areaNames = new NGramIndex(names);
+    }
+
+    @Benchmark
+    public PagedTableModel.Filter compileFilter() {
+        return SearchQuery.parse(query).toFilter(areaNames::search);
+    }
+
+    @Benchmark
+    public int[] evaluatePredicate() {
+        return table.filter(SearchQuery.parse(query).toPredicate(table, areaNames::search));
+    }
+}
@@ -0,0 +1,54 @@
+package birthstats;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Result set to table model mapping: the boxed Object[] rows of the paged grid and the
+// dictionary-encoded ColumnarCache, each over every fixture row.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableModelBenchmark {
+    private InMemoryDatabase database;
+    private Connection connection;
+
+    @Setup
+    public void setUp() {
+        database = new InMemoryDatabase(Fixture.rows());
+        connection = database.connection();
+    }
+
+    @Benchmark
+    public List<Object[]> pagedRows() throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        try (ResultSet rs = database.query()) {
+            while (rs.next()) {
+                rows.add(PagedTableModel.readRow(rs));
+            }
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public ColumnarCache columnarCache() throws SQLException {
+        return ColumnarCache.load(connection, stmt -> { }, null);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+Birth Statistics Import History
+---------------------------------
+Content hashes of files loaded with import.mode=upsert. A file whose SHA-256 is
+already listed here is skipped instead of being merged again.
+
+ImportCheckpoint holds the position reached by an unfinished import.mode=checkpoint
+run. The row is written in the same transaction as the rows it covers and deleted
+by the final commit, so a resumed import never inserts a chunk twice.
+
+Run once after import_birthstats.sql (the application login cannot create tables).
+The script is safe to run again.
+*/
+
+USE BirthStats;
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'ImportHistory')
+    CREATE TABLE ImportHistory (
+        ID INT IDENTITY(1,1) PRIMARY KEY,
+        ContentHash CHAR(64) NOT NULL,        -- SHA-256 of the file, hex
+        FileName NVARCHAR(260) NOT NULL,
+        RowsRead INT NOT NULL,
+        RowsInserted INT NOT NULL,
+        RowsUpdated INT NOT NULL,
+        ImportedAt DATETIME NOT NULL DEFAULT GETDATE()
+    );
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'UX_ImportHistory_ContentHash')
+    CREATE UNIQUE NONCLUSTERED INDEX UX_ImportHistory_ContentHash
+        ON ImportHistory (ContentHash);
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'ImportCheckpoint')
+    CREATE TABLE ImportCheckpoint (
+        ContentHash CHAR(64) NOT NULL PRIMARY KEY,  -- SHA-256 of the file, hex
+        FileName NVARCHAR(260) NOT NULL,
+        ByteOffset BIGINT NOT NULL,                 -- just past the last committed record
+        LineNumber BIGINT NOT NULL,
+        RowsCommitted BIGINT NOT NULL,
+        RowsRejected BIGINT NOT NULL,
+        UpdatedAt DATETIME NOT NULL DEFAULT GETDATE()
+    );
+GO
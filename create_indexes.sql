@@ -0,0 +1,70 @@
+/*
+Birth Statistics Search Indexes
+---------------------------------
+Nonclustered indexes backing the search box syntax (year:, code:, area:, gender:,
+weight:, birth:, count:). Every index carries the clustered key ID, so the paged
+grid can seek a filtered page and keep its ORDER BY ID without a sort.
+
+Run once after import_birthstats.sql. The script is safe to run again.
+*/
+
+USE BirthStats;
+GO
+
+-- After migrate_star_schema.sql the fact table carries its own indexes
+IF OBJECTPROPERTY(OBJECT_ID('BirthStatistics'), 'IsView') = 1
+BEGIN
+    PRINT 'BirthStatistics is a star schema view; see migrate_star_schema.sql for its indexes.';
+    SET NOEXEC ON;
+END
+GO
+
+-- year:112, year:110..112
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_BirthStatistics_StatYear')
+    CREATE NONCLUSTERED INDEX IX_BirthStatistics_StatYear
+        ON BirthStatistics (StatYear) INCLUDE (BirthCount);
+GO
+
+-- code:65000010, code:6500* and bare numbers (prefix LIKE is sargable)
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_BirthStatistics_AreaCode')
+    CREATE NONCLUSTERED INDEX IX_BirthStatistics_AreaCode
+        ON BirthStatistics (AreaCode);
+GO
+
+-- area: terms are resolved to AreaName IN (...) by the in-memory n-gram index;
+-- also answers the SELECT DISTINCT AreaName used to build that index
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_BirthStatistics_AreaName')
+    CREATE NONCLUSTERED INDEX IX_BirthStatistics_AreaName
+        ON BirthStatistics (AreaName);
+GO
+
+-- gender:, weight:, birth: and their combinations
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_BirthStatistics_Gender_Weight')
+    CREATE NONCLUSTERED INDEX IX_BirthStatistics_Gender_Weight
+        ON BirthStatistics (Gender, BirthWeight, MultipleBirth) INCLUDE (BirthCount);
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_BirthStatistics_MultipleBirth')
+    CREATE NONCLUSTERED INDEX IX_BirthStatistics_MultipleBirth
+        ON BirthStatistics (MultipleBirth);
+GO
+
+-- count>10
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_BirthStatistics_BirthCount')
+    CREATE NONCLUSTERED INDEX IX_BirthStatistics_BirthCount
+        ON BirthStatistics (BirthCount);
+GO
+
+-- Natural key matched by the upsert import's MERGE (import.mode=upsert)
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_BirthStatistics_NaturalKey')
+    CREATE NONCLUSTERED INDEX IX_BirthStatistics_NaturalKey
+        ON BirthStatistics (StatYear, AreaCode, RecordType, Gender, BirthWeight, MultipleBirth)
+        INCLUDE (BirthCount);
+GO
+
+-- Refresh statistics so the optimizer sees the new distributions
+UPDATE STATISTICS BirthStatistics;
+GO
+
+SET NOEXEC OFF;
+GO
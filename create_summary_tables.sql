@@ -0,0 +1,213 @@
+/*
+Birth Statistics Summary Tables
+---------------------------------
+Two small rollups keep the record count and total births for the Summary
+window's views (record types are added together):
+
+  BirthSummary      by year, gender, birth weight and plurality; the gender
+                    and weight, year, plurality and year and gender views
+                    add up its few hundred rows per year
+  BirthSummaryArea  by area code and name, one row per area
+
+Neither carries the other's columns, so both stay far smaller than
+BirthStatistics. A trigger on the table that stores the rows applies every
+insert, update and delete to them as a delta in the same transaction, so
+they stay current for the Add/Edit/Delete dialogs and every import mode
+without being recomputed.
+
+The key columns are NOT NULL so the trigger finds its rows with plain
+equality seeks on the clustered keys: a missing year is stored as -1 and
+missing text as ''. The Summary window shows both as blank, and treats ''
+and NULL in the raw rows as the same group.
+
+Bulk copy imports fire the trigger as well; the application turns on
+FIRE_TRIGGERS when these tables exist.
+
+The trigger locks the summary rows it changes until the writing transaction
+commits, and with so few rows concurrent writers nearly always touch the
+same ones, so writers in different sessions take turns. With more than one
+writer thread the CSV pipeline therefore fills a temp stage and moves the
+rows with one INSERT ... SELECT in one session. Edits made while an import
+is being moved wait for its commit.
+
+Check them against the data with the Check button in the Summary window or
+`BirthStatsManager check-summary [--repair]`.
+
+Run once as a user who can create tables and triggers, after
+import_birthstats.sql. Run it again after migrate_star_schema.sql or after
+import_birthstats.sql rebuilds the table: every run puts the trigger on the
+current layout and recomputes the totals. A BirthSummary left from the
+earlier layout, keyed on area as well, is replaced. The script is safe to
+run again.
+*/
+
+USE BirthStats;
+GO
+
+SET XACT_ABORT ON;
+GO
+
+-- The earlier layout also kept the area columns, which left it as many rows as BirthStatistics
+IF COL_LENGTH('BirthSummary', 'AreaCode') IS NOT NULL
+BEGIN
+    IF OBJECT_ID('BirthStatistics_Summary', 'TR') IS NOT NULL
+        DROP TRIGGER BirthStatistics_Summary;
+    DROP TABLE BirthSummary;
+END
+GO
+
+IF OBJECT_ID('BirthSummary') IS NULL
+    CREATE TABLE BirthSummary (
+        StatYear INT NOT NULL,
+        Gender NVARCHAR(10) NOT NULL,
+        BirthWeight NVARCHAR(50) NOT NULL,
+        MultipleBirth NVARCHAR(20) NOT NULL,
+        Records INT NOT NULL,
+        TotalBirths BIGINT NOT NULL,
+        CONSTRAINT PK_BirthSummary PRIMARY KEY CLUSTERED (StatYear, Gender, BirthWeight, MultipleBirth)
+    );
+GO
+
+IF OBJECT_ID('BirthSummaryArea') IS NULL
+    CREATE TABLE BirthSummaryArea (
+        AreaCode NVARCHAR(20) NOT NULL,
+        AreaName NVARCHAR(100) NOT NULL,
+        Records INT NOT NULL,
+        TotalBirths BIGINT NOT NULL,
+        CONSTRAINT PK_BirthSummaryArea PRIMARY KEY CLUSTERED (AreaCode, AreaName)
+    );
+GO
+
+BEGIN TRANSACTION;
+
+-- Writers are held off from here until COMMIT, so the totals and the trigger start in step
+SELECT ISNULL(StatYear, -1) AS StatYear, ISNULL(AreaCode, N'') AS AreaCode, ISNULL(AreaName, N'') AS AreaName,
+       ISNULL(Gender, N'') AS Gender, ISNULL(BirthWeight, N'') AS BirthWeight,
+       ISNULL(MultipleBirth, N'') AS MultipleBirth,
+       COUNT(*) AS Records, SUM(CAST(COALESCE(BirthCount, 0) AS BIGINT)) AS TotalBirths
+INTO #Totals
+FROM BirthStatistics WITH (TABLOCK, HOLDLOCK)
+GROUP BY ISNULL(StatYear, -1), ISNULL(AreaCode, N''), ISNULL(AreaName, N''),
+         ISNULL(Gender, N''), ISNULL(BirthWeight, N''), ISNULL(MultipleBirth, N'');
+
+IF OBJECT_ID('BirthStatistics_Summary', 'TR') IS NOT NULL
+    DROP TRIGGER BirthStatistics_Summary;
+
+-- After migrate_star_schema.sql the rows live in FactBirth and the trigger looks up the text
+-- values in the dimension tables
+DECLARE @star BIT = CASE WHEN OBJECTPROPERTY(OBJECT_ID('BirthStatistics'), 'IsView') = 1 THEN 1 ELSE 0 END;
+DECLARE @rows NVARCHAR(MAX) = CASE WHEN @star = 1 THEN N'
+        SELECT x.StatYear, a.AreaCode, a.AreaName, g.Gender, w.BirthWeight, p.MultipleBirth, x.BirthCount
+        FROM {rows} x
+        JOIN DimArea a ON a.AreaKey = x.AreaKey
+        JOIN DimGender g ON g.GenderKey = x.GenderKey
+        JOIN DimWeight w ON w.WeightKey = x.WeightKey
+        JOIN DimPlurality p ON p.PluralityKey = x.PluralityKey'
+    ELSE N'
+        SELECT StatYear, AreaCode, AreaName, Gender, BirthWeight, MultipleBirth, BirthCount FROM {rows}' END;
+
+-- Inserted rows count +1, deleted rows -1 (an update is both). Each rollup's delta is joined on
+-- its clustered key with plain equality, so a write seeks just the summary rows it changes;
+-- UPDLOCK, HOLDLOCK stops two writers from adding the same new group at once.
+DECLARE @sql NVARCHAR(MAX) = N'
+CREATE TRIGGER BirthStatistics_Summary ON ' + CASE WHEN @star = 1 THEN N'FactBirth' ELSE N'BirthStatistics' END + N'
+AFTER INSERT, UPDATE, DELETE AS
+BEGIN
+    SET NOCOUNT ON;
+
+    DECLARE @changes TABLE (StatYear INT NOT NULL, AreaCode NVARCHAR(20) NOT NULL, AreaName NVARCHAR(100) NOT NULL,
+                            Gender NVARCHAR(10) NOT NULL, BirthWeight NVARCHAR(50) NOT NULL,
+                            MultipleBirth NVARCHAR(20) NOT NULL, Records INT NOT NULL, Births BIGINT NOT NULL);
+
+    INSERT INTO @changes
+    SELECT ISNULL(r.StatYear, -1), ISNULL(r.AreaCode, N''''), ISNULL(r.AreaName, N''''), ISNULL(r.Gender, N''''),
+           ISNULL(r.BirthWeight, N''''), ISNULL(r.MultipleBirth, N''''), 1, CAST(COALESCE(r.BirthCount, 0) AS BIGINT)
+    FROM (' + REPLACE(@rows, N'{rows}', N'inserted') + N') r
+    UNION ALL
+    SELECT ISNULL(r.StatYear, -1), ISNULL(r.AreaCode, N''''), ISNULL(r.AreaName, N''''), ISNULL(r.Gender, N''''),
+           ISNULL(r.BirthWeight, N''''), ISNULL(r.MultipleBirth, N''''), -1, -CAST(COALESCE(r.BirthCount, 0) AS BIGINT)
+    FROM (' + REPLACE(@rows, N'{rows}', N'deleted') + N') r;
+
+    IF @@ROWCOUNT = 0
+        RETURN;
+
+    DECLARE @main TABLE (StatYear INT NOT NULL, Gender NVARCHAR(10) NOT NULL, BirthWeight NVARCHAR(50) NOT NULL,
+                         MultipleBirth NVARCHAR(20) NOT NULL, Records INT NOT NULL, Births BIGINT NOT NULL,
+                         PRIMARY KEY (StatYear, Gender, BirthWeight, MultipleBirth));
+
+    INSERT INTO @main
+    SELECT StatYear, Gender, BirthWeight, MultipleBirth, SUM(Records), SUM(Births)
+    FROM @changes
+    GROUP BY StatYear, Gender, BirthWeight, MultipleBirth
+    HAVING SUM(Records) <> 0 OR SUM(Births) <> 0;
+
+    UPDATE s
+    SET Records = s.Records + d.Records, TotalBirths = s.TotalBirths + d.Births
+    FROM BirthSummary s WITH (UPDLOCK, HOLDLOCK)
+    JOIN @main d ON s.StatYear = d.StatYear AND s.Gender = d.Gender
+                AND s.BirthWeight = d.BirthWeight AND s.MultipleBirth = d.MultipleBirth;
+
+    INSERT INTO BirthSummary (StatYear, Gender, BirthWeight, MultipleBirth, Records, TotalBirths)
+    SELECT d.StatYear, d.Gender, d.BirthWeight, d.MultipleBirth, d.Records, d.Births
+    FROM @main d
+    WHERE NOT EXISTS (SELECT * FROM BirthSummary s WITH (UPDLOCK, HOLDLOCK)
+                      WHERE s.StatYear = d.StatYear AND s.Gender = d.Gender
+                        AND s.BirthWeight = d.BirthWeight AND s.MultipleBirth = d.MultipleBirth);
+
+    -- Groups whose last row went away
+    DELETE s
+    FROM BirthSummary s
+    JOIN @main d ON s.StatYear = d.StatYear AND s.Gender = d.Gender
+                AND s.BirthWeight = d.BirthWeight AND s.MultipleBirth = d.MultipleBirth
+    WHERE s.Records = 0;
+
+    DECLARE @area TABLE (AreaCode NVARCHAR(20) NOT NULL, AreaName NVARCHAR(100) NOT NULL,
+                         Records INT NOT NULL, Births BIGINT NOT NULL, PRIMARY KEY (AreaCode, AreaName));
+
+    INSERT INTO @area
+    SELECT AreaCode, AreaName, SUM(Records), SUM(Births)
+    FROM @changes
+    GROUP BY AreaCode, AreaName
+    HAVING SUM(Records) <> 0 OR SUM(Births) <> 0;
+
+    UPDATE s
+    SET Records = s.Records + d.Records, TotalBirths = s.TotalBirths + d.Births
+    FROM BirthSummaryArea s WITH (UPDLOCK, HOLDLOCK)
+    JOIN @area d ON s.AreaCode = d.AreaCode AND s.AreaName = d.AreaName;
+
+    INSERT INTO BirthSummaryArea (AreaCode, AreaName, Records, TotalBirths)
+    SELECT d.AreaCode, d.AreaName, d.Records, d.Births
+    FROM @area d
+    WHERE NOT EXISTS (SELECT * FROM BirthSummaryArea s WITH (UPDLOCK, HOLDLOCK)
+                      WHERE s.AreaCode = d.AreaCode AND s.AreaName = d.AreaName);
+
+    DELETE s
+    FROM BirthSummaryArea s
+    JOIN @area d ON s.AreaCode = d.AreaCode AND s.AreaName = d.AreaName
+    WHERE s.Records = 0;
+END';
+EXEC (@sql);
+
+DELETE FROM BirthSummary;
+INSERT INTO BirthSummary (StatYear, Gender, BirthWeight, MultipleBirth, Records, TotalBirths)
+SELECT StatYear, Gender, BirthWeight, MultipleBirth, SUM(Records), SUM(TotalBirths)
+FROM #Totals
+GROUP BY StatYear, Gender, BirthWeight, MultipleBirth;
+
+DELETE FROM BirthSummaryArea;
+INSERT INTO BirthSummaryArea (AreaCode, AreaName, Records, TotalBirths)
+SELECT AreaCode, AreaName, SUM(Records), SUM(TotalBirths)
+FROM #Totals
+GROUP BY AreaCode, AreaName;
+
+COMMIT;
+
+DROP TABLE #Totals;
+GO
+
+-- Summary check: both rollups add up to the same totals
+SELECT 'BirthSummary' AS RollupTable, COUNT(*) AS Groups, SUM(Records) AS Records, SUM(TotalBirths) AS TotalBirths
+FROM BirthSummary
+UNION ALL
+SELECT 'BirthSummaryArea', COUNT(*), SUM(Records), SUM(TotalBirths) FROM BirthSummaryArea;
+GO
@@ -22,6 +22,14 @@ sp_configure 'show advanced options', 1;
 RECONFIGURE;
 GO
 
+-- A star schema (migrate_star_schema.sql) has to be rolled back before the table is rebuilt
+IF OBJECTPROPERTY(OBJECT_ID('BirthStatistics'), 'IsView') = 1
+BEGIN
+    RAISERROR('BirthStatistics is a star schema view; run the rollback steps in migrate_star_schema.sql first.', 16, 1);
+    SET NOEXEC ON;
+END
+GO
+
 -- Drop existing table if it exists
 IF EXISTS (SELECT * FROM sys.tables WHERE name = 'BirthStatistics')
     DROP TABLE BirthStatistics;
@@ -142,6 +150,19 @@ ORDER BY TotalBirths DESC;
 DROP TABLE #RawData;
 GO
 
+-- The table was rebuilt, so earlier upsert imports no longer describe its contents
+IF EXISTS (SELECT * FROM sys.tables WHERE name = 'ImportHistory')
+    DELETE FROM ImportHistory;
+GO
+
+-- Dropping the table also dropped the summary trigger
+IF OBJECT_ID('BirthSummary') IS NOT NULL
+    PRINT 'Run create_summary_tables.sql again to restore the summary trigger and totals.';
+GO
+
+SET NOEXEC OFF;
+GO
+
 -- Reset advanced options
 sp_configure 'show advanced options', 0;
 RECONFIGURE;
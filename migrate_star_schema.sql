@@ -0,0 +1,284 @@
+/*
+Birth Statistics Star Schema Migration
+---------------------------------
+Moves the BirthStatistics table to a star schema. Each repeated text value is
+stored once in a small dimension table and the fact table keeps only one-
+and two-byte keys and the count:
+
+  DimRecordType, DimArea, DimGender, DimWeight, DimPlurality
+  FactBirth (ID, StatYear SMALLINT, five TINYINT/SMALLINT keys, BirthCount)
+
+A fact row is about 20 bytes instead of several hundred, so scans and
+aggregates read a fraction of the pages.
+
+BirthStatistics becomes a view with the same columns (ImportDate is dropped),
+and INSTEAD OF triggers turn inserts, updates, deletes and MERGE against the
+view into dimension and fact writes. The application's SQL runs against the
+view. Its staged imports (CSV pipeline, bulk copy, upsert) first add new
+dimension values from the stage in short transactions of their own, so their
+long transaction never inserts dimension rows. Row IDs are kept.
+
+Set @Columnstore = 1 below to store FactBirth as a clustered columnstore
+index (SQL Server 2016 or later). That suits scans and the summary views;
+ID lookups then go through a nonclustered primary key.
+
+The old table is kept as BirthStatistics_Legacy. Drop it once the new layout
+has been checked; the rollback steps are at the end of this script.
+
+Run once as a user who can create tables and triggers, after
+import_birthstats.sql and create_indexes.sql. The script stops without
+changes if BirthStatistics is already a view. To rebuild from a CSV later,
+run the rollback first, then import_birthstats.sql and this script.
+*/
+
+USE BirthStats;
+GO
+
+SET XACT_ABORT ON;
+GO
+
+IF OBJECTPROPERTY(OBJECT_ID('BirthStatistics'), 'IsView') = 1
+BEGIN
+    PRINT 'BirthStatistics is already a star schema view; nothing to do.';
+    SET NOEXEC ON;
+END
+GO
+
+-- Dimension tables. The unique constraints allow one NULL, so missing values keep a key of their own.
+CREATE TABLE DimRecordType (
+    RecordTypeKey TINYINT IDENTITY(1,1) PRIMARY KEY,
+    RecordType NVARCHAR(100),
+    CONSTRAINT UQ_DimRecordType UNIQUE (RecordType)
+);
+
+CREATE TABLE DimArea (
+    AreaKey SMALLINT IDENTITY(1,1) PRIMARY KEY,
+    AreaCode NVARCHAR(20),
+    AreaName NVARCHAR(100),
+    CONSTRAINT UQ_DimArea UNIQUE (AreaCode, AreaName)
+);
+
+CREATE TABLE DimGender (
+    GenderKey TINYINT IDENTITY(1,1) PRIMARY KEY,
+    Gender NVARCHAR(10),
+    CONSTRAINT UQ_DimGender UNIQUE (Gender)
+);
+
+CREATE TABLE DimWeight (
+    WeightKey TINYINT IDENTITY(1,1) PRIMARY KEY,
+    BirthWeight NVARCHAR(50),
+    CONSTRAINT UQ_DimWeight UNIQUE (BirthWeight)
+);
+
+CREATE TABLE DimPlurality (
+    PluralityKey TINYINT IDENTITY(1,1) PRIMARY KEY,
+    MultipleBirth NVARCHAR(20),
+    CONSTRAINT UQ_DimPlurality UNIQUE (MultipleBirth)
+);
+
+-- Loaded as a heap; the indexes are built after the copy
+CREATE TABLE FactBirth (
+    ID INT IDENTITY(1,1) NOT NULL,
+    StatYear SMALLINT,
+    RecordTypeKey TINYINT NOT NULL,
+    AreaKey SMALLINT NOT NULL,
+    GenderKey TINYINT NOT NULL,
+    WeightKey TINYINT NOT NULL,
+    PluralityKey TINYINT NOT NULL,
+    BirthCount INT
+);
+GO
+
+-- Populate the dimensions
+INSERT INTO DimRecordType (RecordType) SELECT DISTINCT RecordType FROM BirthStatistics;
+INSERT INTO DimArea (AreaCode, AreaName) SELECT DISTINCT AreaCode, AreaName FROM BirthStatistics;
+INSERT INTO DimGender (Gender) SELECT DISTINCT Gender FROM BirthStatistics;
+INSERT INTO DimWeight (BirthWeight) SELECT DISTINCT BirthWeight FROM BirthStatistics;
+INSERT INTO DimPlurality (MultipleBirth) SELECT DISTINCT MultipleBirth FROM BirthStatistics;
+GO
+
+-- Copy the rows with their IDs. EXISTS (... INTERSECT ...) matches NULL to NULL.
+SET IDENTITY_INSERT FactBirth ON;
+
+INSERT INTO FactBirth WITH (TABLOCK)
+    (ID, StatYear, RecordTypeKey, AreaKey, GenderKey, WeightKey, PluralityKey, BirthCount)
+SELECT b.ID, b.StatYear, r.RecordTypeKey, a.AreaKey, g.GenderKey, w.WeightKey, p.PluralityKey, b.BirthCount
+FROM BirthStatistics b
+JOIN DimRecordType r ON EXISTS (SELECT b.RecordType INTERSECT SELECT r.RecordType)
+JOIN DimArea a ON EXISTS (SELECT b.AreaCode, b.AreaName INTERSECT SELECT a.AreaCode, a.AreaName)
+JOIN DimGender g ON EXISTS (SELECT b.Gender INTERSECT SELECT g.Gender)
+JOIN DimWeight w ON EXISTS (SELECT b.BirthWeight INTERSECT SELECT w.BirthWeight)
+JOIN DimPlurality p ON EXISTS (SELECT b.MultipleBirth INTERSECT SELECT p.MultipleBirth);
+
+SET IDENTITY_INSERT FactBirth OFF;
+GO
+
+-- Every row must have arrived before the old table is renamed
+IF (SELECT COUNT_BIG(*) FROM FactBirth) <> (SELECT COUNT_BIG(*) FROM BirthStatistics)
+    OR (SELECT SUM(CAST(BirthCount AS BIGINT)) FROM FactBirth)
+       <> (SELECT SUM(CAST(BirthCount AS BIGINT)) FROM BirthStatistics)
+BEGIN
+    RAISERROR('FactBirth does not match BirthStatistics; the migration stopped before switching over.', 16, 1);
+    SET NOEXEC ON;
+END
+GO
+
+-- Storage and indexes
+DECLARE @Columnstore BIT = 0;
+
+IF @Columnstore = 1
+BEGIN
+    CREATE CLUSTERED COLUMNSTORE INDEX CCI_FactBirth ON FactBirth;
+    ALTER TABLE FactBirth ADD CONSTRAINT PK_FactBirth PRIMARY KEY NONCLUSTERED (ID);
+END
+ELSE
+BEGIN
+    ALTER TABLE FactBirth ADD CONSTRAINT PK_FactBirth PRIMARY KEY CLUSTERED (ID);
+    -- Search filters resolve text to dimension keys, then seek the fact table on them
+    CREATE NONCLUSTERED INDEX IX_FactBirth_StatYear ON FactBirth (StatYear) INCLUDE (BirthCount);
+    CREATE NONCLUSTERED INDEX IX_FactBirth_AreaKey ON FactBirth (AreaKey);
+    CREATE NONCLUSTERED INDEX IX_FactBirth_Gender_Weight
+        ON FactBirth (GenderKey, WeightKey, PluralityKey) INCLUDE (BirthCount);
+    CREATE NONCLUSTERED INDEX IX_FactBirth_BirthCount ON FactBirth (BirthCount);
+END
+
+-- Natural key matched by the upsert import's MERGE
+CREATE NONCLUSTERED INDEX IX_FactBirth_NaturalKey
+    ON FactBirth (StatYear, AreaKey, RecordTypeKey, GenderKey, WeightKey, PluralityKey)
+    INCLUDE (BirthCount);
+
+-- Trusted foreign keys let the optimizer skip joins to dimensions a query does not use
+ALTER TABLE FactBirth WITH CHECK ADD
+    CONSTRAINT FK_FactBirth_RecordType FOREIGN KEY (RecordTypeKey) REFERENCES DimRecordType (RecordTypeKey),
+    CONSTRAINT FK_FactBirth_Area FOREIGN KEY (AreaKey) REFERENCES DimArea (AreaKey),
+    CONSTRAINT FK_FactBirth_Gender FOREIGN KEY (GenderKey) REFERENCES DimGender (GenderKey),
+    CONSTRAINT FK_FactBirth_Weight FOREIGN KEY (WeightKey) REFERENCES DimWeight (WeightKey),
+    CONSTRAINT FK_FactBirth_Plurality FOREIGN KEY (PluralityKey) REFERENCES DimPlurality (PluralityKey);
+GO
+
+-- Switch over in one transaction: rename the table, then create the view and its triggers
+BEGIN TRANSACTION;
+
+EXEC sp_rename 'BirthStatistics', 'BirthStatistics_Legacy';
+
+EXEC ('
+CREATE VIEW BirthStatistics AS
+SELECT f.ID, f.StatYear, r.RecordType, a.AreaCode, a.AreaName, g.Gender, w.BirthWeight, p.MultipleBirth,
+       f.BirthCount
+FROM dbo.FactBirth f
+JOIN dbo.DimRecordType r ON r.RecordTypeKey = f.RecordTypeKey
+JOIN dbo.DimArea a ON a.AreaKey = f.AreaKey
+JOIN dbo.DimGender g ON g.GenderKey = f.GenderKey
+JOIN dbo.DimWeight w ON w.WeightKey = f.WeightKey
+JOIN dbo.DimPlurality p ON p.PluralityKey = f.PluralityKey');
+
+-- New dimension values are added before the fact rows that use them. A new value stays locked
+-- until its transaction commits, so another session that looks it up waits for that; two
+-- sessions adding the same value at once make one of them fail on the unique constraint and
+-- roll back. Nothing here retries. The application's staged imports avoid both by adding new
+-- values in short transactions before their long one (BirthSchema.addDimensionValues, which
+-- does retry on a duplicate); edits and the JSON, XML and checkpoint imports add them inside
+-- their own transactions.
+EXEC ('
+CREATE TRIGGER BirthStatistics_Insert ON BirthStatistics INSTEAD OF INSERT AS
+BEGIN
+    SET NOCOUNT ON;
+
+    INSERT INTO DimRecordType (RecordType)
+    SELECT DISTINCT i.RecordType FROM inserted i
+    WHERE NOT EXISTS (SELECT * FROM DimRecordType d WHERE EXISTS (SELECT d.RecordType INTERSECT SELECT i.RecordType));
+    INSERT INTO DimArea (AreaCode, AreaName)
+    SELECT DISTINCT i.AreaCode, i.AreaName FROM inserted i
+    WHERE NOT EXISTS (SELECT * FROM DimArea d
+                      WHERE EXISTS (SELECT d.AreaCode, d.AreaName INTERSECT SELECT i.AreaCode, i.AreaName));
+    INSERT INTO DimGender (Gender)
+    SELECT DISTINCT i.Gender FROM inserted i
+    WHERE NOT EXISTS (SELECT * FROM DimGender d WHERE EXISTS (SELECT d.Gender INTERSECT SELECT i.Gender));
+    INSERT INTO DimWeight (BirthWeight)
+    SELECT DISTINCT i.BirthWeight FROM inserted i
+    WHERE NOT EXISTS (SELECT * FROM DimWeight d WHERE EXISTS (SELECT d.BirthWeight INTERSECT SELECT i.BirthWeight));
+    INSERT INTO DimPlurality (MultipleBirth)
+    SELECT DISTINCT i.MultipleBirth FROM inserted i
+    WHERE NOT EXISTS (SELECT * FROM DimPlurality d
+                      WHERE EXISTS (SELECT d.MultipleBirth INTERSECT SELECT i.MultipleBirth));
+
+    INSERT INTO FactBirth (StatYear, RecordTypeKey, AreaKey, GenderKey, WeightKey, PluralityKey, BirthCount)
+    SELECT i.StatYear, r.RecordTypeKey, a.AreaKey, g.GenderKey, w.WeightKey, p.PluralityKey, i.BirthCount
+    FROM inserted i
+    JOIN DimRecordType r ON EXISTS (SELECT i.RecordType INTERSECT SELECT r.RecordType)
+    JOIN DimArea a ON EXISTS (SELECT i.AreaCode, i.AreaName INTERSECT SELECT a.AreaCode, a.AreaName)
+    JOIN DimGender g ON EXISTS (SELECT i.Gender INTERSECT SELECT g.Gender)
+    JOIN DimWeight w ON EXISTS (SELECT i.BirthWeight INTERSECT SELECT w.BirthWeight)
+    JOIN DimPlurality p ON EXISTS (SELECT i.MultipleBirth INTERSECT SELECT p.MultipleBirth);
+END');
+
+EXEC ('
+CREATE TRIGGER BirthStatistics_Update ON BirthStatistics INSTEAD OF UPDATE AS
+BEGIN
+    SET NOCOUNT ON;
+
+    INSERT INTO DimRecordType (RecordType)
+    SELECT DISTINCT i.RecordType FROM inserted i
+    WHERE NOT EXISTS (SELECT * FROM DimRecordType d WHERE EXISTS (SELECT d.RecordType INTERSECT SELECT i.RecordType));
+    INSERT INTO DimArea (AreaCode, AreaName)
+    SELECT DISTINCT i.AreaCode, i.AreaName FROM inserted i
+    WHERE NOT EXISTS (SELECT * FROM DimArea d
+                      WHERE EXISTS (SELECT d.AreaCode, d.AreaName INTERSECT SELECT i.AreaCode, i.AreaName));
+    INSERT INTO DimGender (Gender)
+    SELECT DISTINCT i.Gender FROM inserted i
+    WHERE NOT EXISTS (SELECT * FROM DimGender d WHERE EXISTS (SELECT d.Gender INTERSECT SELECT i.Gender));
+    INSERT INTO DimWeight (BirthWeight)
+    SELECT DISTINCT i.BirthWeight FROM inserted i
+    WHERE NOT EXISTS (SELECT * FROM DimWeight d WHERE EXISTS (SELECT d.BirthWeight INTERSECT SELECT i.BirthWeight));
+    INSERT INTO DimPlurality (MultipleBirth)
+    SELECT DISTINCT i.MultipleBirth FROM inserted i
+    WHERE NOT EXISTS (SELECT * FROM DimPlurality d
+                      WHERE EXISTS (SELECT d.MultipleBirth INTERSECT SELECT i.MultipleBirth));
+
+    UPDATE f
+    SET StatYear = i.StatYear, RecordTypeKey = r.RecordTypeKey, AreaKey = a.AreaKey, GenderKey = g.GenderKey,
+        WeightKey = w.WeightKey, PluralityKey = p.PluralityKey, BirthCount = i.BirthCount
+    FROM FactBirth f
+    JOIN inserted i ON i.ID = f.ID
+    JOIN DimRecordType r ON EXISTS (SELECT i.RecordType INTERSECT SELECT r.RecordType)
+    JOIN DimArea a ON EXISTS (SELECT i.AreaCode, i.AreaName INTERSECT SELECT a.AreaCode, a.AreaName)
+    JOIN DimGender g ON EXISTS (SELECT i.Gender INTERSECT SELECT g.Gender)
+    JOIN DimWeight w ON EXISTS (SELECT i.BirthWeight INTERSECT SELECT w.BirthWeight)
+    JOIN DimPlurality p ON EXISTS (SELECT i.MultipleBirth INTERSECT SELECT p.MultipleBirth);
+END');
+
+EXEC ('
+CREATE TRIGGER BirthStatistics_Delete ON BirthStatistics INSTEAD OF DELETE AS
+BEGIN
+    SET NOCOUNT ON;
+    DELETE f FROM FactBirth f JOIN deleted d ON d.ID = f.ID;
+END');
+
+COMMIT;
+GO
+
+-- The application login reads and writes through the view; its role membership
+-- (setup_login.sql) already covers the new tables.
+UPDATE STATISTICS FactBirth;
+GO
+
+-- The summary trigger stayed on the legacy table
+IF OBJECT_ID('BirthSummary') IS NOT NULL
+    PRINT 'Run create_summary_tables.sql again to move the summary trigger to FactBirth.';
+GO
+
+SET NOEXEC OFF;
+GO
+
+-- Data check: both should return the same numbers while the legacy table is still there
+-- SELECT COUNT(*), SUM(CAST(BirthCount AS BIGINT)) FROM BirthStatistics;
+-- SELECT COUNT(*), SUM(CAST(BirthCount AS BIGINT)) FROM BirthStatistics_Legacy;
+
+-- Once verified:
+-- DROP TABLE BirthStatistics_Legacy;
+
+-- Rollback to the single table (only while BirthStatistics_Legacy still exists and no rows
+-- were written since the migration):
+-- DROP VIEW BirthStatistics;
+-- EXEC sp_rename 'BirthStatistics_Legacy', 'BirthStatistics';
+-- DROP TABLE FactBirth, DimRecordType, DimArea, DimGender, DimWeight, DimPlurality;
@@ -0,0 +1,285 @@
+package birthstats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Group-by engine over a ColumnarTable: SUM(BirthCount), COUNT(*) and the average per group for
+// any combination of dimension columns (StatYear and the text columns).
+// Each row's group is a mixed-radix number built from the dimension codes. Row ranges are
+// aggregated in parallel on a fork/join pool into primitive long arrays and merged pairwise.
+public class AggregationEngine {
+    // Up to this many possible groups a leaf uses flat arrays indexed by key; beyond it a hash table
+    private static final int DENSE_LIMIT = 1 << 16;
+    private static final int MIN_CHUNK_ROWS = 16384;
+
+    private final ForkJoinPool pool;
+
+    public AggregationEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public AggregationEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public Result aggregate(ColumnarTable table, List<BirthColumn> groupBy) {
+        long start = System.nanoTime();
+        Dimension[] dims = new Dimension[groupBy.size()];
+        long[] multipliers = new long[dims.length];
+        long groupSpace = 1;
+        for (int i = dims.length - 1; i >= 0; i--) {
+            dims[i] = new Dimension(table, groupBy.get(i));
+            multipliers[i] = groupSpace;
+            groupSpace = Math.multiplyExact(groupSpace, Math.max(1, dims[i].cardinality));
+        }
+
+        int rows = table.size();
+        int chunk = Math.max(MIN_CHUNK_ROWS, rows / (pool.getParallelism() * 4) + 1);
+        Groups groups = pool.invoke(new ChunkTask(table, dims, multipliers, groupSpace, chunk, 0, rows));
+        return groups.toResult(groupBy, dims, multipliers, rows, System.nanoTime() - start);
+    }
+
+    // One grouping column, mapped to dense codes 0..cardinality-1
+    private static final class Dimension {
+        final ColumnarTable table;
+        final BirthColumn column;
+        final int cardinality;
+        final int minYear;
+
+        Dimension(ColumnarTable table, BirthColumn column) {
+            this.table = table;
+            this.column = column;
+            if (column.isText()) {
+                cardinality = table.cardinality(column);
+                minYear = 0;
+            } else if (column == BirthColumn.STAT_YEAR) {
+                int min = Integer.MAX_VALUE;
+                int max = Integer.MIN_VALUE;
+                for (int row = 0, n = table.size(); row < n; row++) {
+                    int year = table.getInt(column, row);
+                    min = Math.min(min, year);
+                    max = Math.max(max, year);
+                }
+                minYear = table.size() == 0 ? 0 : min;
+                cardinality = table.size() == 0 ? 0 : max - min + 1;
+            } else {
+                throw new IllegalArgumentException(column + " cannot be used for grouping");
+            }
+        }
+
+        int code(int row) {
+            return column.isText() ? table.getCode(column, row) : table.getInt(column, row) - minYear;
+        }
+
+        String label(int code) {
+            if (column.isText()) {
+                String value = table.decode(column, code);
+                return value == null ? "(null)" : value;
+            }
+            return Integer.toString(code + minYear);
+        }
+    }
+
+    private static final class ChunkTask extends RecursiveTask<Groups> {
+        private final ColumnarTable table;
+        private final Dimension[] dims;
+        private final long[] multipliers;
+        private final long groupSpace;
+        private final int chunk;
+        private final int from;
+        private final int to;
+
+        ChunkTask(ColumnarTable table, Dimension[] dims, long[] multipliers, long groupSpace,
+                  int chunk, int from, int to) {
+            this.table = table;
+            this.dims = dims;
+            this.multipliers = multipliers;
+            this.groupSpace = groupSpace;
+            this.chunk = chunk;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Groups compute() {
+            if (to - from <= chunk) {
+                Groups groups = new Groups(groupSpace, to - from);
+                for (int row = from; row < to; row++) {
+                    long key = 0;
+                    for (int d = 0; d < dims.length; d++) {
+                        key += dims[d].code(row) * multipliers[d];
+                    }
+                    groups.add(key, table.getInt(BirthColumn.BIRTH_COUNT, row));
+                }
+                return groups;
+            }
+            int mid = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(table, dims, multipliers, groupSpace, chunk, from, mid);
+            ChunkTask right = new ChunkTask(table, dims, multipliers, groupSpace, chunk, mid, to);
+            left.fork();
+            Groups merged = right.compute();
+            merged.merge(left.join());
+            return merged;
+        }
+    }
+
+    // Per-group sum and count. Dense mode indexes the arrays by key directly; otherwise it is an
+    // open-addressing hash table with linear probing and -1 marking empty slots.
+    private static final class Groups {
+        final boolean dense;
+        long[] keys;
+        long[] sums;
+        long[] counts;
+        int size;
+
+        Groups(long groupSpace, int rows) {
+            dense = groupSpace <= DENSE_LIMIT;
+            // A chunk cannot produce more groups than it has rows, so size the table once
+            int capacity = dense ? (int) groupSpace
+                : Integer.highestOneBit((int) Math.min(groupSpace, Math.max(512, rows)) * 2 - 1) * 2;
+            sums = new long[capacity];
+            counts = new long[capacity];
+            if (!dense) {
+                keys = new long[capacity];
+                Arrays.fill(keys, -1);
+            }
+        }
+
+        void add(long key, long value) {
+            add(key, value, 1);
+        }
+
+        void add(long key, long sum, long count) {
+            int slot;
+            if (dense) {
+                slot = (int) key;
+                if (counts[slot] == 0) {
+                    size++;
+                }
+            } else {
+                slot = slotFor(key);
+            }
+            sums[slot] += sum;
+            counts[slot] += count;
+        }
+
+        void merge(Groups other) {
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] != 0) {
+                    add(dense ? i : other.keys[i], other.sums[i], other.counts[i]);
+                }
+            }
+        }
+
+        private int slotFor(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) (mix(key) & mask);
+            while (keys[slot] != key) {
+                if (keys[slot] == -1) {
+                    if ((size + 1) * 2 > keys.length) {
+                        grow();
+                        return slotFor(key);
+                    }
+                    keys[slot] = key;
+                    size++;
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldSums = sums;
+            long[] oldCounts = counts;
+            keys = new long[oldKeys.length * 2];
+            Arrays.fill(keys, -1);
+            sums = new long[keys.length];
+            counts = new long[keys.length];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != -1) {
+                    int slot = slotFor(oldKeys[i]);
+                    sums[slot] = oldSums[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        private static long mix(long key) {
+            key *= 0x9E3779B97F4A7C15L;
+            return key ^ (key >>> 32);
+        }
+
+        Result toResult(List<BirthColumn> groupBy, Dimension[] dims, long[] multipliers, int rows, long nanos) {
+            long[] groupKeys = new long[size];
+            int[] slots = new int[size];
+            int n = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    groupKeys[n] = dense ? i : keys[i];
+                    slots[n++] = i;
+                }
+            }
+            // Order groups by key, i.e. by year and then first appearance of each text value
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(groupKeys[a], groupKeys[b]));
+
+            String[][] labels = new String[n][dims.length];
+            int[][] codes = new int[n][dims.length];
+            long[] groupSums = new long[n];
+            long[] groupCounts = new long[n];
+            for (int i = 0; i < n; i++) {
+                long key = groupKeys[order[i]];
+                for (int d = 0; d < dims.length; d++) {
+                    codes[i][d] = (int) (key / multipliers[d]);
+                    labels[i][d] = dims[d].label(codes[i][d]);
+                    key %= multipliers[d];
+                }
+                groupSums[i] = sums[slots[order[i]]];
+                groupCounts[i] = counts[slots[order[i]]];
+            }
+            return new Result(new ArrayList<>(groupBy), labels, codes, groupSums, groupCounts, rows, nanos);
+        }
+    }
+
+    public static final class Result {
+        public final List<BirthColumn> groupBy;
+        public final String[][] keys;  // [group][dimension]
+        public final int[][] codes;    // same shape; codes order values by year or first appearance
+        public final long[] sums;
+        public final long[] counts;
+        public final int rowsScanned;
+        public final long elapsedNanos;
+
+        Result(List<BirthColumn> groupBy, String[][] keys, int[][] codes, long[] sums, long[] counts,
+               int rowsScanned, long elapsedNanos) {
+            this.groupBy = groupBy;
+            this.keys = keys;
+            this.codes = codes;
+            this.sums = sums;
+            this.counts = counts;
+            this.rowsScanned = rowsScanned;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int size() {
+            return sums.length;
+        }
+
+        public double getAverage(int group) {
+            return counts[group] == 0 ? 0 : (double) sums[group] / counts[group];
+        }
+
+        public double getElapsedMs() {
+            return elapsedNanos / 1e6;
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package birthstats;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+// Headless entry point for scripted loads: import, export and aggregate run the same engines as
+// the window without touching Swing. Results go to stdout or the output file; progress and
+// throughput go to stderr. Invoked as `BirthStatsManager <command> ...` or `BatchCli <command> ...`.
+public final class BatchCli {
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILED = 1;
+    public static final int EXIT_USAGE = 2;
+    public static final int EXIT_DATABASE = 3;
+
+    static final String USAGE =
+        "Usage: BirthStatsManager <command> [options]\n" +
+        "\n" +
+        "Commands:\n" +
+        "  import <file>      Load a CSV, JSON or XML file into BirthStatistics\n" +
+        "      --format csv|json|xml   Input format (default: from the file extension)\n" +
+        "      --mode pipeline|bulkcopy|upsert|checkpoint  CSV loader (default: import.mode)\n" +
+        "      --commit-batches N      Batches per commit in checkpoint mode (import.commit.batches)\n" +
+        "      --batch-size N          Rows per batch (csv.batch.size / bulkcopy.batch.size)\n" +
+        "      --parsers N             CSV parser threads (import.parser.threads)\n" +
+        "      --writers N             Writer connections (import.writer.threads)\n" +
+        "  export <file>      Write the table as CSV, JSON or XML\n" +
+        "      --format csv|json|xml   Output format (default: from the file extension)\n" +
+        "      --gzip                  Compress the output (implied by a .gz file name)\n" +
+        "      --threads N             Parallel range readers (export.parallel.threads)\n" +
+        "  aggregate          Total births and record counts grouped by columns\n" +
+        "      --by col,col...         Grouping columns (default: StatYear)\n" +
+        "      --snapshot <file>       Aggregate a .bsnap snapshot instead of the database\n" +
+        "      --output <file>         Write CSV here instead of stdout\n" +
+        "      --threads N             Aggregation threads (default: all cores)\n" +
+        "  check-summary      Recompute the summary tables from BirthStatistics and list groups that differ\n" +
+        "      --repair                Replace the summary with the recomputed totals if they differ\n" +
+        "\n" +
+        "Common options:\n" +
+        "  --config <file>             Settings file (default: config.properties)\n" +
+        "  --set key=value             Override one setting; may be repeated\n" +
+        "\n" +
+        "Exit codes: 0 success, 1 failure (or an unrepaired summary difference), 2 bad arguments,\n" +
+        "3 database error";
+
+    private BatchCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    public static int run(String[] args) {
+        if (args.length == 0 || args[0].equals("help") || args[0].equals("--help") || args[0].equals("-h")) {
+            System.out.println(USAGE);
+            return args.length == 0 ? EXIT_USAGE : EXIT_OK;
+        }
+        Options options;
+        try {
+            options = Options.parse(args);
+            options.applyTo(ConfigManager.getInstance());
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("Run with --help for usage.");
+            return EXIT_USAGE;
+        }
+
+        ConfigManager config = ConfigManager.getInstance();
+        ConnectionPool pool = null;
+        try {
+            switch (options.command) {
+                case "import":
+                    pool = ConnectionPool.fromConfig(config);
+                    runImport(options, config, pool);
+                    break;
+                case "export":
+                    pool = ConnectionPool.fromConfig(config);
+                    runExport(options, config, pool);
+                    break;
+                case "check-summary":
+                    pool = ConnectionPool.fromConfig(config);
+                    return runCheckSummary(options, pool);
+                default:
+                    if (options.values.get("snapshot") == null) {
+                        pool = ConnectionPool.fromConfig(config);
+                    }
+                    runAggregate(options, pool);
+                    break;
+            }
+            return EXIT_OK;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return EXIT_USAGE;
+        } catch (SQLException e) {
+            System.err.println("Database error: " + e.getMessage());
+            if (e.getSQLState() != null) {
+                System.err.println("SQL State: " + e.getSQLState() + ", error code: " + e.getErrorCode());
+            }
+            return EXIT_DATABASE;
+        } catch (Exception e) {
+            System.err.println("Error: " + e);
+            e.printStackTrace();
+            return EXIT_FAILED;
+        } finally {
+            if (pool != null) {
+                pool.close();
+            }
+        }
+    }
+
+    private static void runImport(Options options, ConfigManager config, ConnectionPool pool) throws Exception {
+        File file = options.requireFile(true);
+        ExportFormat format = options.format(file);
+        System.err.println("Importing " + file + " as " + format);
+
+        long start = Metrics.start();
+        ImportProgress progress = (rows, bytesRead, totalBytes) -> { };
+        long rows;
+        try {
+            switch (format) {
+                case JSON:
+                    rows = JsonImporter.fromConfig(config, pool).run(file, progress);
+                    break;
+                case XML:
+                    rows = XmlImporter.fromConfig(config, pool).run(file, progress);
+                    break;
+                default:
+                    Importers.Result result = Importers.run(config, pool, file, progress);
+                    if (result.getDetail() != null) {
+                        System.err.println(result.getDetail());
+                    }
+                    rows = result.rows;
+                    break;
+            }
+        } catch (Exception e) {
+            Metrics.getInstance().record(Metrics.Operation.IMPORT, start, 0, true);
+            throw e;
+        }
+        Metrics.getInstance().record(Metrics.Operation.IMPORT, start, rows);
+        printThroughput("Imported", rows, start, file.length());
+        System.err.println(Metrics.getInstance().getSummary());
+    }
+
+    private static void runExport(Options options, ConfigManager config, ConnectionPool pool) throws Exception {
+        File file = options.requireFile(false);
+        ExportFormat format = options.format(file);
+        boolean gzip = options.flags.contains("gzip") || file.getName().endsWith(".gz");
+        System.err.println("Exporting to " + file + " as " + format + (gzip ? " (gzip)" : ""));
+
+        long start = Metrics.start();
+        long rows;
+        try {
+            rows = TableExporter.fromConfig(config, pool).export(format, file, gzip, (count, bytes) -> { });
+        } catch (Exception e) {
+            Metrics.getInstance().record(Metrics.Operation.EXPORT, start, 0, true);
+            throw e;
+        }
+        Metrics.getInstance().record(Metrics.Operation.EXPORT, start, rows);
+        printThroughput("Exported", rows, start, file.length());
+        System.err.println(Metrics.getInstance().getSummary());
+    }
+
+    private static void runAggregate(Options options, ConnectionPool pool) throws Exception {
+        List<BirthColumn> groupBy = parseColumns(options.values.getOrDefault("by", "StatYear"));
+        String snapshotPath = options.values.get("snapshot");
+        int threads = options.intValue("threads", Runtime.getRuntime().availableProcessors());
+
+        long loadStart = Metrics.start();
+        ColumnarTable table;
+        SnapshotFile snapshot = null;
+        if (snapshotPath != null) {
+            snapshot = SnapshotFile.open(new File(snapshotPath));
+            table = snapshot;
+        } else {
+            try (Connection conn = pool.getConnection()) {
+                table = ColumnarCache.load(conn, stmt -> { }, null);
+            }
+            Metrics.getInstance().record(Metrics.Operation.REFRESH, loadStart, table.size());
+        }
+        System.err.println(String.format("Loaded %d rows in %.1f s", table.size(),
+            (System.nanoTime() - loadStart) / 1e9));
+
+        ForkJoinPool forkJoin = new ForkJoinPool(Math.max(1, threads));
+        try {
+            AggregationEngine.Result result = new AggregationEngine(forkJoin).aggregate(table, groupBy);
+            String output = options.values.get("output");
+            try (PrintWriter out = output == null
+                    ? new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                    : new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(output), StandardCharsets.UTF_8)))) {
+                writeResult(result, out);
+                if (out.checkError()) {
+                    throw new IOException("Error writing aggregation output");
+                }
+            }
+            System.err.println(String.format("Aggregated %d rows into %d groups in %.1f ms", result.rowsScanned,
+                result.size(), result.getElapsedMs()));
+        } finally {
+            forkJoin.shutdown();
+            if (snapshot != null) {
+                snapshot.close();
+            }
+        }
+    }
+
+    // Differences go to stdout, one line per group
+    private static int runCheckSummary(Options options, ConnectionPool pool) throws SQLException {
+        boolean repair = options.flags.contains("repair");
+        long start = Metrics.start();
+        SummaryTables.CheckResult result;
+        try (Connection conn = pool.getConnection()) {
+            result = SummaryTables.check(conn, repair, stmt -> { });
+        }
+        for (SummaryTables.Difference difference : result.differences) {
+            System.out.println(difference);
+        }
+        System.err.println(String.format("%s (%.1f s)", result, (System.nanoTime() - start) / 1e9));
+        return result.isConsistent() || result.repaired ? EXIT_OK : EXIT_FAILED;
+    }
+
+    // CSV with one row per group, ordered like the pivot view (by year, then first appearance)
+    private static void writeResult(AggregationEngine.Result result, PrintWriter out) {
+        StringBuilder header = new StringBuilder();
+        for (BirthColumn column : result.groupBy) {
+            header.append(column.getDbName()).append(',');
+        }
+        out.println(header.append("TotalBirths,Records"));
+
+        Integer[] order = new Integer[result.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> result.codes[i], BatchCli::compareCodes));
+        for (int group : order) {
+            StringBuilder line = new StringBuilder();
+            for (String key : result.keys[group]) {
+                appendCsv(line, key).append(',');
+            }
+            line.append(result.sums[group]).append(',').append(result.counts[group]);
+            out.println(line);
+        }
+    }
+
+    private static int compareCodes(int[] a, int[] b) {
+        for (int i = 0; i < a.length; i++) {
+            int cmp = Integer.compare(a[i], b[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private static StringBuilder appendCsv(StringBuilder sb, String value) {
+        if (value == null) {
+            return sb;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            return sb.append(value);
+        }
+        return sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    // Accepts enum names, database column names or grid labels, case-insensitively
+    static List<BirthColumn> parseColumns(String spec) {
+        List<BirthColumn> columns = new ArrayList<>();
+        for (String name : spec.split(",")) {
+            String wanted = name.trim().replace(" ", "").replace("_", "").toLowerCase(Locale.ROOT);
+            if (wanted.isEmpty()) {
+                continue;
+            }
+            BirthColumn match = null;
+            for (BirthColumn column : BirthColumn.values()) {
+                if (column.name().replace("_", "").toLowerCase(Locale.ROOT).equals(wanted)
+                        || column.getDbName().toLowerCase(Locale.ROOT).equals(wanted)
+                        || column.getLabel().replace(" ", "").toLowerCase(Locale.ROOT).equals(wanted)) {
+                    match = column;
+                }
+            }
+            if (match == null || match == BirthColumn.ID || match == BirthColumn.BIRTH_COUNT) {
+                throw new IllegalArgumentException("Cannot group by '" + name.trim() + "'");
+            }
+            columns.add(match);
+        }
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("--by needs at least one column");
+        }
+        return columns;
+    }
+
+    private static void printThroughput(String verb, long rows, long startNanos, long bytes) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.err.println(String.format("%s %d rows in %.1f s (%.0f rows/s, %.1f MB/s)", verb, rows, seconds,
+            seconds > 0 ? rows / seconds : 0, seconds > 0 ? bytes / 1e6 / seconds : 0));
+    }
+
+    // Parsed command line: the command, at most one file argument, --name value pairs and flags
+    static final class Options {
+        private static final List<String> COMMANDS = Arrays.asList("import", "export", "aggregate", "check-summary");
+        private static final List<String> FLAGS = Arrays.asList("gzip", "repair");
+        private static final List<String> VALUES = Arrays.asList(
+            "format", "mode", "batch-size", "commit-batches", "parsers", "writers", "threads", "by", "snapshot", "output", "config");
+
+        final String command;
+        String file;
+        final Map<String, String> values = new LinkedHashMap<>();
+        final List<String> flags = new ArrayList<>();
+        final Map<String, String> overrides = new LinkedHashMap<>();
+
+        private Options(String command) {
+            this.command = command;
+        }
+
+        static Options parse(String[] args) {
+            if (!COMMANDS.contains(args[0])) {
+                throw new IllegalArgumentException("Unknown command '" + args[0] + "'");
+            }
+            Options options = new Options(args[0]);
+            for (int i = 1; i < args.length; i++) {
+                String arg = args[i];
+                if (!arg.startsWith("--")) {
+                    if (options.file != null) {
+                        throw new IllegalArgumentException("Unexpected argument '" + arg + "'");
+                    }
+                    options.file = arg;
+                    continue;
+                }
+                String name = arg.substring(2);
+                if (FLAGS.contains(name)) {
+                    options.flags.add(name);
+                    continue;
+                }
+                if (!VALUES.contains(name) && !name.equals("set")) {
+                    throw new IllegalArgumentException("Unknown option '" + arg + "'");
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException(arg + " needs a value");
+                }
+                String value = args[++i];
+                if (name.equals("set")) {
+                    int eq = value.indexOf('=');
+                    if (eq <= 0) {
+                        throw new IllegalArgumentException("--set expects key=value, got '" + value + "'");
+                    }
+                    options.overrides.put(value.substring(0, eq).trim(), value.substring(eq + 1));
+                } else {
+                    options.values.put(name, value);
+                }
+            }
+            return options;
+        }
+
+        // Maps the tuning options onto the settings the engines already read
+        void applyTo(ConfigManager config) throws IOException {
+            String configFile = values.get("config");
+            if (configFile != null) {
+                config.load(new File(configFile));
+            }
+            for (Map.Entry<String, String> entry : overrides.entrySet()) {
+                config.setProperty(entry.getKey(), entry.getValue());
+            }
+            if (values.containsKey("mode")) {
+                String mode = values.get("mode").toLowerCase(Locale.ROOT);
+                if (!Arrays.asList("pipeline", "bulkcopy", "upsert", "checkpoint").contains(mode)) {
+                    throw new IllegalArgumentException("--mode must be pipeline, bulkcopy, upsert or checkpoint");
+                }
+                config.setProperty("import.mode", mode);
+            }
+            if (values.containsKey("batch-size")) {
+                String batchSize = String.valueOf(intValue("batch-size", 0));
+                config.setProperty("csv.batch.size", batchSize);
+                config.setProperty("bulkcopy.batch.size", batchSize);
+            }
+            if (values.containsKey("commit-batches")) {
+                config.setProperty("import.commit.batches", String.valueOf(intValue("commit-batches", 0)));
+            }
+            if (values.containsKey("parsers")) {
+                config.setProperty("import.parser.threads", String.valueOf(intValue("parsers", 0)));
+            }
+            int connections = 0;
+            if (values.containsKey("writers")) {
+                connections = intValue("writers", 0);
+                config.setProperty("import.writer.threads", String.valueOf(connections));
+            }
+            if (values.containsKey("threads") && command.equals("export")) {
+                connections = intValue("threads", 0);
+                config.setProperty("export.parallel.threads", String.valueOf(connections));
+            }
+            // The engines keep one pooled connection spare, so make room for the requested threads
+            if (connections + 1 > config.getPoolMaxSize()) {
+                config.setProperty("db.pool.max.size", String.valueOf(connections + 1));
+            }
+        }
+
+        File requireFile(boolean mustExist) {
+            if (file == null) {
+                throw new IllegalArgumentException(command + " needs a file argument");
+            }
+            File f = new File(file);
+            if (mustExist && !f.isFile()) {
+                throw new IllegalArgumentException("File not found: " + file);
+            }
+            return f;
+        }
+
+        ExportFormat format(File f) {
+            String name = values.get("format");
+            if (name == null) {
+                String fileName = f.getName().toLowerCase(Locale.ROOT);
+                if (fileName.endsWith(".gz")) {
+                    fileName = fileName.substring(0, fileName.length() - 3);
+                }
+                name = fileName.substring(fileName.lastIndexOf('.') + 1);
+            }
+            for (ExportFormat format : ExportFormat.values()) {
+                if (format.extension.equalsIgnoreCase(name) || format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unknown format '" + name + "'; use --format csv, json or xml");
+        }
+
+        int intValue(String name, int defaultValue) {
+            String value = values.get(name);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                int parsed = Integer.parseInt(value.trim());
+                if (parsed <= 0) {
+                    throw new NumberFormatException();
+                }
+                return parsed;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("--" + name + " must be a positive number, got '" + value + "'");
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package birthstats;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.CancellationException;
+
+// Single-connection batched INSERT for the streaming importers.
+// Rows collect in a RecordBatch and go out with executeBatch every batchSize rows, all inside
+// one transaction: finish() commits, close() without finish() rolls everything back.
+public class BatchInserter implements AutoCloseable {
+    private final Connection conn;
+    private final PreparedStatement pstmt;
+    private final RecordBatch batch;
+    private final boolean autoCommit;
+    private final ImportProgress progress;
+    private final CountingInputStream in;
+    private final long totalBytes;
+    private long rowsWritten;
+    private boolean finished;
+    private volatile boolean cancelled;
+
+    // in and totalBytes are only used for progress reports
+    public BatchInserter(Connection conn, int batchSize, ImportProgress progress,
+                         CountingInputStream in, long totalBytes) throws SQLException {
+        this.conn = conn;
+        this.autoCommit = conn.getAutoCommit();
+        this.progress = progress;
+        this.in = in;
+        this.totalBytes = totalBytes;
+        this.batch = new RecordBatch(Math.max(1, batchSize));
+        conn.setAutoCommit(false);
+        this.pstmt = conn.prepareStatement(RecordBatch.INSERT_SQL);
+    }
+
+    public void add(int year, String type, String code, String name, String sex,
+                    String weight, String multiple, int count) throws SQLException {
+        if (cancelled) {
+            throw new CancellationException("Import cancelled");
+        }
+        batch.add(year, type, code, name, sex, weight, multiple, count);
+        if (batch.isFull()) {
+            flush();
+        }
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    // Sends the last partial batch and commits; returns the number of rows inserted
+    public long finish() throws SQLException {
+        flush();
+        conn.commit();
+        finished = true;
+        return rowsWritten;
+    }
+
+    // May be called from any thread
+    public void cancel() {
+        cancelled = true;
+        try {
+            pstmt.cancel();
+        } catch (SQLException e) {
+            System.err.println("Could not cancel insert: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (!finished) {
+                conn.rollback();
+            }
+            pstmt.close();
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int rows = batch.size();
+        long start = Metrics.start();
+        batch.addBatchTo(pstmt);
+        pstmt.executeBatch();
+        Metrics.getInstance().recordBatch(start, rows);
+        batch.clear();
+        rowsWritten += rows;
+        progress.batchWritten(rows, in.getCount(), totalBytes);
+    }
+}
@@ -0,0 +1,42 @@
+package birthstats;
+
+// Columns of the BirthStatistics table, in the order the grid shows them.
+public enum BirthColumn {
+    ID("ID", "ID", false),
+    STAT_YEAR("StatYear", "Year", false),
+    RECORD_TYPE("RecordType", "Record Type", true),
+    AREA_CODE("AreaCode", "Area Code", true),
+    AREA_NAME("AreaName", "Area Name", true),
+    GENDER("Gender", "Gender", true),
+    BIRTH_WEIGHT("BirthWeight", "Birth Weight", true),
+    MULTIPLE_BIRTH("MultipleBirth", "Multiple Birth", true),
+    BIRTH_COUNT("BirthCount", "Birth Count", false);
+
+    private final String dbName;
+    private final String label;
+    private final boolean text;
+
+    BirthColumn(String dbName, String label, boolean text) {
+        this.dbName = dbName;
+        this.label = label;
+        this.text = text;
+    }
+
+    public String getDbName() {
+        return dbName;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    // Text columns are low-cardinality and stored dictionary-encoded in memory
+    public boolean isText() {
+        return text;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
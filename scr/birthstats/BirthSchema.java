@@ -0,0 +1,99 @@
+package birthstats;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Which storage layout the database uses. After migrate_star_schema.sql, BirthStatistics is a
+// view over the FactBirth table and its dimension tables, with INSTEAD OF triggers routing
+// inserts, updates and deletes. Plain SQL works unchanged against either layout; only bulk
+// copy, staged imports and a few metadata queries need to know the difference.
+final class BirthSchema {
+    static final String FACT_TABLE = "FactBirth";
+
+    // The dimension inserts of the BirthStatistics_Insert trigger, reading a stage table
+    // ({stage}, with the BirthStatistics columns) instead of the inserted rows
+    private static final String[] ADD_DIMENSION_VALUES_SQL = {
+        "INSERT INTO DimRecordType (RecordType) SELECT DISTINCT i.RecordType FROM {stage} i " +
+        "WHERE NOT EXISTS (SELECT * FROM DimRecordType d WHERE EXISTS (SELECT d.RecordType INTERSECT SELECT i.RecordType))",
+        "INSERT INTO DimArea (AreaCode, AreaName) SELECT DISTINCT i.AreaCode, i.AreaName FROM {stage} i " +
+        "WHERE NOT EXISTS (SELECT * FROM DimArea d " +
+        "WHERE EXISTS (SELECT d.AreaCode, d.AreaName INTERSECT SELECT i.AreaCode, i.AreaName))",
+        "INSERT INTO DimGender (Gender) SELECT DISTINCT i.Gender FROM {stage} i " +
+        "WHERE NOT EXISTS (SELECT * FROM DimGender d WHERE EXISTS (SELECT d.Gender INTERSECT SELECT i.Gender))",
+        "INSERT INTO DimWeight (BirthWeight) SELECT DISTINCT i.BirthWeight FROM {stage} i " +
+        "WHERE NOT EXISTS (SELECT * FROM DimWeight d WHERE EXISTS (SELECT d.BirthWeight INTERSECT SELECT i.BirthWeight))",
+        "INSERT INTO DimPlurality (MultipleBirth) SELECT DISTINCT i.MultipleBirth FROM {stage} i " +
+        "WHERE NOT EXISTS (SELECT * FROM DimPlurality d " +
+        "WHERE EXISTS (SELECT d.MultipleBirth INTERSECT SELECT i.MultipleBirth))"
+    };
+
+    private static final int UNIQUE_CONSTRAINT_VIOLATION = 2627;
+    private static final int UNIQUE_INDEX_VIOLATION = 2601;
+
+    private static final String IS_VIEW_SQL =
+        "SELECT OBJECTPROPERTY(OBJECT_ID('BirthStatistics'), 'IsView')";
+
+    // The row count lives on whichever object actually stores the rows
+    private static final String ROW_COUNT_SQL =
+        "SELECT SUM(rows) FROM sys.partitions WHERE object_id = " +
+        "CASE WHEN OBJECTPROPERTY(OBJECT_ID('BirthStatistics'), 'IsView') = 1 " +
+        "THEN OBJECT_ID('" + FACT_TABLE + "') ELSE OBJECT_ID('BirthStatistics') END " +
+        "AND index_id IN (0, 1)";
+
+    private BirthSchema() {
+    }
+
+    static boolean isStarSchema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(IS_VIEW_SQL)) {
+            return rs.next() && rs.getInt(1) == 1;
+        }
+    }
+
+    // Adds the dimension values a staged import is about to use, each statement committing on
+    // its own. The trigger then finds every value and only reads the dimensions, so the import's
+    // long transaction holds no locks on new dimension rows for other sessions to wait on.
+    // Whatever the connection has not committed yet is committed first: call this only while
+    // that is nothing but rows in a temp table.
+    static void addDimensionValues(Connection conn, String stageTable) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(true);
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : ADD_DIMENSION_VALUES_SQL) {
+                String statement = sql.replace("{stage}", stageTable);
+                for (int attempt = 1; ; attempt++) {
+                    try {
+                        stmt.executeUpdate(statement);
+                        break;
+                    } catch (SQLException e) {
+                        // Another session added the same value first; running again skips it
+                        boolean duplicate = e.getErrorCode() == UNIQUE_CONSTRAINT_VIOLATION
+                            || e.getErrorCode() == UNIQUE_INDEX_VIOLATION;
+                        if (!duplicate || attempt == 3) {
+                            throw e;
+                        }
+                    }
+                }
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Cheap row count from catalog metadata, used only for progress estimates and sizing.
+    // Returns -1 when it cannot be read.
+    static long estimateRowCount(Connection conn) {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(ROW_COUNT_SQL)) {
+            if (rs.next()) {
+                long rows = rs.getLong(1);
+                return rs.wasNull() ? -1 : rows;
+            }
+            return -1;
+        } catch (SQLException e) {
+            return -1;
+        }
+    }
+}
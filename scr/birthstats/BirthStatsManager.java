@@ -0,0 +1,1389 @@
+package birthstats;
+
+import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.*;
+import java.awt.event.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BirthStatsManager extends JFrame {
+    private JTable dataTable;
+    private PagedTableModel tableModel;
+    private JTextField searchField;
+    private StatusBar statusBar;
+    private JButton saveChangesBtn;
+    private JButton discardChangesBtn;
+    private final ConfigManager config;
+    private final ConnectionPool connectionPool;
+    private volatile ColumnarCache columnarCache;
+    private volatile long columnarCacheVersion;  // QueryCache data version the cache was read at
+    private volatile NGramIndex areaNameIndex;
+    // An open snapshot replaces the live grid until Refresh Data is pressed; EDT only
+    private SnapshotFile snapshot;
+    private ColumnarTableModel snapshotModel;
+
+    public BirthStatsManager() {
+        config = ConfigManager.getInstance();
+        // No connection is opened here; the driver loads and connects in startUp()'s background task
+        connectionPool = ConnectionPool.fromConfig(config);
+        Metrics.getInstance().registerMBean();
+        Metrics.getInstance().startLogging(config.getMetricsLogInterval());
+        
+        // Set up the frame
+        setTitle(config.getAppTitle());
+        setSize(config.getWindowWidth(), config.getWindowHeight());
+        // Closing asks first when grid edits are unsaved
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        setLocationRelativeTo(null);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (!confirmDiscardChanges("Exit")) {
+                    return;
+                }
+                saveStartupCache();
+                tableModel.shutdown();
+                closeSnapshot();
+                connectionPool.close();
+                System.exit(0);
+            }
+        });
+
+        // Create main panel with BorderLayout
+        JPanel mainPanel = new JPanel(new BorderLayout(5, 5));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        // Create button panels for three rows
+        JPanel buttonPanelContainer = new JPanel(new GridLayout(3, 1, 0, 5));
+        
+        // First row panel for import/export buttons
+        JPanel firstRowPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        JButton refreshBtn = new JButton("Refresh Data");
+        JButton importBtn = new JButton("Import CSV");
+        JButton importJsonBtn = new JButton("Import JSON");
+        JButton importXmlBtn = new JButton("Import XML");
+        JButton exportBtn = new JButton("Export to CSV");
+        JButton exportJsonBtn = new JButton("Export to JSON");
+        JButton exportXmlBtn = new JButton("Export to XML");
+        JButton saveSnapshotBtn = new JButton("Save Snapshot");
+        JButton openSnapshotBtn = new JButton("Open Snapshot");
+
+        firstRowPanel.add(refreshBtn);
+        firstRowPanel.add(importBtn);
+        firstRowPanel.add(importJsonBtn);
+        firstRowPanel.add(importXmlBtn);
+        firstRowPanel.add(exportBtn);
+        firstRowPanel.add(exportJsonBtn);
+        firstRowPanel.add(exportXmlBtn);
+        firstRowPanel.add(saveSnapshotBtn);
+        firstRowPanel.add(openSnapshotBtn);
+
+        // Second row panel for CRUD and search
+        JPanel secondRowPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        JButton addBtn = new JButton("Add Record");
+        JButton editBtn = new JButton("Edit Record");
+        JButton deleteBtn = new JButton("Delete Record");
+        searchField = new JTextField(20);
+        searchField.setToolTipText("<html>" + SearchQuery.HELP.replace("&", "&amp;").replace("<", "&lt;")
+            .replace(">", "&gt;").replace("\n", "<br>").replace("  ", "&nbsp;&nbsp;") + "</html>");
+        JButton searchBtn = new JButton("Search");
+        JButton poolStatsBtn = new JButton("Pool Stats");
+        JButton diagnosticsBtn = new JButton("Diagnostics");
+        JButton loadCacheBtn = new JButton("Load Cache");
+        JButton pivotBtn = new JButton("Pivot");
+        JButton summaryBtn = new JButton("Summary");
+
+        secondRowPanel.add(addBtn);
+        secondRowPanel.add(editBtn);
+        secondRowPanel.add(deleteBtn);
+        secondRowPanel.add(new JLabel("Search:"));
+        secondRowPanel.add(searchField);
+        secondRowPanel.add(searchBtn);
+        secondRowPanel.add(poolStatsBtn);
+        secondRowPanel.add(diagnosticsBtn);
+        secondRowPanel.add(loadCacheBtn);
+        secondRowPanel.add(pivotBtn);
+        secondRowPanel.add(summaryBtn);
+
+        // Third row panel for editing in the grid
+        JPanel thirdRowPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        JButton addRowBtn = new JButton("Add Row");
+        JButton deleteRowsBtn = new JButton("Delete Rows");
+        deleteRowsBtn.setToolTipText("Mark the selected rows for deletion, or unmark them (Delete key)");
+        saveChangesBtn = new JButton("Save Changes");
+        discardChangesBtn = new JButton("Discard Changes");
+
+        thirdRowPanel.add(new JLabel("Grid edits:"));
+        thirdRowPanel.add(addRowBtn);
+        thirdRowPanel.add(deleteRowsBtn);
+        thirdRowPanel.add(saveChangesBtn);
+        thirdRowPanel.add(discardChangesBtn);
+
+        // Add all rows to the container
+        buttonPanelContainer.add(firstRowPanel);
+        buttonPanelContainer.add(secondRowPanel);
+        buttonPanelContainer.add(thirdRowPanel);
+
+        // Create table
+        tableModel = new PagedTableModel(this::getConnection, QueryCache.fromConfig(config),
+            config.getTablePageSize(), config.getTablePageCache());
+        dataTable = new JTable(tableModel);
+        ChangeSetRenderer.install(dataTable);
+        dataTable.putClientProperty("terminateEditOnFocusLost", Boolean.TRUE);
+        dataTable.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_DELETE, 0), "toggleDeleted");
+        dataTable.getActionMap().put("toggleDeleted", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                toggleDeletedRows();
+            }
+        });
+        tableModel.addTableModelListener(e -> updateChangeButtons());
+        JScrollPane scrollPane = new JScrollPane(dataTable);
+        statusBar = new StatusBar();
+
+        // Add components to main panel
+        mainPanel.add(buttonPanelContainer, BorderLayout.NORTH);
+        mainPanel.add(scrollPane, BorderLayout.CENTER);
+        mainPanel.add(statusBar, BorderLayout.SOUTH);
+
+        // Add main panel to frame
+        add(mainPanel);
+
+        // Add action listeners
+        refreshBtn.addActionListener(e -> refreshData());
+        importBtn.addActionListener(e -> importCSV());
+        importJsonBtn.addActionListener(e -> importJSON());
+        importXmlBtn.addActionListener(e -> importXML());
+        exportBtn.addActionListener(e -> exportToCSV());
+        exportJsonBtn.addActionListener(e -> exportToJSON());
+        exportXmlBtn.addActionListener(e -> exportToXML());
+        saveSnapshotBtn.addActionListener(e -> saveSnapshot());
+        openSnapshotBtn.addActionListener(e -> openSnapshot());
+        addBtn.addActionListener(e -> addRecord());
+        editBtn.addActionListener(e -> editRecord());
+        deleteBtn.addActionListener(e -> deleteRecord());
+        searchBtn.addActionListener(e -> searchRecords());
+        poolStatsBtn.addActionListener(e -> showPoolStats());
+        diagnosticsBtn.addActionListener(e -> DiagnosticsPanel.showDialog(this, connectionPool));
+        loadCacheBtn.addActionListener(e -> loadColumnarCache(null));
+        pivotBtn.addActionListener(e -> showPivot());
+        addRowBtn.addActionListener(e -> addGridRow());
+        deleteRowsBtn.addActionListener(e -> toggleDeletedRows());
+        saveChangesBtn.addActionListener(e -> saveChanges());
+        discardChangesBtn.addActionListener(e -> discardChanges());
+        updateChangeButtons();
+        summaryBtn.addActionListener(e -> SummaryPanel.showDialog(this, connectionPool, this::runTask));
+
+        startUp();
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        StartupMetrics.firstPaint();
+    }
+
+    // The frame paints straight away with the rows cached by the last session (if any) while
+    // the driver loads and the first live page index is fetched in the background
+    private void startUp() {
+        StartupCache cached = StartupCache.load(new File(config.getStartupCacheFile()), config.getTablePageSize());
+        String description = "Connecting";
+        if (cached != null) {
+            tableModel.showCachedRows(cached.rows);
+            description = String.format("Connecting (showing cached rows from %tF %<tR)", cached.savedMillis);
+        }
+
+        runTask(new IndexLoadTask(description, Metrics.Operation.REFRESH, PagedTableModel.Filter.NONE) {
+            @Override
+            protected PagedTableModel.PageIndex runInBackground() throws Exception {
+                try {
+                    Class.forName("com.microsoft.sqlserver.jdbc.SQLServerDriver");
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException("Error loading SQL Server JDBC driver: " + e.getMessage(), e);
+                }
+                return super.runInBackground();
+            }
+
+            @Override
+            protected void succeeded(PagedTableModel.PageIndex index) {
+                super.succeeded(index);
+                StartupMetrics.liveData();
+            }
+        });
+    }
+
+    // Keeps the first live page for the next startUp()
+    private void saveStartupCache() {
+        Object[][] firstPage = tableModel.getLoadedPage(0);
+        if (firstPage != null && firstPage.length > 0 && !tableModel.isShowingCachedRows()
+                && tableModel.getFilter() == PagedTableModel.Filter.NONE) {
+            StartupCache.save(new File(config.getStartupCacheFile()), firstPage);
+        }
+    }
+
+    private Connection getConnection() throws SQLException {
+        return connectionPool.getConnection();
+    }
+
+    private void showPoolStats() {
+        JOptionPane.showMessageDialog(this,
+            connectionPool.getStats().toString(),
+            "Connection Pool",
+            JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    // Pulls the whole table into the in-memory columnar cache, then runs andThen if given or
+    // shows a summary of the cache otherwise
+    private void loadColumnarCache(Runnable andThen) {
+        runTask(new DatabaseTask<ColumnarCache, Void>("Loading cache") {
+            private volatile long version;
+
+            @Override
+            protected ColumnarCache runInBackground() throws Exception {
+                version = QueryCache.dataVersion();
+                try (Connection conn = getConnection()) {
+                    return ColumnarCache.load(conn, this::track, (rows, total) -> {
+                        addRows(rows - getRows());
+                        setWork(rows, total);
+                    });
+                }
+            }
+
+            @Override
+            protected void succeeded(ColumnarCache cache) {
+                columnarCacheVersion = version;
+                columnarCache = cache;
+                areaNameIndex = null;
+                if (andThen != null) {
+                    andThen.run();
+                    return;
+                }
+                JOptionPane.showMessageDialog(BirthStatsManager.this,
+                    cache.describe(),
+                    "Columnar Cache",
+                    JOptionPane.INFORMATION_MESSAGE);
+            }
+
+            @Override
+            protected void failed(Throwable cause) {
+                showError("Error loading cache", cause);
+            }
+        });
+    }
+
+    // Pivots run in memory, so the cache is loaded first if needed, or again after a write
+    private void showPivot() {
+        if (snapshot != null) {
+            PivotPanel.showDialog(this, snapshot, this::runTask);
+            return;
+        }
+        ColumnarCache cache = currentColumnarCache();
+        if (cache == null) {
+            loadColumnarCache(this::showPivot);
+            return;
+        }
+        PivotPanel.showDialog(this, cache, this::runTask);
+    }
+
+    // The columnar cache, or null if none is loaded or a write since has made it stale
+    private ColumnarCache currentColumnarCache() {
+        ColumnarCache cache = columnarCache;
+        if (cache != null && columnarCacheVersion != QueryCache.dataVersion()) {
+            if (columnarCache == cache) {
+                columnarCache = null;
+            }
+            return null;
+        }
+        return cache;
+    }
+
+    private File chooseSnapshotFile(boolean save) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setFileFilter(new FileNameExtensionFilter("Birth statistics snapshots (*.bsnap)", "bsnap"));
+        int choice = save ? fileChooser.showSaveDialog(this) : fileChooser.showOpenDialog(this);
+        if (choice != JFileChooser.APPROVE_OPTION) {
+            return null;
+        }
+        File selected = fileChooser.getSelectedFile();
+        return !save || selected.getName().toLowerCase().endsWith(".bsnap")
+            ? selected : new File(selected.getAbsolutePath() + ".bsnap");
+    }
+
+    // Reads the table into a fresh columnar cache and writes it out as a snapshot file
+    private void saveSnapshot() {
+        File file = chooseSnapshotFile(true);
+        if (file == null) {
+            return;
+        }
+
+        runTask(new DatabaseTask<ColumnarCache, Void>("Saving snapshot") {
+            private volatile long version;
+
+            @Override
+            protected ColumnarCache runInBackground() throws Exception {
+                version = QueryCache.dataVersion();
+                ColumnarCache cache;
+                try (Connection conn = getConnection()) {
+                    cache = ColumnarCache.load(conn, this::track, (rows, total) -> {
+                        checkCancelled();
+                        addRows(rows - getRows());
+                        setWork(rows, total);
+                    });
+                }
+                checkCancelled();
+                SnapshotFile.write(cache, file);
+                return cache;
+            }
+
+            @Override
+            protected void succeeded(ColumnarCache cache) {
+                columnarCacheVersion = version;
+                columnarCache = cache;
+                areaNameIndex = null;
+                JOptionPane.showMessageDialog(BirthStatsManager.this,
+                    String.format("Snapshot saved.\n%,d rows, %,.1f MB written to %s",
+                        cache.size(), file.length() / 1048576.0, file.getName()));
+            }
+
+            @Override
+            protected void failed(Throwable cause) {
+                file.delete();
+                showError("Error saving snapshot", cause);
+            }
+
+            @Override
+            protected void cancelled() {
+                file.delete();
+            }
+        });
+    }
+
+    // Shows a snapshot in the grid; search and pivot then run against it without the database
+    private void openSnapshot() {
+        if (!checkIdle()) {
+            return;
+        }
+        File file = chooseSnapshotFile(false);
+        if (file == null) {
+            return;
+        }
+
+        runTask(new DatabaseTask<SnapshotFile, Void>("Opening snapshot") {
+            @Override
+            protected SnapshotFile runInBackground() throws Exception {
+                SnapshotFile opened = SnapshotFile.open(file);
+                addRows(opened.size());
+                return opened;
+            }
+
+            @Override
+            protected void succeeded(SnapshotFile opened) {
+                closeSnapshot();
+                snapshot = opened;
+                snapshotModel = new ColumnarTableModel(opened);
+                dataTable.setModel(snapshotModel);
+                setTitle(config.getAppTitle() + " - " + file.getName() + " (offline)");
+            }
+
+            @Override
+            protected void failed(Throwable cause) {
+                showError("Error opening snapshot", cause);
+            }
+        });
+    }
+
+    // Returns the grid to the live, database-backed model
+    private void closeSnapshot() {
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            snapshot.close();
+        } catch (IOException e) {
+            System.err.println("Error closing snapshot: " + e.getMessage());
+        }
+        snapshot = null;
+        snapshotModel = null;
+        dataTable.setModel(tableModel);
+        setTitle(config.getAppTitle());
+    }
+
+    // Edits go to the database, so they are refused while a snapshot is shown
+    private boolean checkLive() {
+        if (snapshot != null) {
+            JOptionPane.showMessageDialog(this,
+                "The open snapshot is read-only. Press Refresh Data to return to the database.",
+                "Snapshot",
+                JOptionPane.INFORMATION_MESSAGE);
+            return false;
+        }
+        return true;
+    }
+
+    // Only one background task runs at a time; tell the user if one is still busy
+    private boolean checkIdle() {
+        if (statusBar.isBusy()) {
+            JOptionPane.showMessageDialog(this,
+                "Another operation is still running. Please wait or cancel it first.",
+                "Busy",
+                JOptionPane.WARNING_MESSAGE);
+            return false;
+        }
+        return true;
+    }
+
+    // Returns false when another task is still running and this one was not started
+    private boolean runTask(DatabaseTask<?, ?> task) {
+        if (!checkIdle()) {
+            return false;
+        }
+        statusBar.track(task);
+        task.execute();
+        return true;
+    }
+
+    private void showError(String title, Throwable e) {
+        if (e instanceof SQLException) {
+            SQLException ex = (SQLException) e;
+            String errorMessage = String.format(
+                "Database Error:\nMessage: %s\nError Code: %d\nSQL State: %s",
+                ex.getMessage(), ex.getErrorCode(), ex.getSQLState());
+            JOptionPane.showMessageDialog(this,
+                errorMessage,
+                "Database Error",
+                JOptionPane.ERROR_MESSAGE);
+            System.err.println("\nDetailed SQL Error:");
+            System.err.println(errorMessage);
+        } else {
+            String errorMessage = title + ": " + e.getMessage();
+            JOptionPane.showMessageDialog(this,
+                errorMessage,
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+            System.err.println(errorMessage);
+        }
+        e.printStackTrace();
+    }
+
+    // Loads the row count and page keys for a filter; the table then fetches pages as they scroll into view
+    private class IndexLoadTask extends DatabaseTask<PagedTableModel.PageIndex, Void> {
+        private final PagedTableModel.Filter filter;
+
+        IndexLoadTask(String description, Metrics.Operation operation, PagedTableModel.Filter filter) {
+            super(description, operation);
+            this.filter = filter;
+        }
+
+        // Lets a search build its filter on the background thread
+        protected PagedTableModel.Filter resolveFilter() throws SQLException {
+            return filter;
+        }
+
+        // A cached index for the same filter needs no connection at all
+        @Override
+        protected PagedTableModel.PageIndex runInBackground() throws Exception {
+            PagedTableModel.Filter resolved = resolveFilter();
+            PagedTableModel.PageIndex index = tableModel.getCachedIndex(resolved);
+            if (index == null) {
+                try (Connection conn = getConnection()) {
+                    index = tableModel.loadIndex(conn, resolved, this::track);
+                }
+            }
+            addRows(index.rowCount);
+            return index;
+        }
+
+        @Override
+        protected void succeeded(PagedTableModel.PageIndex index) {
+            tableModel.setIndex(index);
+        }
+
+        @Override
+        protected void failed(Throwable cause) {
+            if (cause instanceof SQLException) {
+                showError("Database Error", cause);
+                System.err.println("\nConnection string used (without password):");
+                System.err.println(config.getDatabaseUrl());
+            } else {
+                showError("Unexpected error", cause);
+            }
+        }
+    }
+
+    private void refreshData() {
+        if (!checkIdle()) {
+            return;
+        }
+        closeSnapshot();
+        // Clear existing data; area names may have changed too
+        tableModel.clear();
+        areaNameIndex = null;
+
+        runTask(new IndexLoadTask("Loading data", Metrics.Operation.REFRESH, PagedTableModel.Filter.NONE));
+    }
+
+    // Shows the rows an import added by indexing only the IDs above the grid's highest one; the
+    // rows already loaded stay, unless the import also changed existing rows
+    private void showImportedRows(boolean changedExisting) {
+        if (snapshot != null || tableModel.isShowingCachedRows()) {
+            refreshData();
+            return;
+        }
+        areaNameIndex = null;
+        if (changedExisting) {
+            tableModel.invalidatePages();
+        }
+        loadNewRows();
+    }
+
+    // Appends the rows added since the index was loaded
+    private void loadNewRows() {
+        PagedTableModel.PageIndex base = tableModel.getIndex();
+        runTask(new DatabaseTask<PagedTableModel.PageIndex, Void>("Loading new rows", Metrics.Operation.REFRESH) {
+            @Override
+            protected PagedTableModel.PageIndex runInBackground() throws Exception {
+                try (Connection conn = getConnection()) {
+                    PagedTableModel.PageIndex tail = tableModel.loadIndexTail(conn, base, this::track);
+                    addRows(tail.rowCount);
+                    return tail;
+                }
+            }
+
+            @Override
+            protected void succeeded(PagedTableModel.PageIndex tail) {
+                if (!tableModel.appendIndex(base, tail)) {
+                    refreshData();
+                }
+            }
+
+            @Override
+            protected void failed(Throwable cause) {
+                showError("Database Error", cause);
+            }
+        });
+    }
+
+    private void importCSV() {
+        if (!checkLive()) {
+            return;
+        }
+        JFileChooser fileChooser = new JFileChooser();
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+        // Upsert merges the file on the natural key; checkpoint mode commits as it goes, and
+        // running it again on the same file resumes after the last commit
+        boolean checkpointed = "checkpoint".equals(config.getImportMode());
+        String verb = "upsert".equals(config.getImportMode()) ? "Merging " : "Importing ";
+
+        runTask(new DatabaseTask<Importers.Result, Void>(verb + file.getName(), Metrics.Operation.IMPORT) {
+            @Override
+            protected Importers.Result runInBackground() throws Exception {
+                Importers.Result result = Importers.run(config, connectionPool, file, (rows, bytesRead, totalBytes) -> {
+                    addRows(rows);
+                    setWork(bytesRead, totalBytes);
+                }, this::onCancel);
+                if (result.getDetail() != null) {
+                    System.out.println(result.getDetail());
+                } else {
+                    System.out.println(String.format("Imported %d rows from %s in %.1f s (%.0f rows/s)",
+                        result.rows, file.getName(), getElapsedSeconds(), getRowsPerSecond()));
+                }
+                return result;
+            }
+
+            @Override
+            protected void succeeded(Importers.Result result) {
+                if (result.upsert != null) {
+                    showUpserted(result.upsert);
+                } else if (result.checkpoint != null) {
+                    JOptionPane.showMessageDialog(BirthStatsManager.this,
+                        "Import completed successfully!\n" + result.checkpoint + ".",
+                        "Import Success",
+                        JOptionPane.INFORMATION_MESSAGE);
+                    showImportedRows(false);
+                } else {
+                    JOptionPane.showMessageDialog(BirthStatsManager.this,
+                        "Import completed successfully!\nImported " + result.rows + " rows.",
+                        "Import Success",
+                        JOptionPane.INFORMATION_MESSAGE);
+                    showImportedRows(false);
+                }
+            }
+
+            @Override
+            protected void failed(Throwable cause) {
+                showError("Error during import", cause);
+                if (checkpointed) {
+                    showResumeHint(file);
+                }
+            }
+
+            @Override
+            protected void cancelled() {
+                if (checkpointed) {
+                    showResumeHint(file);
+                }
+            }
+        });
+    }
+
+    private void showUpserted(UpsertImporter.Result result) {
+        if (result.skipped) {
+            JOptionPane.showMessageDialog(this,
+                "This file was already imported (" + result.previousImport + ").\nNothing was changed.",
+                "Import Skipped",
+                JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        JOptionPane.showMessageDialog(this,
+            String.format("Import completed successfully!%nRead %d rows: %d inserted, %d updated, %d unchanged.",
+                result.rowsRead, result.inserted, result.updated, result.getUnchanged()),
+            "Import Success",
+            JOptionPane.INFORMATION_MESSAGE);
+        if (result.inserted + result.updated > 0) {
+            showImportedRows(result.updated > 0);
+        }
+    }
+
+    private void showResumeHint(File file) {
+        if (CheckpointedImporter.checkpointFile(file).exists()) {
+            JOptionPane.showMessageDialog(this,
+                "Rows committed so far stay in the table.\nImport " + file.getName() +
+                " again to resume after the last commit.",
+                "Import Stopped",
+                JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+
+    // Asks for an export file; the gzip filter (or a name ending in .gz) selects compressed output
+    private File chooseExportFile(String extension, String description) {
+        JFileChooser fileChooser = new JFileChooser();
+        FileNameExtensionFilter plain = new FileNameExtensionFilter(
+            description + " (*." + extension + ")", extension);
+        FileNameExtensionFilter gzipped = new FileNameExtensionFilter(
+            "Gzipped " + description + " (*." + extension + ".gz)", "gz");
+        fileChooser.addChoosableFileFilter(plain);
+        fileChooser.addChoosableFileFilter(gzipped);
+        fileChooser.setFileFilter(config.isExportGzip() ? gzipped : plain);
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return null;
+        }
+        String path = fileChooser.getSelectedFile().getPath();
+        if (path.endsWith("." + extension) || path.endsWith("." + extension + ".gz")) {
+            return new File(path);
+        }
+        return new File(path + "." + extension + (fileChooser.getFileFilter() == gzipped ? ".gz" : ""));
+    }
+
+    private static boolean isGzip(File file) {
+        return file.getName().endsWith(".gz");
+    }
+
+    private void exportToCSV() {
+        runExport(ExportFormat.CSV);
+    }
+
+    private void exportToJSON() {
+        runExport(ExportFormat.JSON);
+    }
+
+    private void exportToXML() {
+        runExport(ExportFormat.XML);
+    }
+
+    // Parallel ranged export; the row count estimate only drives the progress bar
+    private void runExport(ExportFormat format) {
+        File file = chooseExportFile(format.extension, format.description);
+        if (file == null) {
+            return;
+        }
+
+        runTask(new DatabaseTask<Long, Void>("Exporting to " + format, Metrics.Operation.EXPORT) {
+            @Override
+            protected Long runInBackground() throws Exception {
+                long total;
+                try (Connection conn = getConnection()) {
+                    total = BirthSchema.estimateRowCount(conn);
+                }
+                TableExporter exporter = TableExporter.fromConfig(config, connectionPool);
+                onCancel(exporter::cancel);
+                return exporter.export(format, file, isGzip(file), (rows, bytes) -> {
+                    checkCancelled();
+                    addRows(rows);
+                    setWork(getRows(), total);
+                });
+            }
+
+            @Override
+            protected void succeeded(Long rows) {
+                JOptionPane.showMessageDialog(BirthStatsManager.this,
+                    String.format("Export completed successfully!\n%,d rows written to %s", rows, file.getName()));
+            }
+
+            @Override
+            protected void failed(Throwable cause) {
+                showError("Unexpected error", cause);
+            }
+
+            @Override
+            protected void cancelled() {
+                file.delete();
+            }
+        });
+    }
+
+    private interface StatementBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    // Brings the grid in line with a single-row write; generatedId is the new row's ID for an
+    // insert when the driver returns it, otherwise null
+    private interface GridPatch {
+        void apply(Integer generatedId);
+    }
+
+    // Runs a single INSERT/UPDATE/DELETE in the background and patches the grid on success. If
+    // the statement matched no row, someone else changed the table and it is reloaded instead.
+    private void runUpdate(String description, Metrics.Operation operation, String sql, StatementBinder binder,
+                           String successMessage, GridPatch patch) {
+        boolean insert = operation == Metrics.Operation.INSERT;
+        runTask(new DatabaseTask<Integer, Void>(description, operation) {
+            private Integer generatedId;
+
+            @Override
+            protected Integer runInBackground() throws Exception {
+                try (Connection conn = getConnection();
+                     PreparedStatement stmt = track(insert
+                         ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                         : conn.prepareStatement(sql))) {
+                    binder.bind(stmt);
+                    int updated = stmt.executeUpdate();
+                    if (insert) {
+                        try (ResultSet keys = stmt.getGeneratedKeys()) {
+                            if (keys.next()) {
+                                int id = keys.getInt(1);
+                                generatedId = keys.wasNull() ? null : id;
+                            }
+                        }
+                    }
+                    addRows(updated);
+                    return updated;
+                }
+            }
+
+            @Override
+            protected void succeeded(Integer updated) {
+                if (updated == 0) {
+                    refreshData();
+                } else {
+                    patch.apply(generatedId);
+                }
+                JOptionPane.showMessageDialog(BirthStatsManager.this, successMessage);
+            }
+
+            @Override
+            protected void failed(Throwable cause) {
+                showError("Unexpected error", cause);
+            }
+        });
+    }
+
+    // The dialogs write straight to the database, so they leave rows with pending grid edits alone
+    private boolean checkNoGridChanges(int row) {
+        Object[] values = tableModel.getRow(row);
+        if (tableModel.isInserted(row)
+                || (values != null && tableModel.getChanges().hasChanges((Integer) values[0]))) {
+            JOptionPane.showMessageDialog(this,
+                "The selected row has unsaved grid changes. Save or discard them first.",
+                "Unsaved Changes",
+                JOptionPane.INFORMATION_MESSAGE);
+            return false;
+        }
+        return true;
+    }
+
+    private void addRecord() {
+        if (!checkLive()) {
+            return;
+        }
+        // Show input dialog
+        JPanel panel = new JPanel(new GridLayout(9, 2));
+        JTextField yearField = new JTextField();
+        JTextField typeField = new JTextField();
+        JTextField areaCodeField = new JTextField();
+        JTextField areaNameField = new JTextField();
+        JTextField genderField = new JTextField();
+        JTextField weightField = new JTextField();
+        JTextField multipleBirthField = new JTextField();
+        JTextField countField = new JTextField();
+
+        panel.add(new JLabel("Year:"));
+        panel.add(yearField);
+        panel.add(new JLabel("Record Type:"));
+        panel.add(typeField);
+        panel.add(new JLabel("Area Code:"));
+        panel.add(areaCodeField);
+        panel.add(new JLabel("Area Name:"));
+        panel.add(areaNameField);
+        panel.add(new JLabel("Gender:"));
+        panel.add(genderField);
+        panel.add(new JLabel("Birth Weight:"));
+        panel.add(weightField);
+        panel.add(new JLabel("Multiple Birth:"));
+        panel.add(multipleBirthField);
+        panel.add(new JLabel("Birth Count:"));
+        panel.add(countField);
+
+        int result = JOptionPane.showConfirmDialog(this, panel, "Add New Record",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+        if (result == JOptionPane.OK_OPTION) {
+            try {
+                int year = Integer.parseInt(yearField.getText());
+                int count = Integer.parseInt(countField.getText());
+
+                runUpdate("Adding record", Metrics.Operation.INSERT,
+                    "INSERT INTO BirthStatistics (StatYear, RecordType, AreaCode, AreaName, " +
+                    "Gender, BirthWeight, MultipleBirth, BirthCount) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                    stmt -> {
+                        stmt.setInt(1, year);
+                        stmt.setString(2, typeField.getText());
+                        stmt.setString(3, areaCodeField.getText());
+                        stmt.setString(4, areaNameField.getText());
+                        stmt.setString(5, genderField.getText());
+                        stmt.setString(6, weightField.getText());
+                        stmt.setString(7, multipleBirthField.getText());
+                        stmt.setInt(8, count);
+                    },
+                    "Record added successfully!",
+                    id -> {
+                        areaNameIndex = null;
+                        // Inserts through the star-schema view's trigger return no ID
+                        if (id == null || !tableModel.insertRow(new Object[] {id, year, typeField.getText(),
+                                areaCodeField.getText(), areaNameField.getText(), genderField.getText(),
+                                weightField.getText(), multipleBirthField.getText(), count})) {
+                            loadNewRows();
+                        }
+                    });
+            } catch (NumberFormatException ex) {
+                String errorMessage = "Invalid number format: " + ex.getMessage();
+                JOptionPane.showMessageDialog(this,
+                    errorMessage,
+                    "Input Error",
+                    JOptionPane.ERROR_MESSAGE);
+                System.err.println(errorMessage);
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    private void editRecord() {
+        if (!checkLive()) {
+            return;
+        }
+        int selectedRow = dataTable.getSelectedRow();
+        if (selectedRow == -1) {
+            JOptionPane.showMessageDialog(this, "Please select a record to update.");
+            return;
+        }
+
+        if (!tableModel.isRowLoaded(selectedRow)) {
+            JOptionPane.showMessageDialog(this, "The selected record is still loading. Please try again.");
+            return;
+        }
+        if (!checkNoGridChanges(selectedRow)) {
+            return;
+        }
+
+        // Show input dialog with current values
+        JPanel panel = new JPanel(new GridLayout(9, 2));
+        JTextField idField = new JTextField(tableModel.getValueAt(selectedRow, 0).toString());
+        JTextField yearField = new JTextField(tableModel.getValueAt(selectedRow, 1).toString());
+        JTextField typeField = new JTextField(tableModel.getValueAt(selectedRow, 2).toString());
+        JTextField areaCodeField = new JTextField(tableModel.getValueAt(selectedRow, 3).toString());
+        JTextField areaNameField = new JTextField(tableModel.getValueAt(selectedRow, 4).toString());
+        JTextField genderField = new JTextField(tableModel.getValueAt(selectedRow, 5).toString());
+        JTextField weightField = new JTextField(tableModel.getValueAt(selectedRow, 6).toString());
+        JTextField multipleBirthField = new JTextField(tableModel.getValueAt(selectedRow, 7).toString());
+        JTextField countField = new JTextField(tableModel.getValueAt(selectedRow, 8).toString());
+
+        idField.setEditable(false);
+
+        panel.add(new JLabel("ID:"));
+        panel.add(idField);
+        panel.add(new JLabel("Year:"));
+        panel.add(yearField);
+        panel.add(new JLabel("Record Type:"));
+        panel.add(typeField);
+        panel.add(new JLabel("Area Code:"));
+        panel.add(areaCodeField);
+        panel.add(new JLabel("Area Name:"));
+        panel.add(areaNameField);
+        panel.add(new JLabel("Gender:"));
+        panel.add(genderField);
+        panel.add(new JLabel("Birth Weight:"));
+        panel.add(weightField);
+        panel.add(new JLabel("Multiple Birth:"));
+        panel.add(multipleBirthField);
+        panel.add(new JLabel("Birth Count:"));
+        panel.add(countField);
+
+        int result = JOptionPane.showConfirmDialog(this, panel, "Update Record",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+        if (result == JOptionPane.OK_OPTION) {
+            try {
+                int year = Integer.parseInt(yearField.getText());
+                int count = Integer.parseInt(countField.getText());
+                int id = Integer.parseInt(idField.getText());
+
+                runUpdate("Updating record", Metrics.Operation.UPDATE,
+                    "UPDATE BirthStatistics SET StatYear=?, RecordType=?, AreaCode=?, " +
+                    "AreaName=?, Gender=?, BirthWeight=?, MultipleBirth=?, BirthCount=? " +
+                    "WHERE ID=?",
+                    stmt -> {
+                        stmt.setInt(1, year);
+                        stmt.setString(2, typeField.getText());
+                        stmt.setString(3, areaCodeField.getText());
+                        stmt.setString(4, areaNameField.getText());
+                        stmt.setString(5, genderField.getText());
+                        stmt.setString(6, weightField.getText());
+                        stmt.setString(7, multipleBirthField.getText());
+                        stmt.setInt(8, count);
+                        stmt.setInt(9, id);
+                    },
+                    "Record updated successfully!",
+                    generatedId -> {
+                        areaNameIndex = null;
+                        tableModel.updateRow(new Object[] {id, year, typeField.getText(), areaCodeField.getText(),
+                            areaNameField.getText(), genderField.getText(), weightField.getText(),
+                            multipleBirthField.getText(), count});
+                    });
+            } catch (NumberFormatException ex) {
+                String errorMessage = "Invalid number format: " + ex.getMessage();
+                JOptionPane.showMessageDialog(this,
+                    errorMessage,
+                    "Input Error",
+                    JOptionPane.ERROR_MESSAGE);
+                System.err.println(errorMessage);
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    private void deleteRecord() {
+        if (!checkLive()) {
+            return;
+        }
+        int selectedRow = dataTable.getSelectedRow();
+        if (selectedRow == -1) {
+            JOptionPane.showMessageDialog(this, "Please select a record to delete.");
+            return;
+        }
+        if (!checkNoGridChanges(selectedRow)) {
+            return;
+        }
+
+        int confirm = JOptionPane.showConfirmDialog(this,
+            "Are you sure you want to delete this record?",
+            "Confirm Delete", JOptionPane.YES_NO_OPTION);
+
+        if (confirm == JOptionPane.YES_OPTION) {
+            if (!tableModel.isRowLoaded(selectedRow)) {
+                JOptionPane.showMessageDialog(this, "The selected record is still loading. Please try again.");
+                return;
+            }
+            int id = (Integer) tableModel.getValueAt(selectedRow, 0);
+            runUpdate("Deleting record", Metrics.Operation.DELETE,
+                "DELETE FROM BirthStatistics WHERE ID=?",
+                stmt -> stmt.setInt(1, id),
+                "Record deleted successfully!",
+                generatedId -> {
+                    if (!tableModel.removeRow(id)) {
+                        refreshData();
+                    }
+                });
+        }
+    }
+
+    // Appends an empty row to the grid and starts editing its first cell
+    private void addGridRow() {
+        if (!checkLive() || !stopEditing()) {
+            return;
+        }
+        int row = tableModel.addRow();
+        int viewRow = dataTable.convertRowIndexToView(row);
+        dataTable.changeSelection(viewRow, 1, false, false);
+        dataTable.editCellAt(viewRow, 1);
+        dataTable.requestFocusInWindow();
+    }
+
+    private void toggleDeletedRows() {
+        if (!checkLive() || !stopEditing()) {
+            return;
+        }
+        int[] rows = dataTable.getSelectedRows();
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = dataTable.convertRowIndexToModel(rows[i]);
+        }
+        tableModel.toggleDeleted(rows);
+    }
+
+    // Commits a cell editor that is still open; false if its value is invalid
+    private boolean stopEditing() {
+        return !dataTable.isEditing() || dataTable.getCellEditor().stopCellEditing();
+    }
+
+    private void updateChangeButtons() {
+        int count = tableModel.getChanges().size();
+        saveChangesBtn.setText(count == 0 ? "Save Changes" : "Save Changes (" + count + ")");
+        saveChangesBtn.setEnabled(count > 0);
+        discardChangesBtn.setEnabled(count > 0);
+    }
+
+    // True when there are no unsaved grid edits or the user agrees to drop them
+    private boolean confirmDiscardChanges(String action) {
+        int count = tableModel.getChanges().size();
+        if (count == 0) {
+            return true;
+        }
+        return JOptionPane.showConfirmDialog(this,
+            String.format("%d rows have unsaved changes. Discard them?", count),
+            action, JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) == JOptionPane.YES_OPTION;
+    }
+
+    private void discardChanges() {
+        if (dataTable.isEditing()) {
+            dataTable.getCellEditor().cancelCellEditing();
+        }
+        if (confirmDiscardChanges("Discard Changes")) {
+            tableModel.discardChanges();
+        }
+    }
+
+    // Writes every pending grid edit, new row and deletion in one transaction with one batch per
+    // statement type, then patches the saved rows into the grid
+    private void saveChanges() {
+        if (!checkLive() || !checkIdle() || !stopEditing()) {
+            return;
+        }
+        ChangeSet changes = tableModel.getChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+        ChangeSet.Pending pending = changes.freeze();
+        tableModel.setEditable(false);
+
+        runTask(new DatabaseTask<Integer, Void>("Saving " + pending.size() + " changes", Metrics.Operation.SAVE) {
+            private volatile Integer committed;  // set once the save has committed
+
+            @Override
+            protected Integer runInBackground() throws Exception {
+                try (Connection conn = getConnection()) {
+                    int saved = ChangeSet.save(conn, pending, this::track);
+                    committed = saved;
+                    addRows(saved);
+                    return saved;
+                }
+            }
+
+            @Override
+            protected void succeeded(Integer saved) {
+                tableModel.setEditable(true);
+                areaNameIndex = null;
+                boolean patched = true;
+                for (Object[][] update : pending.updates) {
+                    tableModel.updateRow(update[1]);
+                }
+                for (Object[] deleted : pending.deletes) {
+                    patched &= tableModel.removeRow((Integer) deleted[0]);
+                }
+                tableModel.discardChanges();
+                if (!patched) {
+                    runTask(new IndexLoadTask("Loading data", Metrics.Operation.REFRESH, tableModel.getFilter()));
+                } else if (!pending.inserts.isEmpty()) {
+                    // Batched inserts return no keys, so the new rows are found by ID instead
+                    loadNewRows();
+                }
+            }
+
+            @Override
+            protected void failed(Throwable cause) {
+                tableModel.setEditable(true);
+                if (cause instanceof ChangeSet.ConflictException) {
+                    resolveConflicts((ChangeSet.ConflictException) cause);
+                } else {
+                    showError("Error saving changes", cause);
+                }
+            }
+
+            @Override
+            protected void cancelled() {
+                // Cancelled too late to stop the commit: the pending changes are saved
+                Integer saved = committed;
+                if (saved != null) {
+                    succeeded(saved);
+                } else {
+                    tableModel.setEditable(true);
+                }
+            }
+        });
+    }
+
+    // Nothing was saved; offer to drop the edits to the conflicting rows and save the rest
+    private void resolveConflicts(ChangeSet.ConflictException conflict) {
+        int choice = JOptionPane.showConfirmDialog(this,
+            conflict.getMessage() + "\n\nNothing was saved. Drop your changes to these rows and save the others?",
+            "Save Conflict", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+        if (choice == JOptionPane.YES_OPTION) {
+            tableModel.getChanges().discard(conflict.getIds());
+            tableModel.fireTableDataChanged();
+            saveChanges();
+        }
+    }
+
+    private void searchRecords() {
+        String searchTerm = searchField.getText().trim();
+        if (searchTerm.isEmpty()) {
+            clearSearch();
+            return;
+        }
+        SearchQuery query;
+        try {
+            query = SearchQuery.parse(searchTerm);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this,
+                e.getMessage() + "\n\n" + SearchQuery.HELP,
+                "Invalid Search",
+                JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (query.isEmpty()) {
+            clearSearch();
+            return;
+        }
+        if (!checkIdle()) {
+            return;
+        }
+        if (snapshot != null) {
+            searchSnapshot(query);
+            return;
+        }
+
+        tableModel.clear();
+        runTask(new IndexLoadTask("Searching", Metrics.Operation.SEARCH, PagedTableModel.Filter.NONE) {
+            @Override
+            protected PagedTableModel.Filter resolveFilter() throws SQLException {
+                NGramIndex areaNames = query.usesAreaSearch() ? getAreaNameIndex() : null;
+                return query.toFilter(text -> areaNames == null ? null : areaNames.search(text));
+            }
+        });
+    }
+
+    private void clearSearch() {
+        if (snapshotModel != null) {
+            snapshotModel.setRows(null);
+        } else {
+            refreshData();
+        }
+    }
+
+    // Filters the open snapshot in memory; the predicate works on dictionary codes
+    private void searchSnapshot(SearchQuery query) {
+        ColumnarTableModel model = snapshotModel;
+        ColumnarTable table = model.getTable();
+        runTask(new DatabaseTask<int[], Void>("Searching snapshot", Metrics.Operation.SEARCH) {
+            @Override
+            protected int[] runInBackground() {
+                NGramIndex areaNames = query.usesAreaSearch()
+                    ? new NGramIndex(distinctValues(table, BirthColumn.AREA_NAME)) : null;
+                int[] rows = table.filter(query.toPredicate(table,
+                    text -> areaNames == null ? null : areaNames.search(text)));
+                addRows(rows.length);
+                return rows;
+            }
+
+            @Override
+            protected void succeeded(int[] rows) {
+                if (snapshotModel == model) {
+                    model.setRows(rows);
+                }
+            }
+
+            @Override
+            protected void failed(Throwable cause) {
+                showError("Search error", cause);
+            }
+        });
+    }
+
+    private static List<String> distinctValues(ColumnarTable table, BirthColumn column) {
+        List<String> values = new ArrayList<>();
+        for (int code = 0; code < table.cardinality(column); code++) {
+            values.add(table.decode(column, code));
+        }
+        return values;
+    }
+
+    // Substring index over the distinct area names, built from the columnar cache when it is
+    // loaded and current and otherwise from a DISTINCT query that the AreaName index answers cheaply
+    private NGramIndex getAreaNameIndex() throws SQLException {
+        NGramIndex index = areaNameIndex;
+        if (index != null) {
+            return index;
+        }
+        List<String> names = new ArrayList<>();
+        ColumnarCache cache = currentColumnarCache();
+        if (cache != null) {
+            names = distinctValues(cache, BirthColumn.AREA_NAME);
+        } else {
+            try (Connection conn = getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT DISTINCT AreaName FROM BirthStatistics")) {
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                }
+            }
+        }
+        index = new NGramIndex(names);
+        areaNameIndex = index;
+        return index;
+    }
+
+    private void importJSON() {
+        if (!checkLive()) {
+            return;
+        }
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setFileFilter(new FileNameExtensionFilter("JSON Files (*.json, *.json.gz)", "json", "gz"));
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+
+        runTask(new DatabaseTask<Long, Void>("Importing " + file.getName(), Metrics.Operation.IMPORT) {
+            @Override
+            protected Long runInBackground() throws Exception {
+                JsonImporter importer = JsonImporter.fromConfig(config, connectionPool);
+                onCancel(importer::cancel);
+                long rows = importer.run(file, (batchRows, bytesRead, totalBytes) -> {
+                    addRows(batchRows);
+                    setWork(bytesRead, totalBytes);
+                });
+                System.out.printf("Successfully imported %d rows from JSON (%.0f rows/sec)%n", rows, getRowsPerSecond());
+                return rows;
+            }
+
+            @Override
+            protected void succeeded(Long rows) {
+                JOptionPane.showMessageDialog(BirthStatsManager.this,
+                    String.format("JSON import completed successfully!\nImported %,d rows in %.1f s (%,.0f rows/sec).",
+                        rows, getElapsedSeconds(), getRowsPerSecond()),
+                    "Import Success",
+                    JOptionPane.INFORMATION_MESSAGE);
+                showImportedRows(false);
+            }
+
+            @Override
+            protected void failed(Throwable cause) {
+                if (cause instanceof SQLException) {
+                    showError("Error importing JSON", cause);
+                } else {
+                    JOptionPane.showMessageDialog(BirthStatsManager.this, "Error importing JSON: " + cause.getMessage(),
+                        "Import Error", JOptionPane.ERROR_MESSAGE);
+                    cause.printStackTrace();
+                }
+            }
+        });
+    }
+
+    private void importXML() {
+        if (!checkLive()) {
+            return;
+        }
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setFileFilter(new FileNameExtensionFilter("XML Files (*.xml, *.xml.gz)", "xml", "gz"));
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+
+        runTask(new DatabaseTask<Long, Void>("Importing " + file.getName(), Metrics.Operation.IMPORT) {
+            @Override
+            protected Long runInBackground() throws Exception {
+                XmlImporter importer = XmlImporter.fromConfig(config, connectionPool);
+                onCancel(importer::cancel);
+                long rows = importer.run(file, (batchRows, bytesRead, totalBytes) -> {
+                    addRows(batchRows);
+                    setWork(bytesRead, totalBytes);
+                });
+                System.out.printf("Successfully imported %d rows from XML (%.0f rows/sec)%n", rows, getRowsPerSecond());
+                return rows;
+            }
+
+            @Override
+            protected void succeeded(Long rows) {
+                JOptionPane.showMessageDialog(BirthStatsManager.this,
+                    String.format("XML import completed successfully!\nImported %,d rows in %.1f s (%,.0f rows/sec).",
+                        rows, getElapsedSeconds(), getRowsPerSecond()),
+                    "Import Success",
+                    JOptionPane.INFORMATION_MESSAGE);
+                showImportedRows(false);
+            }
+
+            @Override
+            protected void failed(Throwable cause) {
+                if (cause instanceof SQLException) {
+                    showError("Error importing XML", cause);
+                } else {
+                    JOptionPane.showMessageDialog(BirthStatsManager.this, "Error importing XML: " + cause.getMessage(),
+                        "Import Error", JOptionPane.ERROR_MESSAGE);
+                    cause.printStackTrace();
+                }
+            }
+        });
+    }
+
+    public static void main(String[] args) {
+        // Any arguments select the headless batch mode
+        if (args.length > 0) {
+            System.exit(BatchCli.run(args));
+        }
+        try {
+            System.out.println("Starting BirthStatsManager...");
+            // Set look and feel
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+            
+            // Create and show GUI on EDT
+            SwingUtilities.invokeLater(() -> {
+                try {
+                    System.out.println("Creating main window...");
+                    BirthStatsManager frame = new BirthStatsManager();
+                    frame.setVisible(true);
+                } catch (Exception e) {
+                    System.err.println("Error creating application window:");
+                    System.err.println("Error type: " + e.getClass().getName());
+                    System.err.println("Error message: " + e.getMessage());
+                    if (e.getCause() != null) {
+                        System.err.println("Caused by: " + e.getCause().getMessage());
+                    }
+                    e.printStackTrace(System.err);
+                    JOptionPane.showMessageDialog(null,
+                        "Error: " + e.getMessage() + "\nPlease check console for details.",
+                        "Application Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            });
+        } catch (Exception e) {
+            System.err.println("Fatal error starting application:");
+            e.printStackTrace(System.err);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package birthstats;
+
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CancellationException;
+
+// Fast-path CSV import through SQLServerBulkCopy.
+// Rows stream from the tokenizer into the bulk load inside one transaction.
+// Bulk loads cannot target the star-schema view, so in that layout the rows go to a temp
+// table first and one INSERT ... SELECT moves them through the view's trigger.
+public class BulkCopyImporter {
+    private static final String COLUMNS =
+        "StatYear, RecordType, AreaCode, AreaName, Gender, BirthWeight, MultipleBirth, BirthCount";
+
+    private static final String INSERT_FROM_STAGE_SQL =
+        "INSERT INTO BirthStatistics (" + COLUMNS + ") " +
+        "SELECT " + COLUMNS + " FROM " + UpsertImporter.STAGE_TABLE + " ORDER BY StageID";
+
+    private final ConnectionPool pool;
+    private final int batchSize;
+    private final boolean tableLock;
+    private final String[] columnMapping;
+    private final int timeoutSeconds;
+    private volatile CsvBulkData source;
+    private volatile boolean cancelled;
+
+    // columnMapping[i] is the destination column for CSV column i; blank entries are skipped
+    public BulkCopyImporter(ConnectionPool pool, int batchSize, boolean tableLock,
+                            String[] columnMapping, int timeoutSeconds) {
+        this.pool = pool;
+        this.batchSize = batchSize;
+        this.tableLock = tableLock;
+        this.columnMapping = columnMapping;
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    public static BulkCopyImporter fromConfig(ConfigManager config, ConnectionPool pool) {
+        return new BulkCopyImporter(pool,
+            config.getBulkCopyBatchSize(),
+            config.isBulkCopyTableLock(),
+            config.getBulkCopyColumnMapping(),
+            config.getBulkCopyTimeoutSeconds());
+    }
+
+    // Unwraps the pooled connection to the driver's own class, or returns null when the
+    // connection does not come from the Microsoft driver and bulk copy cannot be used
+    public static SQLServerConnection unwrapSqlServer(Connection conn) {
+        try {
+            if (conn.isWrapperFor(SQLServerConnection.class)) {
+                return conn.unwrap(SQLServerConnection.class);
+            }
+        } catch (SQLException e) {
+            // Not a SQL Server connection
+        }
+        return null;
+    }
+
+    public boolean isAvailable() {
+        try (Connection conn = pool.getConnection()) {
+            return unwrapSqlServer(conn) != null;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    public long run(File file, ImportProgress progress) throws Exception {
+        long fileSize = file.length();
+        try (Connection conn = pool.getConnection();
+             CountingInputStream in = new CountingInputStream(new FileInputStream(file));
+             CsvTokenizer csv = new CsvTokenizer(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+
+            SQLServerConnection sqlConn = unwrapSqlServer(conn);
+            if (sqlConn == null) {
+                throw new SQLException("Bulk copy requires a Microsoft SQL Server connection");
+            }
+            conn.setAutoCommit(false);
+            boolean staged = BirthSchema.isStarSchema(conn);
+            // Bulk loads skip triggers unless asked; the summary trigger has to see these rows.
+            // Staged rows reach it through the INSERT ... SELECT instead.
+            boolean fireTriggers = !staged && SummaryTables.exists(conn);
+
+            source = new CsvBulkData(csv, in, fileSize, batchSize, progress);
+            if (cancelled) {
+                source.cancel();
+            }
+
+            try {
+                if (staged) {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute(UpsertImporter.CREATE_STAGE_SQL);
+                    }
+                }
+                try (SQLServerBulkCopy bulkCopy = new SQLServerBulkCopy(sqlConn)) {
+                    SQLServerBulkCopyOptions options = new SQLServerBulkCopyOptions();
+                    options.setBatchSize(batchSize);
+                    options.setTableLock(tableLock);
+                    options.setFireTriggers(fireTriggers);
+                    options.setBulkCopyTimeout(timeoutSeconds);
+                    // Run inside the connection's transaction so the whole file commits or rolls back
+                    options.setUseInternalTransaction(false);
+                    bulkCopy.setBulkCopyOptions(options);
+                    bulkCopy.setDestinationTableName(staged ? UpsertImporter.STAGE_TABLE : "BirthStatistics");
+                    for (int i = 0; i < columnMapping.length; i++) {
+                        if (!columnMapping[i].isEmpty()) {
+                            bulkCopy.addColumnMapping(i + 1, columnMapping[i]);
+                        }
+                    }
+                    bulkCopy.writeToServer(source);
+                }
+                if (staged) {
+                    // Only the temp table has changed so far
+                    conn.commit();
+                    BirthSchema.addDimensionValues(conn, UpsertImporter.STAGE_TABLE);
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.setQueryTimeout(timeoutSeconds);
+                        stmt.executeUpdate(INSERT_FROM_STAGE_SQL);
+                    }
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                if (cancelled) {
+                    throw new CancellationException("Import cancelled");
+                }
+                throw e;
+            } finally {
+                if (staged) {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute(UpsertImporter.DROP_STAGE_SQL);
+                    } catch (SQLException e) {
+                        // A broken connection is discarded by the pool along with its temp table
+                    }
+                }
+            }
+
+            conn.commit();
+            return source.getRowCount();
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+        CsvBulkData current = source;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+}
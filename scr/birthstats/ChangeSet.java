@@ -0,0 +1,290 @@
+package birthstats;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+// Grid edits that have not been saved yet: changed cells and deleted rows keyed by ID, plus
+// new rows. The table model overlays them on pages as they load, so they survive scrolling,
+// searches and reloads. save() writes a frozen copy in one transaction with one executeBatch()
+// per statement type. Updates and deletes only match a row whose values are still the ones
+// the grid loaded; a row changed or deleted by someone else meanwhile is a conflict and the
+// whole save rolls back. EDT only, apart from save() and the Pending it works on.
+public class ChangeSet {
+    // Row values as PagedTableModel holds them; integers read as 0 when NULL, hence the COALESCE
+    private static final String MATCHES_LOADED =
+        "ID = ? AND COALESCE(StatYear, 0) = ? AND EXISTS (SELECT RecordType INTERSECT SELECT ?) " +
+        "AND EXISTS (SELECT AreaCode INTERSECT SELECT ?) AND EXISTS (SELECT AreaName INTERSECT SELECT ?) " +
+        "AND EXISTS (SELECT Gender INTERSECT SELECT ?) AND EXISTS (SELECT BirthWeight INTERSECT SELECT ?) " +
+        "AND EXISTS (SELECT MultipleBirth INTERSECT SELECT ?) AND COALESCE(BirthCount, 0) = ?";
+
+    static final String UPDATE_SQL =
+        "UPDATE BirthStatistics SET StatYear = ?, RecordType = ?, AreaCode = ?, AreaName = ?, Gender = ?, " +
+        "BirthWeight = ?, MultipleBirth = ?, BirthCount = ? WHERE " + MATCHES_LOADED;
+
+    static final String DELETE_SQL = "DELETE FROM BirthStatistics WHERE " + MATCHES_LOADED;
+
+    private static final int COLUMNS = PagedTableModel.COLUMNS.length;
+
+    private final Map<Integer, RowChange> changed = new LinkedHashMap<>();
+    private final List<Object[]> inserted = new ArrayList<>();
+
+    // An existing row with edited cells, a delete mark, or both
+    private static final class RowChange {
+        final Object[] loaded;
+        final Object[] current;
+        final BitSet dirty = new BitSet(COLUMNS);
+        boolean deleted;
+
+        RowChange(Object[] loaded) {
+            this.loaded = loaded.clone();
+            this.current = loaded.clone();
+        }
+    }
+
+    public boolean isEmpty() {
+        return changed.isEmpty() && inserted.isEmpty();
+    }
+
+    // Edited rows, deleted rows and new rows; a row that is both edited and deleted counts once
+    public int size() {
+        return changed.size() + inserted.size();
+    }
+
+    public void clear() {
+        changed.clear();
+        inserted.clear();
+    }
+
+    // Drops the pending changes to these existing rows
+    public void discard(Collection<Integer> ids) {
+        changed.keySet().removeAll(ids);
+    }
+
+    public boolean hasChanges(int id) {
+        return changed.containsKey(id);
+    }
+
+    // The row as the grid should show it
+    Object[] overlay(Object[] loaded) {
+        RowChange change = changed.get((Integer) loaded[0]);
+        return change == null ? loaded : change.current;
+    }
+
+    boolean isDirty(int id, int column) {
+        RowChange change = changed.get(id);
+        return change != null && change.dirty.get(column);
+    }
+
+    boolean isDeleted(int id) {
+        RowChange change = changed.get(id);
+        return change != null && change.deleted;
+    }
+
+    // Records a cell edit; setting a cell back to its loaded value clears it again
+    void setValue(Object[] loaded, int column, Object value) {
+        int id = (Integer) loaded[0];
+        RowChange change = changed.get(id);
+        if (change == null) {
+            change = new RowChange(loaded);
+        }
+        change.current[column] = value;
+        change.dirty.set(column, !Objects.equals(change.loaded[column], value));
+        if (change.dirty.isEmpty() && !change.deleted) {
+            changed.remove(id);
+        } else {
+            changed.put(id, change);
+        }
+    }
+
+    void toggleDeleted(Object[] loaded) {
+        int id = (Integer) loaded[0];
+        RowChange change = changed.get(id);
+        if (change == null) {
+            change = new RowChange(loaded);
+            changed.put(id, change);
+        }
+        change.deleted = !change.deleted;
+        if (!change.deleted && change.dirty.isEmpty()) {
+            changed.remove(id);
+        }
+    }
+
+    int getInsertedCount() {
+        return inserted.size();
+    }
+
+    Object[] getInserted(int i) {
+        return inserted.get(i);
+    }
+
+    // New rows have no ID until they are saved
+    void addRow() {
+        inserted.add(new Object[COLUMNS]);
+    }
+
+    void removeInserted(int i) {
+        inserted.remove(i);
+    }
+
+    // Copies the changes for save(); the grid stays locked while a save runs
+    Pending freeze() {
+        List<Object[][]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (RowChange change : changed.values()) {
+            if (change.deleted) {
+                deletes.add(change.loaded.clone());
+            } else {
+                updates.add(new Object[][] {change.loaded.clone(), change.current.clone()});
+            }
+        }
+        List<Object[]> inserts = new ArrayList<>();
+        for (Object[] row : inserted) {
+            inserts.add(row.clone());
+        }
+        return new Pending(updates, deletes, inserts);
+    }
+
+    static final class Pending {
+        final List<Object[][]> updates;   // {row as loaded, row as edited}
+        final List<Object[]> deletes;     // rows as loaded
+        final List<Object[]> inserts;
+
+        Pending(List<Object[][]> updates, List<Object[]> deletes, List<Object[]> inserts) {
+            this.updates = updates;
+            this.deletes = deletes;
+            this.inserts = inserts;
+        }
+
+        int size() {
+            return updates.size() + deletes.size() + inserts.size();
+        }
+    }
+
+    // Writes everything in one transaction: deletes, then updates, then inserts, each as a single
+    // batch. Throws ConflictException, having rolled back, if any update or delete matched no row.
+    static int save(Connection conn, Pending pending, Consumer<Statement> onStatement)
+            throws SQLException, ConflictException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            List<Integer> conflicts = new ArrayList<>();
+            if (!pending.deletes.isEmpty()) {
+                try (PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+                    onStatement.accept(stmt);
+                    for (Object[] loaded : pending.deletes) {
+                        bindLoaded(stmt, loaded, 1);
+                        stmt.addBatch();
+                    }
+                    collectConflicts(stmt.executeBatch(), pending.deletes, conflicts);
+                }
+            }
+            if (!pending.updates.isEmpty()) {
+                List<Object[]> loadedRows = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+                    onStatement.accept(stmt);
+                    for (Object[][] update : pending.updates) {
+                        bindValues(stmt, update[1], 1);
+                        bindLoaded(stmt, update[0], 9);
+                        stmt.addBatch();
+                        loadedRows.add(update[0]);
+                    }
+                    collectConflicts(stmt.executeBatch(), loadedRows, conflicts);
+                }
+            }
+            if (!conflicts.isEmpty()) {
+                throw new ConflictException(conflicts);
+            }
+            if (!pending.inserts.isEmpty()) {
+                try (PreparedStatement stmt = conn.prepareStatement(RecordBatch.INSERT_SQL)) {
+                    onStatement.accept(stmt);
+                    for (Object[] row : pending.inserts) {
+                        bindValues(stmt, row, 1);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            }
+            conn.commit();
+            return pending.size();
+        } catch (SQLException | ConflictException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        } finally {
+            try {
+                conn.setAutoCommit(autoCommit);
+            } catch (SQLException e) {
+                // The pool discards broken connections
+            }
+        }
+    }
+
+    // A count of 0 means the row was changed or deleted since it was loaded; the driver may also
+    // report SUCCESS_NO_INFO, which is taken as a match
+    private static void collectConflicts(int[] counts, List<Object[]> rows, List<Integer> conflicts) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                conflicts.add((Integer) rows.get(i)[0]);
+            }
+        }
+    }
+
+    // StatYear through BirthCount, in column order
+    private static void bindValues(PreparedStatement stmt, Object[] row, int first) throws SQLException {
+        for (int column = 1; column < COLUMNS; column++) {
+            int index = first + column - 1;
+            Object value = row[column];
+            if (value == null) {
+                stmt.setNull(index, column == 1 || column == 8 ? Types.INTEGER : Types.NVARCHAR);
+            } else if (value instanceof Integer) {
+                stmt.setInt(index, (Integer) value);
+            } else {
+                stmt.setString(index, value.toString());
+            }
+        }
+    }
+
+    // MATCHES_LOADED: the ID, then every column as the grid loaded it
+    private static void bindLoaded(PreparedStatement stmt, Object[] loaded, int first) throws SQLException {
+        stmt.setInt(first, (Integer) loaded[0]);
+        bindValues(stmt, loaded, first + 1);
+    }
+
+    // Rows that another user changed or deleted after the grid loaded them
+    public static final class ConflictException extends Exception {
+        private final List<Integer> ids;
+
+        ConflictException(List<Integer> ids) {
+            super("Changed or deleted by someone else since they were loaded: "
+                + (ids.size() == 1 ? "ID " : ids.size() + " rows, IDs ") + describe(ids));
+            this.ids = Collections.unmodifiableList(new ArrayList<>(ids));
+        }
+
+        public List<Integer> getIds() {
+            return ids;
+        }
+
+        private static String describe(List<Integer> ids) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < Math.min(10, ids.size()); i++) {
+                sb.append(i > 0 ? ", " : "").append(ids.get(i));
+            }
+            return ids.size() > 10 ? sb.append(", ...").toString() : sb.toString();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package birthstats;
+
+import javax.swing.JTable;
+import javax.swing.table.TableCellRenderer;
+import java.awt.Color;
+import java.awt.Component;
+
+// Wraps a default cell renderer to show unsaved grid changes: edited cells in yellow, new rows
+// in green and rows marked for deletion in red. Selected cells keep the selection colour.
+public class ChangeSetRenderer implements TableCellRenderer {
+    private static final Color DIRTY = new Color(255, 240, 170);
+    private static final Color INSERTED = new Color(210, 240, 210);
+    private static final Color DELETED = new Color(245, 205, 205);
+
+    private final TableCellRenderer delegate;
+
+    public ChangeSetRenderer(TableCellRenderer delegate) {
+        this.delegate = delegate;
+    }
+
+    // Installs the wrapper over the table's renderers for text and numbers
+    public static void install(JTable table) {
+        table.setDefaultRenderer(Object.class, new ChangeSetRenderer(table.getDefaultRenderer(Object.class)));
+        table.setDefaultRenderer(Number.class, new ChangeSetRenderer(table.getDefaultRenderer(Number.class)));
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                   boolean hasFocus, int row, int column) {
+        Component c = delegate.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+        if (isSelected || !(table.getModel() instanceof PagedTableModel)) {
+            return c;
+        }
+        PagedTableModel model = (PagedTableModel) table.getModel();
+        int modelRow = table.convertRowIndexToModel(row);
+        int modelColumn = table.convertColumnIndexToModel(column);
+        if (model.isDeleted(modelRow)) {
+            c.setBackground(DELETED);
+        } else if (model.isInserted(modelRow)) {
+            c.setBackground(INSERTED);
+        } else if (model.isDirty(modelRow, modelColumn)) {
+            c.setBackground(DIRTY);
+        } else {
+            c.setBackground(table.getBackground());
+        }
+        return c;
+    }
+}
@@ -0,0 +1,441 @@
+package birthstats;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Properties;
+import java.util.concurrent.CancellationException;
+
+// Chunked CSV import for very large files. Rows are committed every commitBatches batches
+// together with the position reached: byte offset and line number, keyed by the file's SHA-256.
+// Running the same file again resumes from the last commit; a changed file starts over.
+// Malformed rows are written to the error log and skipped instead of failing the run.
+//
+// The position is kept in the ImportCheckpoint table (create_import_history.sql) and written in
+// the same transaction as the rows, so a crash can never separate the two. Without the table it
+// falls back to a checkpoint file next to the input (<file>.checkpoint), saved just after each
+// commit; a crash between the two then makes the resumed run insert that chunk again.
+//
+// The file is cut into blocks at record boundaries on the raw bytes (quotes, commas and newlines
+// never occur inside a UTF-8 multi-byte sequence), so the checkpoint offset is exact. Commits
+// happen at the end of a block once enough batches have gone out.
+public class CheckpointedImporter {
+    private static final int BLOCK_SIZE = 256 * 1024;
+
+    private final ConnectionPool pool;
+    private final int batchSize;
+    private final int commitBatches;
+    private final File errorLog;
+    private volatile PreparedStatement activeStatement;
+    private volatile boolean cancelled;
+
+    public CheckpointedImporter(ConnectionPool pool, int batchSize, int commitBatches, File errorLog) {
+        this.pool = pool;
+        this.batchSize = Math.max(1, batchSize);
+        this.commitBatches = Math.max(1, commitBatches);
+        this.errorLog = errorLog;
+    }
+
+    public static CheckpointedImporter fromConfig(ConfigManager config, ConnectionPool pool) {
+        return new CheckpointedImporter(pool, config.getCsvBatchSize(), config.getImportCommitBatches(),
+            new File(config.getErrorLogPath()));
+    }
+
+    public static File checkpointFile(File file) {
+        return new File(file.getPath() + ".checkpoint");
+    }
+
+    public Result run(File file, ImportProgress progress) throws Exception {
+        long fileSize = file.length();
+        if (fileSize == 0) {
+            throw new IOException("CSV file is empty");
+        }
+        File checkpointFile = checkpointFile(file);
+        String hash = UpsertImporter.sha256(file);
+
+        RecordBatch batch = new RecordBatch(batchSize);
+        try (Connection conn = pool.getConnection();
+             FileInputStream in = new FileInputStream(file);
+             ErrorLog errors = new ErrorLog(errorLog, file)) {
+            boolean inDatabase = hasCheckpointTable(conn);
+            Checkpoint checkpoint = inDatabase ? Checkpoint.load(conn, hash) : null;
+            if (checkpoint == null) {
+                // Also picks up a file left by a run from before the table was created
+                checkpoint = Checkpoint.load(checkpointFile);
+                if (checkpoint != null && !checkpoint.hash.equals(hash)) {
+                    System.err.println("Checkpoint " + checkpointFile + " belongs to different file contents; starting over");
+                    checkpoint = null;
+                }
+            }
+            if (checkpoint == null) {
+                checkpoint = new Checkpoint(hash, 0, 1, 0, 0);
+            }
+            long resumedFromLine = checkpoint.offset > 0 ? checkpoint.line : 0;
+            long startRows = checkpoint.rows;
+
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(RecordBatch.INSERT_SQL)) {
+                activeStatement = pstmt;
+                in.getChannel().position(checkpoint.offset);
+
+                byte[] buffer = new byte[BLOCK_SIZE];
+                int length = 0;
+                long offset = checkpoint.offset;
+                long line = checkpoint.line;
+                long rows = checkpoint.rows;
+                long rejected = checkpoint.rejected;
+                long reported = rows;
+                int batchesSinceCommit = 0;
+                boolean eof = false;
+
+                while (!eof) {
+                    if (length == buffer.length) {
+                        // A single record longer than the buffer
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                    while (length < buffer.length) {
+                        int n = in.read(buffer, length, buffer.length - length);
+                        if (n < 0) {
+                            eof = true;
+                            break;
+                        }
+                        length += n;
+                    }
+                    int cut = eof ? length : lastRecordEnd(buffer, length);
+                    if (cut == 0 && !eof) {
+                        continue;
+                    }
+
+                    CsvTokenizer csv = new CsvTokenizer(
+                        new StringReader(new String(buffer, 0, cut, StandardCharsets.UTF_8)), 8192, line);
+                    if (offset == 0) {
+                        csv.next();  // Header row
+                    }
+                    while (csv.next()) {
+                        checkCancelled();
+                        if (csv.getFieldCount() == 1 && csv.isEmpty(0)) {
+                            continue;
+                        }
+                        if (batch.isEmpty()) {
+                            batch.setFirstLine(csv.getLineNumber());
+                        }
+                        try {
+                            // Fields are parsed before anything is stored, so a bad row leaves the batch as it was
+                            batch.add(csv);
+                        } catch (RuntimeException e) {
+                            errors.reject(csv.getLineNumber(), csv.getRecordText(), e.getMessage());
+                            rejected++;
+                            continue;
+                        }
+                        if (batch.isFull()) {
+                            rows += flush(batch, pstmt);
+                            batchesSinceCommit++;
+                        }
+                    }
+
+                    for (int i = 0; i < cut; i++) {
+                        if (buffer[i] == '\n') {
+                            line++;
+                        }
+                    }
+                    offset += cut;
+                    System.arraycopy(buffer, cut, buffer, 0, length - cut);
+                    length -= cut;
+
+                    if (batchesSinceCommit >= commitBatches || eof) {
+                        rows += flush(batch, pstmt);
+                        checkpoint = new Checkpoint(hash, offset, line, rows, rejected);
+                        if (inDatabase) {
+                            if (eof) {
+                                Checkpoint.delete(conn, hash);
+                            } else {
+                                checkpoint.save(conn, file.getName());
+                            }
+                        }
+                        conn.commit();
+                        batchesSinceCommit = 0;
+                        if (!inDatabase && !eof) {
+                            checkpoint.save(checkpointFile);
+                        }
+                    }
+                    if (progress != null) {
+                        progress.batchWritten((int) (rows - reported), offset, fileSize);
+                        reported = rows;
+                    }
+                }
+                checkpointFile.delete();
+                return new Result(rows, rows - startRows, rejected, resumedFromLine,
+                    errors.getRejectedThisRun() > 0 ? errorLog : null);
+            } catch (Exception e) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                if (cancelled && e instanceof SQLException) {
+                    throw new CancellationException("Import cancelled");
+                }
+                throw e;
+            } finally {
+                activeStatement = null;
+                try {
+                    conn.setAutoCommit(autoCommit);
+                } catch (SQLException e) {
+                    // The pool discards broken connections
+                }
+            }
+        }
+    }
+
+    // May be called from any thread
+    public void cancel() {
+        cancelled = true;
+        PreparedStatement statement = activeStatement;
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                System.err.println("Could not cancel import: " + e.getMessage());
+            }
+        }
+    }
+
+    private static boolean hasCheckpointTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT OBJECT_ID('ImportCheckpoint')")) {
+            if (rs.next() && rs.getObject(1) != null) {
+                return true;
+            }
+        }
+        System.err.println("ImportCheckpoint table not found (see create_import_history.sql); "
+            + "keeping the checkpoint in a file, which a crash right after a commit can leave behind");
+        return false;
+    }
+
+    private int flush(RecordBatch batch, PreparedStatement pstmt) throws SQLException {
+        int rows = batch.size();
+        if (rows == 0) {
+            return 0;
+        }
+        long start = Metrics.start();
+        try {
+            batch.addBatchTo(pstmt);
+            pstmt.executeBatch();
+        } catch (SQLException e) {
+            throw new SQLException("Error inserting batch starting at line " + batch.getFirstLine()
+                + ": " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+        }
+        Metrics.getInstance().recordBatch(start, rows);
+        batch.clear();
+        return rows;
+    }
+
+    private void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Import cancelled");
+        }
+    }
+
+    // Index just past the last newline outside a quoted field, or 0 if there is none. A leading
+    // byte order mark is skipped as the tokenizer skips it; the bytes of multi-byte characters
+    // are ordinary characters to the scanner.
+    static int lastRecordEnd(byte[] buffer, int length) {
+        int cut = 0;
+        int start = length >= 3 && (buffer[0] & 0xFF) == 0xEF && (buffer[1] & 0xFF) == 0xBB
+            && (buffer[2] & 0xFF) == 0xBF ? 3 : 0;
+        CsvTokenizer.RecordScanner scanner = new CsvTokenizer.RecordScanner();
+        for (int i = start; i < length; i++) {
+            if (scanner.endsRecord(buffer[i] & 0xFF)) {
+                cut = i + 1;
+            }
+        }
+        return cut;
+    }
+
+    public static final class Result {
+        public final long totalRows;         // committed so far, including earlier runs of this file
+        public final long rowsThisRun;
+        public final long rejected;          // malformed rows skipped, including earlier runs
+        public final long resumedFromLine;   // 0 when the import started at the top of the file
+        public final File errorLog;          // set when this run rejected rows
+
+        Result(long totalRows, long rowsThisRun, long rejected, long resumedFromLine, File errorLog) {
+            this.totalRows = totalRows;
+            this.rowsThisRun = rowsThisRun;
+            this.rejected = rejected;
+            this.resumedFromLine = resumedFromLine;
+            this.errorLog = errorLog;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Imported ").append(rowsThisRun).append(" rows");
+            if (resumedFromLine > 0) {
+                sb.append(" (resumed at line ").append(resumedFromLine).append(", ")
+                    .append(totalRows).append(" in total)");
+            }
+            if (rejected > 0) {
+                sb.append("; ").append(rejected).append(" malformed rows skipped");
+                if (errorLog != null) {
+                    sb.append(", see ").append(errorLog.getPath());
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    // Position after the last commit. Kept as a row of ImportCheckpoint written inside the
+    // import's transaction or, without the table, as a properties file saved through a
+    // temporary file so a crash while writing never leaves a torn checkpoint behind.
+    static final class Checkpoint {
+        final String hash;
+        final long offset;
+        final long line;
+        final long rows;
+        final long rejected;
+
+        Checkpoint(String hash, long offset, long line, long rows, long rejected) {
+            this.hash = hash;
+            this.offset = offset;
+            this.line = line;
+            this.rows = rows;
+            this.rejected = rejected;
+        }
+
+        static Checkpoint load(File file) {
+            if (!file.isFile()) {
+                return null;
+            }
+            Properties props = new Properties();
+            try (FileInputStream in = new FileInputStream(file)) {
+                props.load(in);
+                return new Checkpoint(props.getProperty("sha256", ""),
+                    Long.parseLong(props.getProperty("offset")),
+                    Long.parseLong(props.getProperty("line")),
+                    Long.parseLong(props.getProperty("rows")),
+                    Long.parseLong(props.getProperty("rejected", "0")));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Ignoring unreadable checkpoint " + file + ": " + e);
+                return null;
+            }
+        }
+
+        static Checkpoint load(Connection conn, String hash) throws SQLException {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT ByteOffset, LineNumber, RowsCommitted, RowsRejected FROM ImportCheckpoint " +
+                    "WHERE ContentHash = ?")) {
+                stmt.setString(1, hash);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    return new Checkpoint(hash, rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4));
+                }
+            }
+        }
+
+        // Part of the caller's transaction
+        void save(Connection conn, String fileName) throws SQLException {
+            try (PreparedStatement update = conn.prepareStatement(
+                    "UPDATE ImportCheckpoint SET ByteOffset = ?, LineNumber = ?, RowsCommitted = ?, " +
+                    "RowsRejected = ?, UpdatedAt = GETDATE() WHERE ContentHash = ?")) {
+                update.setLong(1, offset);
+                update.setLong(2, line);
+                update.setLong(3, rows);
+                update.setLong(4, rejected);
+                update.setString(5, hash);
+                if (update.executeUpdate() > 0) {
+                    return;
+                }
+            }
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO ImportCheckpoint (ContentHash, FileName, ByteOffset, LineNumber, " +
+                    "RowsCommitted, RowsRejected) VALUES (?, ?, ?, ?, ?, ?)")) {
+                insert.setString(1, hash);
+                insert.setString(2, fileName);
+                insert.setLong(3, offset);
+                insert.setLong(4, line);
+                insert.setLong(5, rows);
+                insert.setLong(6, rejected);
+                insert.executeUpdate();
+            }
+        }
+
+        // Part of the caller's transaction, so finishing the import and forgetting it are one step
+        static void delete(Connection conn, String hash) throws SQLException {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "DELETE FROM ImportCheckpoint WHERE ContentHash = ?")) {
+                stmt.setString(1, hash);
+                stmt.executeUpdate();
+            }
+        }
+
+        void save(File file) throws IOException {
+            Properties props = new Properties();
+            props.setProperty("sha256", hash);
+            props.setProperty("offset", Long.toString(offset));
+            props.setProperty("line", Long.toString(line));
+            props.setProperty("rows", Long.toString(rows));
+            props.setProperty("rejected", Long.toString(rejected));
+            File temp = new File(file.getPath() + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                props.store(out, "Import checkpoint; delete to restart the import from the top");
+                out.getFD().sync();
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Appends rejected rows to the configured error log, opening it on the first rejection
+    private static final class ErrorLog implements AutoCloseable {
+        private final File logFile;
+        private final File source;
+        private PrintWriter out;
+        private long rejectedThisRun;
+
+        ErrorLog(File logFile, File source) {
+            this.logFile = logFile;
+            this.source = source;
+        }
+
+        void reject(long line, String record, String reason) throws IOException {
+            if (out == null) {
+                out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(logFile, true), StandardCharsets.UTF_8)));
+                out.println(String.format("# %tF %<tT import of %s", new Date(), source.getPath()));
+            }
+            // One entry per line even when a quoted field spans lines
+            out.println(source.getName() + ":" + line + ": " + reason + ": "
+                + record.replace("\r", "\\r").replace("\n", "\\n"));
+            rejectedThisRun++;
+        }
+
+        long getRejectedThisRun() {
+            return rejectedThisRun;
+        }
+
+        @Override
+        public void close() {
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+}
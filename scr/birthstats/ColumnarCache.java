@@ -0,0 +1,160 @@
+package birthstats;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// In-process columnar copy of BirthStatistics.
+// ID, StatYear and BirthCount live in primitive int arrays; the text columns are dictionary
+// encoded, which for this data means one byte per row per column. A row therefore costs
+// about 18 bytes instead of nine boxed objects.
+public class ColumnarCache implements ColumnarTable {
+    private int[] ids;
+    private int[] statYears;
+    private int[] birthCounts;
+    private final Map<BirthColumn, DictionaryColumn> textColumns = new EnumMap<>(BirthColumn.class);
+    private int size;
+
+    public ColumnarCache(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        ids = new int[capacity];
+        statYears = new int[capacity];
+        birthCounts = new int[capacity];
+        for (BirthColumn column : BirthColumn.values()) {
+            if (column.isText()) {
+                textColumns.put(column, new DictionaryColumn(capacity));
+            }
+        }
+    }
+
+    // Streams the whole table into a new cache. onStatement receives the query before it runs
+    // so the caller can cancel it; progress is called every 10,000 rows.
+    public static ColumnarCache load(Connection conn, Consumer<Statement> onStatement,
+                                     ProgressCallback progress) throws SQLException {
+        long estimate = Math.max(0, BirthSchema.estimateRowCount(conn));
+        ColumnarCache cache = new ColumnarCache((int) Math.min(Integer.MAX_VALUE - 8, estimate + 1024));
+        try (Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            onStatement.accept(stmt);
+            stmt.setFetchSize(10000);
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT ID, StatYear, RecordType, AreaCode, AreaName, Gender, BirthWeight, " +
+                    "MultipleBirth, BirthCount FROM BirthStatistics ORDER BY ID")) {
+                while (rs.next()) {
+                    cache.add(rs.getInt(1), rs.getInt(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                        rs.getString(6), rs.getString(7), rs.getString(8), rs.getInt(9));
+                    if (progress != null && cache.size % 10000 == 0) {
+                        progress.rowsLoaded(cache.size, estimate);
+                    }
+                }
+            }
+        }
+        if (progress != null) {
+            progress.rowsLoaded(cache.size, Math.max(estimate, cache.size));
+        }
+        cache.trimToSize();
+        return cache;
+    }
+
+    public interface ProgressCallback {
+        void rowsLoaded(long rows, long estimatedTotal);
+    }
+
+    public void add(int id, int statYear, String recordType, String areaCode, String areaName,
+                    String gender, String birthWeight, String multipleBirth, int birthCount) {
+        if (size == ids.length) {
+            int grown = size + (size >> 1);
+            ids = Arrays.copyOf(ids, grown);
+            statYears = Arrays.copyOf(statYears, grown);
+            birthCounts = Arrays.copyOf(birthCounts, grown);
+        }
+        ids[size] = id;
+        statYears[size] = statYear;
+        birthCounts[size] = birthCount;
+        textColumns.get(BirthColumn.RECORD_TYPE).add(recordType);
+        textColumns.get(BirthColumn.AREA_CODE).add(areaCode);
+        textColumns.get(BirthColumn.AREA_NAME).add(areaName);
+        textColumns.get(BirthColumn.GENDER).add(gender);
+        textColumns.get(BirthColumn.BIRTH_WEIGHT).add(birthWeight);
+        textColumns.get(BirthColumn.MULTIPLE_BIRTH).add(multipleBirth);
+        size++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getInt(BirthColumn column, int row) {
+        switch (column) {
+            case ID:
+                return ids[row];
+            case STAT_YEAR:
+                return statYears[row];
+            case BIRTH_COUNT:
+                return birthCounts[row];
+            default:
+                throw new IllegalArgumentException(column + " is not a numeric column");
+        }
+    }
+
+    @Override
+    public int getCode(BirthColumn column, int row) {
+        return text(column).getCode(row);
+    }
+
+    @Override
+    public String decode(BirthColumn column, int code) {
+        return text(column).decode(code);
+    }
+
+    @Override
+    public int cardinality(BirthColumn column) {
+        return text(column).cardinality();
+    }
+
+    @Override
+    public int lookup(BirthColumn column, String value) {
+        return text(column).lookup(value);
+    }
+
+    public void trimToSize() {
+        ids = Arrays.copyOf(ids, size);
+        statYears = Arrays.copyOf(statYears, size);
+        birthCounts = Arrays.copyOf(birthCounts, size);
+        for (DictionaryColumn column : textColumns.values()) {
+            column.trimToSize();
+        }
+    }
+
+    public long estimateBytes() {
+        long bytes = 3L * 4 * ids.length;
+        for (DictionaryColumn column : textColumns.values()) {
+            bytes += column.estimateBytes();
+        }
+        return bytes;
+    }
+
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Rows: %,d%nMemory: %,.1f MB%n", size, estimateBytes() / 1048576.0));
+        for (Map.Entry<BirthColumn, DictionaryColumn> e : textColumns.entrySet()) {
+            sb.append(String.format("%s: %,d distinct values, %d byte codes%n",
+                e.getKey().getLabel(), e.getValue().cardinality(), e.getValue().getCodeWidth()));
+        }
+        return sb.toString();
+    }
+
+    private DictionaryColumn text(BirthColumn column) {
+        DictionaryColumn dictionary = textColumns.get(column);
+        if (dictionary == null) {
+            throw new IllegalArgumentException(column + " is not a text column");
+        }
+        return dictionary;
+    }
+}
@@ -0,0 +1,101 @@
+package birthstats;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+// Read-only, column-oriented view of BirthStatistics rows.
+// Numeric columns are read as ints; text columns as dictionary codes that decode() turns back
+// into strings. Rows are addressed by position 0..size()-1.
+public interface ColumnarTable {
+    int size();
+
+    // ID, STAT_YEAR or BIRTH_COUNT
+    int getInt(BirthColumn column, int row);
+
+    // Dictionary code of a text column
+    int getCode(BirthColumn column, int row);
+
+    String decode(BirthColumn column, int code);
+
+    int cardinality(BirthColumn column);
+
+    // Code for a text value, or -1 when no row has it
+    int lookup(BirthColumn column, String value);
+
+    default Object getValue(BirthColumn column, int row) {
+        return column.isText() ? decode(column, getCode(column, row)) : (Object) getInt(column, row);
+    }
+
+    default Object[] getRow(int row) {
+        BirthColumn[] columns = BirthColumn.values();
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = getValue(columns[i], row);
+        }
+        return values;
+    }
+
+    // Positions of the rows matching the predicate, in row order
+    default int[] filter(IntPredicate predicate) {
+        int[] matches = new int[Math.min(size(), 1024)];
+        int count = 0;
+        for (int row = 0, n = size(); row < n; row++) {
+            if (predicate.test(row)) {
+                if (count == matches.length) {
+                    matches = Arrays.copyOf(matches, Math.min(n, count * 2));
+                }
+                matches[count++] = row;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    // Returns the given row positions ordered by a column. Text columns sort by their decoded
+    // value, but the comparison itself runs on precomputed per-code ranks packed into longs.
+    default int[] sort(int[] rows, BirthColumn column, boolean ascending) {
+        int[] rank = null;
+        if (column.isText()) {
+            int cardinality = cardinality(column);
+            Integer[] order = new Integer[cardinality];
+            for (int i = 0; i < cardinality; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> {
+                String x = decode(column, a);
+                String y = decode(column, b);
+                if (x == null || y == null) {
+                    return x == null ? (y == null ? 0 : -1) : 1;
+                }
+                return x.compareTo(y);
+            });
+            rank = new int[cardinality];
+            for (int i = 0; i < cardinality; i++) {
+                rank[order[i]] = i;
+            }
+        }
+
+        long[] keyed = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            int row = rows[i];
+            long key = rank != null ? rank[getCode(column, row)] : getInt(column, row);
+            // Flip the sign bit so signed ints order correctly as unsigned high bits
+            keyed[i] = ((key ^ 0x80000000L) & 0xFFFFFFFFL) << 32 | (row & 0xFFFFFFFFL);
+        }
+        Arrays.parallelSort(keyed);
+
+        int[] sorted = new int[rows.length];
+        for (int i = 0; i < keyed.length; i++) {
+            sorted[ascending ? i : keyed.length - 1 - i] = (int) keyed[i];
+        }
+        return sorted;
+    }
+
+    // Sum of BirthCount over the given rows
+    default long sumBirthCount(int[] rows) {
+        long sum = 0;
+        for (int row : rows) {
+            sum += getInt(BirthColumn.BIRTH_COUNT, row);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,50 @@
+package birthstats;
+
+import javax.swing.table.AbstractTableModel;
+
+// Read-only grid model over a ColumnarTable, optionally restricted to a list of row positions.
+// Values are decoded cell by cell as the table paints, so only the visible rows cost anything.
+public class ColumnarTableModel extends AbstractTableModel {
+    private static final BirthColumn[] COLUMNS = BirthColumn.values();
+
+    private final ColumnarTable table;
+    private int[] rows;  // null shows every row
+
+    public ColumnarTableModel(ColumnarTable table) {
+        this.table = table;
+    }
+
+    public ColumnarTable getTable() {
+        return table;
+    }
+
+    public void setRows(int[] rows) {
+        this.rows = rows;
+        fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows == null ? table.size() : rows.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return PagedTableModel.COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return COLUMNS[column].isText() ? String.class : Integer.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return table.getValue(COLUMNS[column], rows == null ? row : rows[row]);
+    }
+}
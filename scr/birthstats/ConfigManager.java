@@ -0,0 +1,230 @@
+package birthstats;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+public class ConfigManager {
+    private static ConfigManager instance;
+    private Properties properties;
+    private final String CONFIG_FILE = "config.properties";
+
+    private ConfigManager() {
+        properties = new Properties();
+        loadProperties();
+    }
+
+    public static ConfigManager getInstance() {
+        if (instance == null) {
+            instance = new ConfigManager();
+        }
+        return instance;
+    }
+
+    private void loadProperties() {
+        try {
+            // First try to load from the current directory
+            Path configPath = Paths.get(CONFIG_FILE);
+            if (configPath.toFile().exists()) {
+                try (FileInputStream fis = new FileInputStream(configPath.toFile())) {
+                    properties.load(fis);
+                    return;
+                }
+            }
+
+            // If not found, try to load from classpath
+            try (InputStream is = getClass().getClassLoader().getResourceAsStream(CONFIG_FILE)) {
+                if (is != null) {
+                    properties.load(is);
+                    return;
+                }
+            }
+
+            throw new IOException("Configuration file not found in current directory or classpath");
+        } catch (IOException e) {
+            System.err.println("Error loading configuration: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // Replaces the loaded settings with those in the given file (the CLI's --config)
+    public void load(File file) throws IOException {
+        Properties loaded = new Properties();
+        try (FileInputStream fis = new FileInputStream(file)) {
+            loaded.load(fis);
+        }
+        properties = loaded;
+    }
+
+    // Overrides one setting for this run only; nothing is written back to the file
+    public void setProperty(String key, String value) {
+        properties.setProperty(key, value);
+    }
+
+    public String getDatabaseUrl() {
+        return String.format("jdbc:sqlserver://%s:%s;DatabaseName=%s;encrypt=false;trustServerCertificate=true",
+            getProperty("db.server"),
+            getProperty("db.port"),
+            getProperty("db.name"));
+    }
+
+    public String getDatabaseUser() {
+        return getProperty("db.user");
+    }
+
+    public String getDatabasePassword() {
+        return getProperty("db.password");
+    }
+
+    public String getAppTitle() {
+        return getProperty("app.title", "Birth Statistics Manager");
+    }
+
+    public int getWindowWidth() {
+        return Integer.parseInt(getProperty("app.window.width", "800"));
+    }
+
+    public int getWindowHeight() {
+        return Integer.parseInt(getProperty("app.window.height", "600"));
+    }
+
+    public int getTablePageSize() {
+        return Integer.parseInt(getProperty("app.table.page.size", "500"));
+    }
+
+    public int getTablePageCache() {
+        return Integer.parseInt(getProperty("app.table.page.cache", "20"));
+    }
+
+    // Memory for cached search and page results; 0 turns the query cache off
+    public int getQueryCacheMegabytes() {
+        return Integer.parseInt(getProperty("app.query.cache.mb", "32"));
+    }
+
+    // Seconds a cached result is trusted, so changes made by other clients show up
+    public int getQueryCacheMaxAge() {
+        return Integer.parseInt(getProperty("app.query.cache.max.age", "60"));
+    }
+
+    // First grid page saved on exit and shown on the next start until live data arrives
+    public String getStartupCacheFile() {
+        return getProperty("app.startup.cache", "startup-cache.bin");
+    }
+
+    // Seconds between metrics summary lines; 0 turns the periodic log off
+    public int getMetricsLogInterval() {
+        return Integer.parseInt(getProperty("app.metrics.log.interval", "0"));
+    }
+
+    public int getCsvBatchSize() {
+        return Integer.parseInt(getProperty("csv.batch.size", "1000"));
+    }
+
+    public String getErrorLogPath() {
+        return getProperty("csv.error.log", "error.log");
+    }
+
+    public int getImportParserThreads() {
+        return Integer.parseInt(getProperty("import.parser.threads",
+            String.valueOf(Math.max(1, Runtime.getRuntime().availableProcessors() / 2))));
+    }
+
+    public int getImportWriterThreads() {
+        return Integer.parseInt(getProperty("import.writer.threads", "2"));
+    }
+
+    public int getImportQueueCapacity() {
+        return Integer.parseInt(getProperty("import.queue.capacity", "8"));
+    }
+
+    // "pipeline" (batched INSERT statements), "bulkcopy" (SQLServerBulkCopy), "upsert" (MERGE on the
+    // natural key) or "checkpoint" (committed in chunks and resumable)
+    public String getImportMode() {
+        return getProperty("import.mode", "pipeline").trim().toLowerCase();
+    }
+
+    // Batches per commit in checkpoint mode
+    public int getImportCommitBatches() {
+        return Integer.parseInt(getProperty("import.commit.batches", "50"));
+    }
+
+    public int getBulkCopyBatchSize() {
+        return Integer.parseInt(getProperty("bulkcopy.batch.size", "10000"));
+    }
+
+    public boolean isBulkCopyTableLock() {
+        return Boolean.parseBoolean(getProperty("bulkcopy.table.lock", "true"));
+    }
+
+    public int getBulkCopyTimeoutSeconds() {
+        return Integer.parseInt(getProperty("bulkcopy.timeout.sec", "0"));
+    }
+
+    // Destination column for each CSV column, in file order; leave an entry empty to skip a column
+    public String[] getBulkCopyColumnMapping() {
+        String mapping = getProperty("bulkcopy.column.mapping",
+            "StatYear,RecordType,AreaCode,AreaName,Gender,BirthWeight,MultipleBirth,BirthCount");
+        String[] columns = mapping.split(",", -1);
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = columns[i].trim();
+        }
+        return columns;
+    }
+
+    public int getExportFetchSize() {
+        return Integer.parseInt(getProperty("export.fetch.size", "10000"));
+    }
+
+    public int getExportBufferSize() {
+        return Integer.parseInt(getProperty("export.buffer.kb", "1024")) * 1024;
+    }
+
+    public boolean isExportGzip() {
+        return Boolean.parseBoolean(getProperty("export.gzip", "false"));
+    }
+
+    // Number of ID ranges exported in parallel, each on its own pooled connection
+    public int getExportThreads() {
+        return Integer.parseInt(getProperty("export.parallel.threads", "4"));
+    }
+
+    public int getPoolMaxSize() {
+        return Integer.parseInt(getProperty("db.pool.max.size", "10"));
+    }
+
+    public int getPoolMinIdle() {
+        return Integer.parseInt(getProperty("db.pool.min.idle", "1"));
+    }
+
+    public long getPoolConnectionTimeoutMs() {
+        return Long.parseLong(getProperty("db.pool.connection.timeout.ms", "30000"));
+    }
+
+    public long getPoolIdleTimeoutMs() {
+        return Long.parseLong(getProperty("db.pool.idle.timeout.ms", "600000"));
+    }
+
+    public long getPoolLeakDetectionMs() {
+        return Long.parseLong(getProperty("db.pool.leak.detection.ms", "60000"));
+    }
+
+    public int getPoolValidationTimeoutSec() {
+        return Integer.parseInt(getProperty("db.pool.validation.timeout.sec", "5"));
+    }
+
+    private String getProperty(String key) {
+        return getProperty(key, null);
+    }
+
+    private String getProperty(String key, String defaultValue) {
+        String value = properties.getProperty(key, defaultValue);
+        if (value == null) {
+            throw new IllegalStateException("Required configuration property not found: " + key);
+        }
+        return value;
+    }
+}
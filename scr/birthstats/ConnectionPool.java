@@ -0,0 +1,451 @@
+package birthstats;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Small bounded JDBC connection pool.
+// Connections handed out are proxies whose close() returns the physical connection to the pool.
+// A housekeeper closes connections idle for longer than idleTimeoutMs, reports suspected leaks
+// and, once the database has been reached, tops the idle connections back up to minIdle.
+public class ConnectionPool implements ConnectionSource {
+    // Skip the isValid() round trip for connections that were returned very recently
+    private static final long VALIDATION_BYPASS_MS = 500;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final long connectionTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long leakDetectionMs;
+    private final int validationTimeoutSec;
+
+    private final Object lock = new Object();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Map<PooledConnection, Boolean> borrowed = new IdentityHashMap<>();
+    private final ScheduledExecutorService housekeeper;
+    private int totalConnections;  // idle + borrowed + being opened
+    private int waitingThreads;
+    private boolean closed;
+
+    // Statistics, guarded by lock
+    private long borrowCount;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+    private long timeoutCount;
+    private long createdCount;
+    private long destroyedCount;
+    private long validationFailures;
+    private long leakCount;
+
+    public ConnectionPool(String url, String user, String password, int maxSize, int minIdle,
+                          long connectionTimeoutMs, long idleTimeoutMs, long leakDetectionMs,
+                          int validationTimeoutSec) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = Math.max(0, Math.min(minIdle, maxSize));
+        this.connectionTimeoutMs = connectionTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.leakDetectionMs = leakDetectionMs;
+        this.validationTimeoutSec = validationTimeoutSec;
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(30000, idleTimeoutMs / 2));
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public static ConnectionPool fromConfig(ConfigManager config) {
+        return new ConnectionPool(
+            config.getDatabaseUrl(),
+            config.getDatabaseUser(),
+            config.getDatabasePassword(),
+            config.getPoolMaxSize(),
+            config.getPoolMinIdle(),
+            config.getPoolConnectionTimeoutMs(),
+            config.getPoolIdleTimeoutMs(),
+            config.getPoolLeakDetectionMs(),
+            config.getPoolValidationTimeoutSec());
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(connectionTimeoutMs);
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean openNew = false;
+
+            synchronized (lock) {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    if (!idle.isEmpty()) {
+                        candidate = idle.pollFirst();
+                        break;
+                    }
+                    if (totalConnections < maxSize) {
+                        totalConnections++;
+                        openNew = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeoutCount++;
+                        throw new SQLTransientConnectionException(String.format(
+                            "Timed out after %d ms waiting for a database connection (active=%d, max=%d)",
+                            connectionTimeoutMs, borrowed.size(), maxSize));
+                    }
+                    waitingThreads++;
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    } finally {
+                        waitingThreads--;
+                    }
+                }
+            }
+
+            if (openNew) {
+                try {
+                    candidate = new PooledConnection(openPhysical());
+                } catch (SQLException | RuntimeException e) {
+                    synchronized (lock) {
+                        totalConnections--;
+                        lock.notify();
+                    }
+                    throw e;
+                }
+            } else if (!validate(candidate)) {
+                destroy(candidate);
+                continue;
+            }
+
+            long waited = System.nanoTime() - start;
+            Metrics.getInstance().recordConnectionWait(waited);
+            synchronized (lock) {
+                borrowCount++;
+                totalWaitNanos += waited;
+                maxWaitNanos = Math.max(maxWaitNanos, waited);
+                candidate.borrowedAt = System.currentTimeMillis();
+                candidate.borrowTrace = leakDetectionMs > 0 ? new Exception("Connection borrowed here") : null;
+                candidate.leakReported = false;
+                borrowed.put(candidate, Boolean.TRUE);
+            }
+            return candidate.newHandle();
+        }
+    }
+
+    public PoolStats getStats() {
+        synchronized (lock) {
+            return new PoolStats(borrowed.size(), idle.size(), totalConnections, maxSize, waitingThreads,
+                borrowCount, totalWaitNanos, maxWaitNanos, timeoutCount, createdCount, destroyedCount,
+                validationFailures, leakCount);
+        }
+    }
+
+    public void close() {
+        List<PooledConnection> toClose;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            lock.notifyAll();
+        }
+        housekeeper.shutdownNow();
+        for (PooledConnection pc : toClose) {
+            destroy(pc);
+        }
+    }
+
+    private Connection openPhysical() throws SQLException {
+        Connection conn = DriverManager.getConnection(url, user, password);
+        synchronized (lock) {
+            createdCount++;
+        }
+        return conn;
+    }
+
+    private boolean validate(PooledConnection pc) {
+        if (System.currentTimeMillis() - pc.lastReturnedAt < VALIDATION_BYPASS_MS) {
+            return true;
+        }
+        try {
+            if (pc.physical.isValid(validationTimeoutSec)) {
+                return true;
+            }
+        } catch (SQLException e) {
+            // Treated the same as an invalid connection
+        }
+        synchronized (lock) {
+            validationFailures++;
+        }
+        return false;
+    }
+
+    private void release(PooledConnection pc) {
+        boolean healthy = true;
+        try {
+            if (!pc.physical.getAutoCommit()) {
+                // Never hand uncommitted work to the next borrower
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+            pc.physical.clearWarnings();
+        } catch (SQLException e) {
+            healthy = false;
+        }
+
+        boolean discard;
+        synchronized (lock) {
+            borrowed.remove(pc);
+            pc.borrowTrace = null;
+            pc.lastReturnedAt = System.currentTimeMillis();
+            discard = closed || !healthy;
+            if (!discard) {
+                idle.addFirst(pc);
+            }
+            lock.notify();
+        }
+        if (discard) {
+            destroy(pc);
+        }
+    }
+
+    private void destroy(PooledConnection pc) {
+        try {
+            pc.physical.close();
+        } catch (SQLException e) {
+            // Already broken; nothing else to do
+        }
+        synchronized (lock) {
+            totalConnections--;
+            destroyedCount++;
+            lock.notify();
+        }
+    }
+
+    // Runs on the housekeeper thread; package-private so tests can run a round directly
+    void housekeep() {
+        List<PooledConnection> expired = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            // Oldest idle connections sit at the tail of the deque
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() > minIdle) {
+                PooledConnection pc = it.next();
+                if (idleTimeoutMs > 0 && now - pc.lastReturnedAt > idleTimeoutMs) {
+                    it.remove();
+                    expired.add(pc);
+                }
+            }
+
+            if (leakDetectionMs > 0) {
+                for (PooledConnection pc : borrowed.keySet()) {
+                    if (!pc.leakReported && now - pc.borrowedAt > leakDetectionMs) {
+                        pc.leakReported = true;
+                        leakCount++;
+                        System.err.println("Possible connection leak: connection held for "
+                            + (now - pc.borrowedAt) + " ms");
+                        if (pc.borrowTrace != null) {
+                            pc.borrowTrace.printStackTrace();
+                        }
+                    }
+                }
+            }
+        }
+
+        for (PooledConnection pc : expired) {
+            destroy(pc);
+        }
+        replenish();
+    }
+
+    // Opens connections until minIdle are idle; waits for the first borrow so a pool that is
+    // never used, or cannot reach the database, does not keep trying on its own
+    private void replenish() {
+        int missing;
+        synchronized (lock) {
+            if (closed || createdCount == 0) {
+                return;
+            }
+            missing = Math.max(0, Math.min(minIdle - idle.size(), maxSize - totalConnections));
+            totalConnections += missing;
+        }
+        for (int i = 0; i < missing; i++) {
+            PooledConnection pc;
+            try {
+                pc = new PooledConnection(openPhysical());
+            } catch (SQLException | RuntimeException e) {
+                synchronized (lock) {
+                    totalConnections -= missing - i;
+                    lock.notifyAll();
+                }
+                return;  // Tried again next round
+            }
+            boolean discard;
+            synchronized (lock) {
+                discard = closed;
+                if (!discard) {
+                    idle.addFirst(pc);
+                    lock.notify();
+                }
+            }
+            if (discard) {
+                destroy(pc);
+            }
+        }
+    }
+
+    private final class PooledConnection {
+        final Connection physical;
+        volatile long lastReturnedAt = System.currentTimeMillis();
+        long borrowedAt;
+        Exception borrowTrace;
+        boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new Handle(this));
+        }
+    }
+
+    // One handle per borrow, so a stale reference cannot touch a connection lent to someone else
+    private final class Handle implements InvocationHandler {
+        private PooledConnection pooled;
+
+        Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (pooled != null) {
+                        PooledConnection pc = pooled;
+                        pooled = null;
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return pooled == null || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + (pooled == null ? "closed" : pooled.physical) + "]";
+                default:
+                    break;
+            }
+            if (pooled == null) {
+                throw new SQLException("Connection is closed");
+            }
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    public static final class PoolStats {
+        public final int active;
+        public final int idle;
+        public final int total;
+        public final int maxSize;
+        public final int waiting;
+        public final long borrowCount;
+        public final long totalWaitNanos;
+        public final long maxWaitNanos;
+        public final long timeouts;
+        public final long created;
+        public final long destroyed;
+        public final long validationFailures;
+        public final long leaks;
+
+        PoolStats(int active, int idle, int total, int maxSize, int waiting, long borrowCount,
+                  long totalWaitNanos, long maxWaitNanos, long timeouts, long created, long destroyed,
+                  long validationFailures, long leaks) {
+            this.active = active;
+            this.idle = idle;
+            this.total = total;
+            this.maxSize = maxSize;
+            this.waiting = waiting;
+            this.borrowCount = borrowCount;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.timeouts = timeouts;
+            this.created = created;
+            this.destroyed = destroyed;
+            this.validationFailures = validationFailures;
+            this.leaks = leaks;
+        }
+
+        public double getAverageWaitMs() {
+            return borrowCount == 0 ? 0 : totalWaitNanos / 1e6 / borrowCount;
+        }
+
+        public double getMaxWaitMs() {
+            return maxWaitNanos / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "Active: %d\nIdle: %d\nTotal: %d / %d\nWaiting threads: %d\n" +
+                "Borrows: %d\nAverage wait: %.2f ms\nMax wait: %.2f ms\nTimeouts: %d\n" +
+                "Connections created: %d\nConnections closed: %d\nValidation failures: %d\nSuspected leaks: %d",
+                active, idle, total, maxSize, waiting, borrowCount, getAverageWaitMs(), getMaxWaitMs(),
+                timeouts, created, destroyed, validationFailures, leaks);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package birthstats;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// Anything that can hand out a database connection; close() gives it back.
+public interface ConnectionSource {
+    Connection getConnection() throws SQLException;
+}
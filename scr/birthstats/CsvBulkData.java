@@ -0,0 +1,133 @@
+package birthstats;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkData;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Feeds CSV records to SQLServerBulkCopy. The driver pulls rows through next()/getRowData(),
+// so the file is streamed straight into the bulk load without intermediate batches.
+public class CsvBulkData implements ISQLServerBulkData {
+    private static final long serialVersionUID = 1L;
+
+    // Source columns in CSV order, with the types and sizes of the BirthStatistics table
+    private static final String[] NAMES = {
+        "StatYear", "RecordType", "AreaCode", "AreaName", "Gender", "BirthWeight", "MultipleBirth", "BirthCount"
+    };
+    private static final int[] TYPES = {
+        Types.INTEGER, Types.NVARCHAR, Types.NVARCHAR, Types.NVARCHAR,
+        Types.NVARCHAR, Types.NVARCHAR, Types.NVARCHAR, Types.INTEGER
+    };
+    private static final int[] PRECISIONS = {10, 100, 20, 100, 10, 50, 20, 10};
+
+    private final transient CsvTokenizer csv;
+    private final transient CountingInputStream in;
+    private final long totalBytes;
+    private final int progressInterval;
+    private final transient ImportProgress progress;
+    private final Object[] row = new Object[NAMES.length];
+    private long rows;
+    private long batchStart = Metrics.start();
+    private volatile boolean cancelled;
+
+    public CsvBulkData(CsvTokenizer csv, CountingInputStream in, long totalBytes,
+                       int progressInterval, ImportProgress progress) throws IOException {
+        this.csv = csv;
+        this.in = in;
+        this.totalBytes = totalBytes;
+        this.progressInterval = Math.max(1, progressInterval);
+        this.progress = progress;
+        if (!csv.next()) {
+            throw new IOException("CSV file is empty");
+        }
+    }
+
+    public long getRowCount() {
+        return rows;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public Set<Integer> getColumnOrdinals() {
+        Set<Integer> ordinals = new LinkedHashSet<>();
+        for (int i = 1; i <= NAMES.length; i++) {
+            ordinals.add(i);
+        }
+        return ordinals;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return NAMES[column - 1];
+    }
+
+    @Override
+    public int getColumnType(int column) {
+        return TYPES[column - 1];
+    }
+
+    @Override
+    public int getPrecision(int column) {
+        return PRECISIONS[column - 1];
+    }
+
+    @Override
+    public int getScale(int column) {
+        return 0;
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        if (cancelled) {
+            throw new SQLException("Import cancelled");
+        }
+        try {
+            while (csv.next()) {
+                if (csv.getFieldCount() == 1 && csv.isEmpty(0)) {
+                    continue;
+                }
+                rows++;
+                if (rows % progressInterval == 0) {
+                    // Bulk copy streams rows, so a batch is timed from the previous one
+                    Metrics.getInstance().recordBatch(batchStart, progressInterval);
+                    batchStart = Metrics.start();
+                    if (progress != null) {
+                        progress.batchWritten(progressInterval, in.getCount(), totalBytes);
+                    }
+                }
+                return true;
+            }
+        } catch (IOException e) {
+            throw new SQLException("Error reading CSV: " + e.getMessage(), e);
+        }
+        int remaining = (int) (rows % progressInterval);
+        if (remaining > 0) {
+            Metrics.getInstance().recordBatch(batchStart, remaining);
+        }
+        if (progress != null) {
+            progress.batchWritten(remaining, totalBytes, totalBytes);
+        }
+        return false;
+    }
+
+    @Override
+    public Object[] getRowData() throws SQLException {
+        try {
+            row[0] = csv.getInt(0);
+            for (int i = 1; i < 7; i++) {
+                row[i] = csv.getString(i);
+            }
+            row[7] = csv.getInt(7);
+        } catch (RuntimeException e) {
+            throw new SQLException("Error on line " + csv.getLineNumber() + ": " + csv.getRecordText()
+                + " (" + e.getMessage() + ")", e);
+        }
+        return row;
+    }
+}
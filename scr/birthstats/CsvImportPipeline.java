@@ -0,0 +1,453 @@
+package birthstats;
+
+import java.io.CharArrayReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Staged CSV import: one reader thread cuts the file into chunks at record boundaries,
+// parser threads tokenize chunks into RecordBatches, and writer threads each insert
+// batches over their own connection. Bounded queues and a fixed set of recycled batches give
+// backpressure, so memory stays flat however large the file is.
+//
+// Writers insert straight into BirthStatistics, each in one transaction on its own connection,
+// so the write itself runs in parallel. Once every stage has finished cleanly the writers commit
+// in turn; a failure or cancellation before that rolls all of them back. SQL Server offers no
+// single outcome across connections short of a distributed transaction, so a commit that fails
+// after another writer's went through is reported with the number of rows that did land.
+//
+// Where parallel writers would only serialize anyway, the import is staged instead: with the
+// BirthSummary trigger (its locks on shared summary rows make writers wait on each other until
+// they commit, or deadlock) or on the star schema (whose trigger adds dimension values inside
+// the writer's transaction). Writers then fill a global temp table, committing each batch to
+// it, and one connection moves the rows into BirthStatistics with a single INSERT ... SELECT in
+// one transaction: triggers run once, in one session, and the import lands whole or not at
+// all. The price is writing every row twice, once to tempdb, with the final insert on one
+// connection. On the star schema, new dimension values are added from the stage in short
+// transactions just before the move. A single writer never needs the stage, except on the star
+// schema.
+public class CsvImportPipeline {
+    private static final int CHUNK_SIZE = 256 * 1024;  // chars per raw chunk
+    private static final String COLUMNS =
+        "StatYear, RecordType, AreaCode, AreaName, Gender, BirthWeight, MultipleBirth, BirthCount";
+    private static final RawChunk END_OF_CHUNKS = new RawChunk(new char[0]);
+    private static final RecordBatch END_OF_BATCHES = new RecordBatch(0);
+
+    private final ConnectionPool pool;
+    private final int batchSize;
+    private final int parserThreads;
+    private final int writerThreads;
+    private final int queueCapacity;
+
+    private final List<PreparedStatement> writerStatements = new CopyOnWriteArrayList<>();
+    private volatile ExecutorService executor;
+    private volatile Throwable failure;
+    private volatile boolean cancelled;
+
+    public CsvImportPipeline(ConnectionPool pool, int batchSize, int parserThreads,
+                             int writerThreads, int queueCapacity) {
+        this.pool = pool;
+        this.batchSize = Math.max(1, batchSize);
+        this.parserThreads = Math.max(1, parserThreads);
+        // Leave one pooled connection for the rest of the application
+        this.writerThreads = Math.max(1, Math.min(writerThreads, pool.getMaxSize() - 1));
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    public static CsvImportPipeline fromConfig(ConfigManager config, ConnectionPool pool) {
+        return new CsvImportPipeline(pool,
+            config.getCsvBatchSize(),
+            config.getImportParserThreads(),
+            config.getImportWriterThreads(),
+            config.getImportQueueCapacity());
+    }
+
+    // Imports the file and returns the number of rows inserted
+    public long run(File file, ImportProgress progress) throws Exception {
+        long fileSize = file.length();
+        if (fileSize == 0) {
+            throw new IOException("CSV file is empty");
+        }
+        BlockingQueue<RawChunk> chunks = new ArrayBlockingQueue<>(queueCapacity + parserThreads);
+        BlockingQueue<RecordBatch> batches = new ArrayBlockingQueue<>(queueCapacity + writerThreads);
+        // Recycled buffers; their number bounds how far the reader can run ahead
+        BlockingQueue<RecordBatch> freeBatches = new ArrayBlockingQueue<>(queueCapacity + parserThreads + writerThreads);
+        for (int i = 0; i < queueCapacity + parserThreads + writerThreads; i++) {
+            freeBatches.add(new RecordBatch(batchSize));
+        }
+        AtomicLong rowsWritten = new AtomicLong();
+        AtomicInteger parsersRunning = new AtomicInteger(parserThreads);
+
+        // Global, so every writer session sees it; it lives as long as the first connection
+        String stage = "##BirthImport_" + UUID.randomUUID().toString().replace("-", "");
+        List<Connection> connections = new ArrayList<>();
+        List<AtomicLong> writerRows = new ArrayList<>();
+        boolean staged = false;
+        try (CountingInputStream in = new CountingInputStream(new FileInputStream(file));
+             Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+
+            for (int i = 0; i < writerThreads; i++) {
+                connections.add(pool.getConnection());
+                writerRows.add(new AtomicLong());
+            }
+            boolean starSchema = BirthSchema.isStarSchema(connections.get(0));
+            if (starSchema || (writerThreads > 1 && SummaryTables.exists(connections.get(0)))) {
+                try (Statement stmt = connections.get(0).createStatement()) {
+                    stmt.execute(UpsertImporter.CREATE_STAGE_SQL.replace(UpsertImporter.STAGE_TABLE, stage));
+                }
+                staged = true;
+            }
+            String target = staged ? stage : "BirthStatistics";
+            for (Connection conn : connections) {
+                conn.setAutoCommit(false);
+            }
+
+            executor = Executors.newFixedThreadPool(1 + parserThreads + writerThreads, r -> {
+                Thread t = new Thread(r, "csv-import");
+                t.setDaemon(true);
+                return t;
+            });
+            if (cancelled) {
+                throw new CancellationException("Import cancelled");
+            }
+
+            executor.execute(() -> guard(() -> readStage(reader, chunks)));
+            for (int i = 0; i < parserThreads; i++) {
+                executor.execute(() -> guard(() -> {
+                    try {
+                        parseStage(chunks, freeBatches, batches);
+                    } finally {
+                        if (parsersRunning.decrementAndGet() == 0 && failure == null) {
+                            for (int w = 0; w < writerThreads; w++) {
+                                batches.put(END_OF_BATCHES);
+                            }
+                        }
+                    }
+                }));
+            }
+            for (int i = 0; i < writerThreads; i++) {
+                Connection conn = connections.get(i);
+                AtomicLong rows = writerRows.get(i);
+                boolean commitEachBatch = staged;
+                executor.execute(() -> guard(() -> writeStage(conn, target, commitEachBatch, batches, freeBatches,
+                    rowsWritten, rows, progress, in, fileSize)));
+            }
+
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Keep waiting; stages stop on their own or after fail()/cancel()
+            }
+
+            if (failure != null) {
+                throw asException(failure);
+            }
+            if (cancelled) {
+                throw new CancellationException("Import cancelled");
+            }
+            if (staged) {
+                if (starSchema) {
+                    BirthSchema.addDimensionValues(connections.get(0), stage);
+                }
+                moveStaged(connections.get(0), stage);
+            } else {
+                commitAll(connections, writerRows);
+            }
+            return rowsWritten.get();
+        } catch (Exception e) {
+            for (Connection conn : connections) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+            }
+            throw e;
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            if (staged) {
+                dropStage(connections.get(0), stage);
+            }
+            for (Connection conn : connections) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    // Connection goes back to the pool or is discarded there
+                }
+            }
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+        stopAll();
+    }
+
+    private void readStage(Reader reader, BlockingQueue<RawChunk> chunks) throws IOException, InterruptedException {
+        char[] carry = new char[0];
+        int carryLength = 0;
+        long startLine = 1;
+        boolean first = true;
+        boolean eof = false;
+
+        while (!eof) {
+            char[] buffer = new char[Math.max(CHUNK_SIZE, carryLength * 2)];
+            System.arraycopy(carry, 0, buffer, 0, carryLength);
+            int length = carryLength;
+            while (length < buffer.length) {
+                int n = reader.read(buffer, length, buffer.length - length);
+                if (n < 0) {
+                    eof = true;
+                    break;
+                }
+                length += n;
+            }
+
+            // Cut after the last newline that is not inside a quoted field
+            int cut = eof ? length : 0;
+            if (!eof) {
+                CsvTokenizer.RecordScanner scanner = new CsvTokenizer.RecordScanner();
+                for (int i = 0; i < length; i++) {
+                    if (scanner.endsRecord(buffer[i])) {
+                        cut = i + 1;
+                    }
+                }
+            }
+
+            if (cut > 0) {
+                RawChunk chunk = new RawChunk(buffer);
+                chunk.length = cut;
+                chunk.startLine = startLine;
+                chunk.first = first;
+                chunks.put(chunk);
+                first = false;
+                for (int i = 0; i < cut; i++) {
+                    if (buffer[i] == '\n') {
+                        startLine++;
+                    }
+                }
+            }
+            // Whatever follows the cut (or a record longer than a whole chunk) is carried over
+            carryLength = length - cut;
+            carry = new char[carryLength];
+            System.arraycopy(buffer, cut, carry, 0, carryLength);
+        }
+
+        for (int i = 0; i < parserThreads; i++) {
+            chunks.put(END_OF_CHUNKS);
+        }
+    }
+
+    private void parseStage(BlockingQueue<RawChunk> chunks, BlockingQueue<RecordBatch> freeBatches,
+                            BlockingQueue<RecordBatch> batches) throws IOException, InterruptedException {
+        while (true) {
+            RawChunk chunk = chunks.take();
+            if (chunk == END_OF_CHUNKS) {
+                return;
+            }
+            CsvTokenizer csv = new CsvTokenizer(
+                new CharArrayReader(chunk.chars, 0, chunk.length), 8192, chunk.startLine);
+            if (chunk.first) {
+                // Skip the header row
+                csv.next();
+            }
+
+            RecordBatch batch = null;
+            while (csv.next()) {
+                if (cancelled) {
+                    return;
+                }
+                if (csv.getFieldCount() == 1 && csv.isEmpty(0)) {
+                    continue;
+                }
+                if (batch == null) {
+                    batch = freeBatches.take();
+                    batch.setFirstLine(csv.getLineNumber());
+                }
+                try {
+                    batch.add(csv);
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Error on line " + csv.getLineNumber() + ": "
+                        + csv.getRecordText() + " (" + e.getMessage() + ")", e);
+                }
+                if (batch.isFull()) {
+                    batches.put(batch);
+                    batch = null;
+                }
+            }
+            if (batch != null) {
+                batches.put(batch);
+            }
+        }
+    }
+
+    private void writeStage(Connection conn, String table, boolean commitEachBatch,
+                            BlockingQueue<RecordBatch> batches, BlockingQueue<RecordBatch> freeBatches,
+                            AtomicLong rowsWritten, AtomicLong writerRows, ImportProgress progress,
+                            CountingInputStream in, long fileSize)
+            throws SQLException, InterruptedException {
+        PreparedStatement pstmt = conn.prepareStatement(RecordBatch.INSERT_SQL.replace("BirthStatistics", table));
+        writerStatements.add(pstmt);
+        try {
+            while (true) {
+                RecordBatch batch = batches.take();
+                if (batch == END_OF_BATCHES || cancelled) {
+                    return;
+                }
+                int rows = batch.size();
+                long start = Metrics.start();
+                try {
+                    batch.addBatchTo(pstmt);
+                    pstmt.executeBatch();
+                    if (commitEachBatch) {
+                        // Only the stage is locked, so short transactions keep writers out of each other's way
+                        conn.commit();
+                    }
+                    Metrics.getInstance().recordBatch(start, rows);
+                } catch (SQLException e) {
+                    throw new SQLException("Error inserting batch starting at line " + batch.getFirstLine()
+                        + ": " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+                }
+                batch.clear();
+                freeBatches.put(batch);
+                rowsWritten.addAndGet(rows);
+                writerRows.addAndGet(rows);
+                if (progress != null) {
+                    progress.batchWritten(rows, in.getCount(), fileSize);
+                }
+            }
+        } finally {
+            writerStatements.remove(pstmt);
+            pstmt.close();
+        }
+    }
+
+    // Commits the writers in turn, after checking every connection is still alive to keep the
+    // window for a partial import small. Once a commit has gone through it cannot be undone, so a
+    // later failure says how many rows were saved.
+    private static void commitAll(List<Connection> connections, List<AtomicLong> writerRows) throws SQLException {
+        for (Connection conn : connections) {
+            if (!conn.isValid(5)) {
+                throw new SQLException("A writer connection was lost before the import could commit");
+            }
+        }
+        long committed = 0;
+        long total = 0;
+        for (AtomicLong rows : writerRows) {
+            total += rows.get();
+        }
+        for (int i = 0; i < connections.size(); i++) {
+            try {
+                connections.get(i).commit();
+            } catch (SQLException e) {
+                if (i == 0) {
+                    throw e;
+                }
+                throw new SQLException(String.format("Import partly saved: %,d of %,d rows were committed before "
+                    + "writer %d of %d failed to commit (%s); the rest were rolled back",
+                    committed, total, i + 1, connections.size(), e.getMessage()), e.getSQLState(), e.getErrorCode(), e);
+            }
+            committed += writerRows.get(i).get();
+        }
+    }
+
+    // The one write to BirthStatistics in staged mode: every staged row in one transaction. Rows
+    // reach the stage in the order writers finish their batches, not in file order; IDs have never
+    // followed the file with more than one writer.
+    private void moveStaged(Connection conn, String stage) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement("INSERT INTO BirthStatistics (" + COLUMNS + ") "
+            + "SELECT " + COLUMNS + " FROM " + stage + " ORDER BY StageID");
+        writerStatements.add(pstmt);
+        try {
+            pstmt.executeUpdate();
+            if (cancelled) {
+                throw new CancellationException("Import cancelled");
+            }
+            conn.commit();
+        } finally {
+            writerStatements.remove(pstmt);
+            pstmt.close();
+        }
+    }
+
+    private static void dropStage(Connection conn, String stage) {
+        try (Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(true);
+            stmt.execute(UpsertImporter.DROP_STAGE_SQL.replace(UpsertImporter.STAGE_TABLE, stage));
+        } catch (SQLException e) {
+            // A broken connection is discarded by the pool, and the global temp table with it
+        }
+    }
+
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    private void guard(Stage stage) {
+        try {
+            stage.run();
+        } catch (InterruptedException e) {
+            // Another stage failed or the import was cancelled
+        } catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    private void fail(Throwable t) {
+        synchronized (this) {
+            if (failure == null) {
+                failure = t;
+            }
+        }
+        stopAll();
+    }
+
+    private void stopAll() {
+        for (PreparedStatement pstmt : writerStatements) {
+            try {
+                pstmt.cancel();
+            } catch (SQLException e) {
+                // Statement already finished
+            }
+        }
+        ExecutorService running = executor;
+        if (running != null) {
+            running.shutdownNow();
+        }
+    }
+
+    private static Exception asException(Throwable t) {
+        return t instanceof Exception ? (Exception) t : new RuntimeException(t);
+    }
+
+    private static final class RawChunk {
+        final char[] chars;
+        int length;
+        long startLine;
+        boolean first;
+
+        RawChunk(char[] chars) {
+            this.chars = chars;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package birthstats;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+// Streaming RFC 4180 CSV reader.
+// Reads through a reusable char buffer and keeps the fields of the current record in a
+// second reusable buffer, so walking a file allocates nothing per row. Numeric fields are
+// parsed straight from the buffer and repeated string values are shared through a small cache.
+public class CsvTokenizer implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int STRING_CACHE_SIZE = 1024;  // must be a power of two
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+    private boolean started;
+
+    // Unescaped characters of the current record; field i spans fieldStart[i]..fieldEnd[i]
+    private char[] chars = new char[256];
+    private int charCount;
+    private int[] fieldStart = new int[16];
+    private int[] fieldEnd = new int[16];
+    private int fieldCount;
+
+    private final String[] stringCache = new String[STRING_CACHE_SIZE];
+    private long lineNumber;
+    private long recordLineNumber;
+    private long recordNumber;
+
+    public CsvTokenizer(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvTokenizer(Reader reader, int bufferSize) {
+        this(reader, bufferSize, 1);
+    }
+
+    // firstLineNumber lets a tokenizer over a slice of a larger file report file line numbers
+    public CsvTokenizer(Reader reader, int bufferSize, long firstLineNumber) {
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+        this.lineNumber = firstLineNumber;
+    }
+
+    // Advances to the next record, skipping blank lines. Returns false at end of input.
+    public boolean next() throws IOException {
+        fieldCount = 0;
+        charCount = 0;
+
+        if (!started) {
+            started = true;
+            // Skip the UTF-8 byte order mark written by Excel and the open data portal
+            if (fill() && buffer[position] == '\uFEFF') {
+                position++;
+            }
+        }
+
+        boolean inQuotes = false;
+        boolean recordStarted = false;
+        int start = 0;  // where the current field begins in chars
+        recordLineNumber = lineNumber;
+
+        while (true) {
+            if (position >= limit && !fill()) {
+                if (inQuotes) {
+                    throw new IOException("Unterminated quoted field starting on line " + recordLineNumber);
+                }
+                if (!recordStarted) {
+                    return false;
+                }
+                endField(start);
+                recordNumber++;
+                return true;
+            }
+
+            char c = buffer[position++];
+
+            if (inQuotes) {
+                if (c == '"') {
+                    if (position >= limit && !fill()) {
+                        inQuotes = false;
+                    } else if (buffer[position] == '"') {
+                        // Escaped quote inside a quoted field
+                        append('"');
+                        position++;
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    append(c);
+                }
+                continue;
+            }
+
+            switch (c) {
+                case ',':
+                    recordStarted = true;
+                    endField(start);
+                    start = charCount;
+                    break;
+                case '\r':
+                case '\n':
+                    if (c == '\r' && (position < limit || fill()) && buffer[position] == '\n') {
+                        position++;
+                    }
+                    lineNumber++;
+                    if (!recordStarted) {
+                        // Blank line
+                        recordLineNumber = lineNumber;
+                        break;
+                    }
+                    endField(start);
+                    recordNumber++;
+                    return true;
+                case '"':
+                    recordStarted = true;
+                    if (isBlank(start, charCount)) {
+                        // Opening quote; drop any whitespace that preceded it
+                        charCount = start;
+                        inQuotes = true;
+                    } else {
+                        append(c);
+                    }
+                    break;
+                default:
+                    recordStarted = true;
+                    append(c);
+                    break;
+            }
+        }
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    // Line on which the current record starts (1-based)
+    public long getLineNumber() {
+        return recordLineNumber;
+    }
+
+    // Number of records returned so far, including the header
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    public boolean isEmpty(int field) {
+        checkField(field);
+        return trimStart(field) >= trimEnd(field);
+    }
+
+    // Parses an int directly from the field's characters, ignoring surrounding whitespace
+    public int getInt(int field) {
+        checkField(field);
+        int i = trimStart(field);
+        int end = trimEnd(field);
+        if (i >= end) {
+            throw new NumberFormatException("Empty numeric field " + (field + 1));
+        }
+        boolean negative = false;
+        if (chars[i] == '-' || chars[i] == '+') {
+            negative = chars[i] == '-';
+            i++;
+            if (i >= end) {
+                throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+            }
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("Value out of range: \"" + getString(field) + "\"");
+            }
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of range: \"" + getString(field) + "\"");
+        }
+        return (int) value;
+    }
+
+    // Returns the trimmed field value; repeated values come back as the same String instance
+    public String getString(int field) {
+        checkField(field);
+        int start = trimStart(field);
+        int length = trimEnd(field) - start;
+        if (length == 0) {
+            return "";
+        }
+
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (STRING_CACHE_SIZE - 1);
+        String cached = stringCache[slot];
+        if (cached != null && cached.length() == length && cached.hashCode() == hash
+                && matches(cached, start, length)) {
+            return cached;
+        }
+        String value = new String(chars, start, length);
+        stringCache[slot] = value;
+        return value;
+    }
+
+    // The current record re-joined with commas, for error messages
+    public String getRecordText() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fieldCount; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(chars, fieldStart[i], fieldEnd[i] - fieldStart[i]);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        int n;
+        do {
+            n = reader.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        if (n < 0) {
+            endOfInput = true;
+            position = limit = 0;
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    private void append(char c) {
+        if (charCount == chars.length) {
+            char[] grown = new char[chars.length * 2];
+            System.arraycopy(chars, 0, grown, 0, charCount);
+            chars = grown;
+        }
+        chars[charCount++] = c;
+    }
+
+    private void endField(int start) {
+        if (fieldCount == fieldStart.length) {
+            int[] grownStart = new int[fieldCount * 2];
+            int[] grownEnd = new int[fieldCount * 2];
+            System.arraycopy(fieldStart, 0, grownStart, 0, fieldCount);
+            System.arraycopy(fieldEnd, 0, grownEnd, 0, fieldCount);
+            fieldStart = grownStart;
+            fieldEnd = grownEnd;
+        }
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = charCount;
+        fieldCount++;
+    }
+
+    private boolean isBlank(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (chars[i] > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int trimStart(int field) {
+        int i = fieldStart[field];
+        int end = fieldEnd[field];
+        while (i < end && chars[i] <= ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private int trimEnd(int field) {
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        while (end > start && chars[end - 1] <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private boolean matches(String s, int start, int length) {
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IllegalArgumentException("Expected at least " + (field + 1)
+                + " fields but line " + recordLineNumber + " has " + fieldCount);
+        }
+    }
+
+    // Finds record ends in raw text without tokenizing it, for cutting a file into chunks that
+    // each start on a record. Follows next(): a quote opens a quoted field only at the start of
+    // a field (after blanks), a doubled quote inside one is an escaped quote, and any other quote
+    // is an ordinary character. Feed it from the start of a record, one char or byte at a time.
+    static final class RecordScanner {
+        private boolean inQuotes;
+        private boolean quotePending;  // inside quotes, after a quote that closes or doubles
+        private boolean fieldBlank = true;
+
+        // True when c is the newline that ends a record
+        boolean endsRecord(int c) {
+            if (inQuotes) {
+                if (!quotePending) {
+                    quotePending = c == '"';
+                    return false;
+                }
+                quotePending = false;
+                if (c == '"') {
+                    return false;
+                }
+                inQuotes = false;
+                fieldBlank = false;
+            }
+            switch (c) {
+                case ',':
+                case '\r':
+                    fieldBlank = true;
+                    return false;
+                case '\n':
+                    fieldBlank = true;
+                    return true;
+                case '"':
+                    inQuotes = fieldBlank;
+                    fieldBlank = false;
+                    return false;
+                default:
+                    if (c > ' ' && c != '\uFEFF') {
+                        fieldBlank = false;
+                    }
+                    return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package birthstats;
+
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Background unit of database or file work.
+// Runs off the event dispatch thread, exposes progress for the status bar and
+// forwards cancellation to the JDBC statement currently executing on the server.
+//
+// SwingWorker reports a cancelled task as done at once, while runInBackground() may still be
+// writing a file or committing. The hooks and isFinished() wait for the worker to exit instead:
+// cancelled() runs only then, and a "finished" property change follows every hook.
+public abstract class DatabaseTask<T, V> extends SwingWorker<T, V> {
+    private static final int NOT_STARTED = 0;
+    private static final int RUNNING = 1;
+    private static final int EXITED = 2;
+
+    private final String description;
+    private final Metrics.Operation operation;
+    private final AtomicReference<Statement> activeStatement = new AtomicReference<>();
+    private volatile Runnable cancelAction;
+    private final AtomicLong rows = new AtomicLong();
+    private volatile long workDone;
+    private volatile long workTotal = -1;
+    private volatile long startNanos;
+    private volatile long endNanos;
+    private final AtomicInteger phase = new AtomicInteger(NOT_STARTED);
+    private boolean finished;  // EDT only
+
+    protected DatabaseTask(String description) {
+        this(description, null);
+    }
+
+    // Tasks given an operation record their latency and rows in Metrics
+    protected DatabaseTask(String description, Metrics.Operation operation) {
+        this.description = description;
+        this.operation = operation;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    protected final T doInBackground() throws Exception {
+        if (!phase.compareAndSet(NOT_STARTED, RUNNING)) {
+            return null;  // Cancelled before it started, and already finished on the EDT
+        }
+        startNanos = System.nanoTime();
+        boolean completed = false;
+        try {
+            T result = runInBackground();
+            completed = true;
+            return result;
+        } finally {
+            activeStatement.set(null);
+            endNanos = System.nanoTime();
+            if (operation != null) {
+                if (isCancelled()) {
+                    Metrics.getInstance().recordCancelled(operation);
+                } else {
+                    Metrics.getInstance().record(operation, startNanos, rows.get(), !completed);
+                }
+            }
+            // Even a failed or cancelled write may have committed part of its work
+            if (operation != null && operation.writes()) {
+                QueryCache.dataChanged();
+            }
+            phase.set(EXITED);
+            if (isCancelled()) {
+                SwingUtilities.invokeLater(this::finishCancelled);
+            }
+        }
+    }
+
+    // The actual work; runs on a worker thread
+    protected abstract T runInBackground() throws Exception;
+
+    // Called on the EDT when runInBackground() returned normally
+    protected void succeeded(T result) {
+    }
+
+    // Called on the EDT when runInBackground() threw
+    protected void failed(Throwable cause) {
+        cause.printStackTrace();
+    }
+
+    // Called on the EDT after the user cancelled, once runInBackground() has returned or thrown
+    protected void cancelled() {
+    }
+
+    // True on the EDT once the worker has exited and the matching hook has run
+    public boolean isFinished() {
+        return finished;
+    }
+
+    @Override
+    protected final void done() {
+        if (isCancelled()) {
+            // A task cancelled before it started never runs; otherwise wait for the worker
+            if (phase.compareAndSet(NOT_STARTED, EXITED) || phase.get() == EXITED) {
+                finishCancelled();
+            }
+            return;
+        }
+        try {
+            succeeded(get());
+        } catch (ExecutionException e) {
+            failed(e.getCause() != null ? e.getCause() : e);
+        } catch (InterruptedException | CancellationException e) {
+            cancelled();
+        } finally {
+            finish();
+        }
+    }
+
+    // Reached from done() or from the exiting worker, whichever sees both conditions first
+    private void finishCancelled() {
+        if (finished) {
+            return;
+        }
+        try {
+            cancelled();
+        } finally {
+            finish();
+        }
+    }
+
+    private void finish() {
+        finished = true;
+        firePropertyChange("finished", false, true);
+    }
+
+    // Remember the statement that is about to run so cancelTask() can reach the server
+    protected <S extends Statement> S track(S statement) {
+        activeStatement.set(statement);
+        if (isCancelled()) {
+            cancelStatement();
+        }
+        return statement;
+    }
+
+    // For work that runs its own threads or statements: called when the user cancels
+    protected void onCancel(Runnable action) {
+        cancelAction = action;
+        if (isCancelled()) {
+            action.run();
+        }
+    }
+
+    protected void checkCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException(description + " cancelled");
+        }
+    }
+
+    public void cancelTask() {
+        cancel(true);
+        cancelStatement();
+        Runnable action = cancelAction;
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    private void cancelStatement() {
+        Statement statement = activeStatement.get();
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                System.err.println("Could not cancel statement: " + e.getMessage());
+            }
+        }
+    }
+
+    protected void addRows(long count) {
+        rows.addAndGet(count);
+    }
+
+    // Progress in task-specific units (bytes read, rows written...); total < 0 means unknown
+    protected void setWork(long done, long total) {
+        workDone = done;
+        workTotal = total;
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    public double getElapsedSeconds() {
+        if (startNanos == 0) {
+            return 0;
+        }
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return (end - startNanos) / 1e9;
+    }
+
+    public double getRowsPerSecond() {
+        double elapsed = getElapsedSeconds();
+        return elapsed > 0 ? rows.get() / elapsed : 0;
+    }
+
+    // Fraction complete in [0, 1], or -1 when the total is unknown
+    public double getFraction() {
+        long total = workTotal;
+        if (total <= 0) {
+            return -1;
+        }
+        return Math.min(1.0, (double) workDone / total);
+    }
+
+    // Estimated seconds remaining, or -1 when it cannot be estimated yet
+    public long getEtaSeconds() {
+        double fraction = getFraction();
+        double elapsed = getElapsedSeconds();
+        if (fraction <= 0 || elapsed <= 0) {
+            return -1;
+        }
+        return Math.round(elapsed / fraction - elapsed);
+    }
+}
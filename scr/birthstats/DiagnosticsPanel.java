@@ -0,0 +1,140 @@
+package birthstats;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+
+// Live view of Metrics: per-operation latency percentiles and throughput, import batch sizes,
+// connection pool state and startup timings. Refreshes every second while open.
+public class DiagnosticsPanel extends JPanel {
+    private static final int REFRESH_MS = 1000;
+
+    private final Metrics metrics = Metrics.getInstance();
+    private final ConnectionPool pool;
+    private final OperationTableModel model = new OperationTableModel();
+    private final JTextArea detailsArea = new JTextArea(6, 40);
+    private final Timer timer = new Timer(REFRESH_MS, e -> refresh());
+
+    public DiagnosticsPanel(ConnectionPool pool) {
+        super(new BorderLayout(5, 5));
+        this.pool = pool;
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        detailsArea.setEditable(false);
+        detailsArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JButton resetBtn = new JButton("Reset");
+        resetBtn.addActionListener(e -> {
+            metrics.reset();
+            refresh();
+        });
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        buttonPanel.add(resetBtn);
+
+        JPanel bottom = new JPanel(new BorderLayout(5, 5));
+        bottom.add(new JScrollPane(detailsArea), BorderLayout.CENTER);
+        bottom.add(buttonPanel, BorderLayout.SOUTH);
+
+        add(new JScrollPane(new JTable(model)), BorderLayout.CENTER);
+        add(bottom, BorderLayout.SOUTH);
+        refresh();
+    }
+
+    public static void showDialog(Component parent, ConnectionPool pool) {
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(parent), "Diagnostics",
+            Dialog.ModalityType.MODELESS);
+        DiagnosticsPanel panel = new DiagnosticsPanel(pool);
+        dialog.add(panel);
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        dialog.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent e) {
+                panel.timer.stop();
+            }
+        });
+        dialog.setSize(900, 500);
+        dialog.setLocationRelativeTo(parent);
+        dialog.setVisible(true);
+        panel.timer.start();
+    }
+
+    private void refresh() {
+        model.setStats(metrics.getOperations());
+        ConnectionPool.PoolStats poolStats = pool.getStats();
+        detailsArea.setText(String.format(
+            "Import batches: %d (average %.0f rows, max %d)%n" +
+            "Connection pool: %d active, %d idle, %d / %d open, %d waiting, %d timeouts%n" +
+            "Connection wait: %d borrows, mean %.2f ms, p99 %.2f ms, max %.2f ms%n" +
+            "Query cache: %d hits, %d misses (%.0f%% hit rate), %d entries, %.1f MB, %d evicted%n" +
+            "Startup: first paint %s, live data %s%n" +
+            "Since reset: %d s",
+            metrics.getImportBatches(), metrics.getAverageBatchRows(), metrics.getMaxBatchRows(),
+            poolStats.active, poolStats.idle, poolStats.total, poolStats.maxSize, poolStats.waiting,
+            poolStats.timeouts, metrics.getConnectionBorrows(), metrics.getConnectionWaitMeanMs(),
+            metrics.getConnectionWaitP99Ms(), metrics.getConnectionWaitMaxMs(),
+            metrics.getQueryCacheHits(), metrics.getQueryCacheMisses(), metrics.getQueryCacheHitRate() * 100,
+            metrics.getQueryCacheEntries(), metrics.getQueryCacheBytes() / (1024.0 * 1024.0),
+            metrics.getQueryCacheEvictions(),
+            formatMillis(metrics.getTimeToFirstPaintMs()), formatMillis(metrics.getTimeToLiveDataMs()),
+            metrics.getSecondsSinceReset()));
+    }
+
+    private static String formatMillis(long ms) {
+        return ms < 0 ? "-" : ms + " ms";
+    }
+
+    private static class OperationTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {
+            "Operation", "Count", "Errors", "Cancelled", "Rows", "Rows/s", "Mean ms", "p50 ms", "p95 ms", "p99 ms", "Max ms"
+        };
+
+        private OperationStats[] stats = new OperationStats[0];
+
+        void setStats(OperationStats[] stats) {
+            this.stats = stats;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return stats.length;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 0 ? String.class : Number.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            OperationStats s = stats[row];
+            switch (column) {
+                case 0: return s.getName();
+                case 1: return s.getCount();
+                case 2: return s.getErrors();
+                case 3: return s.getCancelled();
+                case 4: return s.getRows();
+                case 5: return Math.round(s.getRowsPerSecond());
+                case 6: return round(s.getMeanMs());
+                case 7: return round(s.getP50Ms());
+                case 8: return round(s.getP95Ms());
+                case 9: return round(s.getP99Ms());
+                default: return round(s.getMaxMs());
+            }
+        }
+
+        private static double round(double ms) {
+            return Math.round(ms * 10) / 10.0;
+        }
+    }
+}
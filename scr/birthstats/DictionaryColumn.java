@@ -0,0 +1,133 @@
+package birthstats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Dictionary-encoded string column. Each distinct value is stored once and rows hold a code.
+// Codes start as one byte per row and widen to two or four bytes only when the number of
+// distinct values requires it.
+public class DictionaryColumn {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    private byte[] byteCodes;
+    private short[] shortCodes;
+    private int[] intCodes;
+    private int size;
+
+    public DictionaryColumn(int initialCapacity) {
+        byteCodes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public void add(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        ensureCapacity(size + 1);
+        set(size++, code);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int cardinality() {
+        return values.size();
+    }
+
+    public int getCode(int row) {
+        if (byteCodes != null) {
+            return byteCodes[row] & 0xFF;
+        }
+        if (shortCodes != null) {
+            return shortCodes[row] & 0xFFFF;
+        }
+        return intCodes[row];
+    }
+
+    public String get(int row) {
+        return values.get(getCode(row));
+    }
+
+    public String decode(int code) {
+        return values.get(code);
+    }
+
+    // Code of a value, or -1 if no row has it
+    public int lookup(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    // Bytes used per row for the code array
+    public int getCodeWidth() {
+        return byteCodes != null ? 1 : shortCodes != null ? 2 : 4;
+    }
+
+    // Rough heap footprint: code array plus dictionary strings
+    public long estimateBytes() {
+        long bytes = (long) capacity() * getCodeWidth();
+        for (String value : values) {
+            bytes += 64 + (value == null ? 0 : value.length() * 2L);
+        }
+        return bytes;
+    }
+
+    public void trimToSize() {
+        if (byteCodes != null) {
+            byteCodes = Arrays.copyOf(byteCodes, size);
+        } else if (shortCodes != null) {
+            shortCodes = Arrays.copyOf(shortCodes, size);
+        } else {
+            intCodes = Arrays.copyOf(intCodes, size);
+        }
+    }
+
+    private int capacity() {
+        return byteCodes != null ? byteCodes.length : shortCodes != null ? shortCodes.length : intCodes.length;
+    }
+
+    private void set(int row, int code) {
+        if (byteCodes != null && code > 0xFF) {
+            shortCodes = new short[byteCodes.length];
+            for (int i = 0; i < size; i++) {
+                shortCodes[i] = (short) (byteCodes[i] & 0xFF);
+            }
+            byteCodes = null;
+        }
+        if (shortCodes != null && code > 0xFFFF) {
+            intCodes = new int[shortCodes.length];
+            for (int i = 0; i < size; i++) {
+                intCodes[i] = shortCodes[i] & 0xFFFF;
+            }
+            shortCodes = null;
+        }
+        if (byteCodes != null) {
+            byteCodes[row] = (byte) code;
+        } else if (shortCodes != null) {
+            shortCodes[row] = (short) code;
+        } else {
+            intCodes[row] = code;
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        int capacity = capacity();
+        if (needed <= capacity) {
+            return;
+        }
+        int grown = Math.max(needed, capacity + (capacity >> 1));
+        if (byteCodes != null) {
+            byteCodes = Arrays.copyOf(byteCodes, grown);
+        } else if (shortCodes != null) {
+            shortCodes = Arrays.copyOf(shortCodes, grown);
+        } else {
+            intCodes = Arrays.copyOf(intCodes, grown);
+        }
+    }
+}
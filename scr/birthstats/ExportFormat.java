@@ -0,0 +1,108 @@
+package birthstats;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// File layouts the exporters can write. Each format is a header, one block per row, a separator
+// written between rows and a footer, which is what lets the parallel exporter stitch part files.
+// Rows are read from SELECT_SQL, whose first column is ID.
+public enum ExportFormat {
+    CSV("csv", "CSV files",
+        "StatYear,RecordType,AreaCode,AreaName,Gender,BirthWeight,MultipleBirth,BirthCount\r\n", "", "") {
+        @Override
+        void writeRow(ResultSet rs, Utf8Sink out) throws SQLException, IOException {
+            appendInt(out, rs, 2).append(',');
+            out.appendCsvQuoted(rs.getString(3)).append(',');
+            out.appendCsvQuoted(rs.getString(4)).append(',');
+            out.appendCsvQuoted(rs.getString(5)).append(',');
+            out.appendCsvQuoted(rs.getString(6)).append(',');
+            out.appendCsvQuoted(rs.getString(7)).append(',');
+            out.appendCsvQuoted(rs.getString(8)).append(',');
+            appendInt(out, rs, 9).append("\r\n");
+        }
+    },
+
+    JSON("json", "JSON files", "[\n", ",\n", "\n]\n") {
+        @Override
+        void writeRow(ResultSet rs, Utf8Sink out) throws SQLException, IOException {
+            out.append("  {\n    \"id\": ");
+            appendJsonInt(out, rs, 1).append(",\n    \"year\": ");
+            appendJsonInt(out, rs, 2).append(",\n    \"recordType\": ");
+            out.appendJsonString(rs.getString(3)).append(",\n    \"areaCode\": ");
+            out.appendJsonString(rs.getString(4)).append(",\n    \"areaName\": ");
+            out.appendJsonString(rs.getString(5)).append(",\n    \"gender\": ");
+            out.appendJsonString(rs.getString(6)).append(",\n    \"birthWeight\": ");
+            out.appendJsonString(rs.getString(7)).append(",\n    \"multipleBirth\": ");
+            out.appendJsonString(rs.getString(8)).append(",\n    \"birthCount\": ");
+            appendJsonInt(out, rs, 9).append("\n  }");
+        }
+    },
+
+    // NULL columns are left out, which the XML importer reads back as NULL
+    XML("xml", "XML files", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<birthStats>\n", "", "</birthStats>\n") {
+        @Override
+        void writeRow(ResultSet rs, Utf8Sink out) throws SQLException, IOException {
+            out.append("  <record>\n");
+            xmlInt(out, rs, 1, "id");
+            xmlInt(out, rs, 2, "year");
+            xmlText(out, rs, 3, "recordType");
+            xmlText(out, rs, 4, "areaCode");
+            xmlText(out, rs, 5, "areaName");
+            xmlText(out, rs, 6, "gender");
+            xmlText(out, rs, 7, "birthWeight");
+            xmlText(out, rs, 8, "multipleBirth");
+            xmlInt(out, rs, 9, "birthCount");
+            out.append("  </record>\n");
+        }
+    };
+
+    static final String SELECT_SQL =
+        "SELECT ID, StatYear, RecordType, AreaCode, AreaName, Gender, BirthWeight, MultipleBirth, BirthCount " +
+        "FROM BirthStatistics";
+
+    final String extension;
+    final String description;
+    final String header;
+    final String separator;
+    final String footer;
+
+    ExportFormat(String extension, String description, String header, String separator, String footer) {
+        this.extension = extension;
+        this.description = description;
+        this.header = header;
+        this.separator = separator;
+        this.footer = footer;
+    }
+
+    abstract void writeRow(ResultSet rs, Utf8Sink out) throws SQLException, IOException;
+
+    // NULL becomes an empty field rather than 0
+    private static Utf8Sink appendInt(Utf8Sink out, ResultSet rs, int column) throws SQLException, IOException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? out : out.append(value);
+    }
+
+    private static Utf8Sink appendJsonInt(Utf8Sink out, ResultSet rs, int column) throws SQLException, IOException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? out.append("null") : out.append(value);
+    }
+
+    private static void xmlInt(Utf8Sink out, ResultSet rs, int column, String element)
+            throws SQLException, IOException {
+        int value = rs.getInt(column);
+        if (!rs.wasNull()) {
+            out.append("    <").append(element).append('>').append(value)
+               .append("</").append(element).append(">\n");
+        }
+    }
+
+    private static void xmlText(Utf8Sink out, ResultSet rs, int column, String element)
+            throws SQLException, IOException {
+        String value = rs.getString(column);
+        if (value != null) {
+            out.append("    <").append(element).append('>').appendXmlText(value)
+               .append("</").append(element).append(">\n");
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package birthstats;
+
+// Progress callback for exporters. Called from worker threads, not the EDT.
+public interface ExportProgress {
+    void rowsWritten(int rows, long bytesWritten);
+}
@@ -0,0 +1,6 @@
+package birthstats;
+
+// Progress callback for importers. Called from worker threads, not the EDT.
+public interface ImportProgress {
+    void batchWritten(int rows, long bytesRead, long totalBytes);
+}
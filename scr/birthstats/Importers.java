@@ -0,0 +1,67 @@
+package birthstats;
+
+import java.io.File;
+import java.util.function.Consumer;
+
+// Runs a CSV import with the importer chosen by import.mode, for both the window and the
+// batch command line. Bulk copy falls back to the batched INSERT pipeline when the connection
+// does not come from the Microsoft driver.
+public final class Importers {
+
+    private Importers() {
+    }
+
+    public static Result run(ConfigManager config, ConnectionPool pool, File file, ImportProgress progress)
+            throws Exception {
+        return run(config, pool, file, progress, cancel -> { });
+    }
+
+    // onCancel receives the importer's cancel action as soon as the importer exists
+    public static Result run(ConfigManager config, ConnectionPool pool, File file, ImportProgress progress,
+                             Consumer<Runnable> onCancel) throws Exception {
+        String mode = config.getImportMode();
+        if ("upsert".equals(mode)) {
+            UpsertImporter importer = UpsertImporter.fromConfig(config, pool);
+            onCancel.accept(importer::cancel);
+            UpsertImporter.Result result = importer.run(file, progress);
+            return new Result(result.rowsRead, result, null);
+        }
+        if ("checkpoint".equals(mode)) {
+            CheckpointedImporter importer = CheckpointedImporter.fromConfig(config, pool);
+            onCancel.accept(importer::cancel);
+            CheckpointedImporter.Result result = importer.run(file, progress);
+            return new Result(result.rowsThisRun, null, result);
+        }
+        BulkCopyImporter bulkCopy = "bulkcopy".equals(mode) ? BulkCopyImporter.fromConfig(config, pool) : null;
+        if (bulkCopy != null && bulkCopy.isAvailable()) {
+            onCancel.accept(bulkCopy::cancel);
+            return new Result(bulkCopy.run(file, progress), null, null);
+        }
+        if (bulkCopy != null) {
+            System.err.println("Bulk copy is not available on this connection; using batched INSERT");
+        }
+        CsvImportPipeline pipeline = CsvImportPipeline.fromConfig(config, pool);
+        onCancel.accept(pipeline::cancel);
+        return new Result(pipeline.run(file, progress), null, null);
+    }
+
+    public static final class Result {
+        public final long rows;                          // read from the file in this run
+        public final UpsertImporter.Result upsert;       // set in upsert mode
+        public final CheckpointedImporter.Result checkpoint;  // set in checkpoint mode
+
+        Result(long rows, UpsertImporter.Result upsert, CheckpointedImporter.Result checkpoint) {
+            this.rows = rows;
+            this.upsert = upsert;
+            this.checkpoint = checkpoint;
+        }
+
+        // The importer's own report, or null for the plain and bulk copy imports
+        public String getDetail() {
+            if (upsert != null) {
+                return upsert.toString();
+            }
+            return checkpoint != null ? checkpoint.toString() : null;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package birthstats;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.zip.GZIPInputStream;
+
+// Streaming import of the JSON written by exportToJSON(): a top-level array of objects with
+// year, recordType, areaCode, areaName, gender, birthWeight, multipleBirth and birthCount.
+// Other fields (such as id) are skipped. Records are parsed one at a time with JsonPullParser
+// and inserted in batches, so memory use does not depend on the file size. Files ending in .gz
+// are decompressed on the fly.
+public class JsonImporter {
+    private final ConnectionPool pool;
+    private final int batchSize;
+    private volatile BatchInserter inserter;
+    private volatile boolean cancelled;
+
+    public JsonImporter(ConnectionPool pool, int batchSize) {
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+
+    public static JsonImporter fromConfig(ConfigManager config, ConnectionPool pool) {
+        return new JsonImporter(pool, config.getCsvBatchSize());
+    }
+
+    public long run(File file, ImportProgress progress) throws Exception {
+        long fileSize = file.length();
+        try (Connection conn = pool.getConnection();
+             CountingInputStream in = new CountingInputStream(new FileInputStream(file));
+             JsonPullParser json = new JsonPullParser(new InputStreamReader(decompress(file, in), StandardCharsets.UTF_8));
+             BatchInserter batches = new BatchInserter(conn, batchSize, progress, in, fileSize)) {
+            inserter = batches;
+            if (cancelled) {
+                batches.cancel();
+            }
+
+            if (json.next() != JsonPullParser.Token.START_ARRAY) {
+                throw json.error("Expected an array of records");
+            }
+            JsonPullParser.Token token;
+            while ((token = json.next()) == JsonPullParser.Token.START_OBJECT) {
+                readRecord(json, batches);
+            }
+            if (token != JsonPullParser.Token.END_ARRAY) {
+                throw json.error("Expected a record object");
+            }
+            json.next();  // Rejects anything after the closing bracket
+            return batches.finish();
+        } finally {
+            inserter = null;
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+        BatchInserter current = inserter;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    // Buffers the raw stream and gunzips it when the file name ends in .gz
+    static InputStream decompress(File file, InputStream in) throws IOException {
+        InputStream buffered = new BufferedInputStream(in, 65536);
+        return file.getName().toLowerCase().endsWith(".gz") ? new GZIPInputStream(buffered, 65536) : buffered;
+    }
+
+    private static void readRecord(JsonPullParser json, BatchInserter batches) throws Exception {
+        long line = json.getLine();
+        Integer year = null;
+        Integer count = null;
+        String type = null;
+        String code = null;
+        String name = null;
+        String sex = null;
+        String weight = null;
+        String multiple = null;
+
+        while (json.next() == JsonPullParser.Token.FIELD_NAME) {
+            if (json.textEquals("year")) {
+                year = readInt(json);
+            } else if (json.textEquals("birthCount")) {
+                count = readInt(json);
+            } else if (json.textEquals("recordType")) {
+                type = readString(json);
+            } else if (json.textEquals("areaCode")) {
+                code = readString(json);
+            } else if (json.textEquals("areaName")) {
+                name = readString(json);
+            } else if (json.textEquals("gender")) {
+                sex = readString(json);
+            } else if (json.textEquals("birthWeight")) {
+                weight = readString(json);
+            } else if (json.textEquals("multipleBirth")) {
+                multiple = readString(json);
+            } else {
+                json.skipValue();
+            }
+        }
+        if (year == null || count == null) {
+            throw new IllegalArgumentException("Record starting on line " + line + " is missing "
+                + (year == null ? "\"year\"" : "\"birthCount\""));
+        }
+        batches.add(year, type, code, name, sex, weight, multiple, count);
+    }
+
+    // Accepts numbers and numeric strings; null counts as missing
+    private static Integer readInt(JsonPullParser json) throws IOException {
+        JsonPullParser.Token token = json.next();
+        if (token == JsonPullParser.Token.NULL) {
+            return null;
+        }
+        if (token != JsonPullParser.Token.NUMBER && token != JsonPullParser.Token.STRING) {
+            throw json.error("Expected a number");
+        }
+        return json.getInt();
+    }
+
+    // Text columns are trimmed like the CSV importer does; numbers are kept as their text
+    private static String readString(JsonPullParser json) throws IOException {
+        JsonPullParser.Token token = json.next();
+        if (token == JsonPullParser.Token.NULL) {
+            return null;
+        }
+        if (token != JsonPullParser.Token.STRING && token != JsonPullParser.Token.NUMBER) {
+            throw json.error("Expected a string");
+        }
+        return json.getText().trim();
+    }
+}
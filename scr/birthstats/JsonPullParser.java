@@ -0,0 +1,371 @@
+package birthstats;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+// Minimal streaming JSON pull parser. next() returns one token at a time; strings and numbers
+// are read into a reused buffer, so memory stays flat no matter how large the document is.
+// Syntax errors are reported as IOExceptions with the line and column.
+public class JsonPullParser implements Closeable {
+    public enum Token {
+        START_OBJECT, END_OBJECT, START_ARRAY, END_ARRAY, FIELD_NAME, STRING, NUMBER, TRUE, FALSE, NULL, END
+    }
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int pos;
+    private int limit;
+    private final StringBuilder text = new StringBuilder(64);
+
+    // Container nesting: true for objects, false for arrays
+    private boolean[] stack = new boolean[16];
+    private int depth;
+    private boolean expectName;   // inside an object, before a field name
+    private boolean afterValue;   // a complete value was just read
+    private boolean afterComma;
+    private boolean done;
+
+    private long line = 1;
+    private long lineStart;       // offset of the current line's first char
+    private long bufferStart;     // offset of buffer[0]
+
+    public JsonPullParser(Reader reader) {
+        this(reader, 65536);
+    }
+
+    public JsonPullParser(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+    }
+
+    public Token next() throws IOException {
+        int c = skipWhitespace();
+        if (pos == 0 && bufferStart == 0 && c == '\uFEFF') {
+            pos++;
+            c = skipWhitespace();
+        }
+        if (depth == 0 && done) {
+            if (c >= 0) {
+                throw error("Unexpected content after the end of the document");
+            }
+            return Token.END;
+        }
+        if (c < 0) {
+            throw error("Unexpected end of input");
+        }
+
+        if (afterValue) {
+            if (c == ',') {
+                pos++;
+                afterValue = false;
+                afterComma = true;
+                expectName = stack[depth - 1];
+                c = skipWhitespace();
+            } else if (c != '}' && c != ']') {
+                throw error("Expected ',' or '" + (stack[depth - 1] ? '}' : ']') + "'");
+            }
+        }
+
+        if (c == '}' || c == ']') {
+            boolean object = c == '}';
+            if (depth == 0 || stack[depth - 1] != object) {
+                throw error("Unexpected '" + (char) c + "'");
+            }
+            if (afterComma) {
+                throw error("Trailing comma before '" + (char) c + "'");
+            }
+            pos++;
+            depth--;
+            valueDone();
+            return object ? Token.END_OBJECT : Token.END_ARRAY;
+        }
+
+        if (expectName) {
+            if (c != '"') {
+                throw error("Expected a field name");
+            }
+            pos++;
+            readString();
+            if (skipWhitespace() != ':') {
+                throw error("Expected ':' after field name");
+            }
+            pos++;
+            expectName = false;
+            afterComma = false;
+            return Token.FIELD_NAME;
+        }
+
+        afterComma = false;
+        switch (c) {
+            case '{':
+            case '[':
+                pos++;
+                push(c == '{');
+                expectName = c == '{';
+                afterValue = false;
+                return c == '{' ? Token.START_OBJECT : Token.START_ARRAY;
+            case '"':
+                pos++;
+                readString();
+                valueDone();
+                return Token.STRING;
+            case 't':
+                readLiteral("true");
+                valueDone();
+                return Token.TRUE;
+            case 'f':
+                readLiteral("false");
+                valueDone();
+                return Token.FALSE;
+            case 'n':
+                readLiteral("null");
+                valueDone();
+                return Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    readNumber();
+                    valueDone();
+                    return Token.NUMBER;
+                }
+                throw error("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    // Text of the last FIELD_NAME, STRING or NUMBER token
+    public String getText() {
+        return text.toString();
+    }
+
+    public boolean textEquals(String s) {
+        if (text.length() != s.length()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (text.charAt(i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Value of the last NUMBER (or numeric STRING) token as an int
+    public int getInt() throws IOException {
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && text.charAt(0) == '-') {
+            negative = true;
+            i = 1;
+        }
+        if (i == length || length - i > 10) {
+            return parseIntSlow();
+        }
+        long value = 0;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return parseIntSlow();
+            }
+            value = value * 10 + (c - '0');
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw error("Number out of range: " + text);
+        }
+        return (int) value;
+    }
+
+    // Skips the value after a FIELD_NAME (or the next array element), including nested containers
+    public void skipValue() throws IOException {
+        Token token = next();
+        if (token == Token.START_OBJECT || token == Token.START_ARRAY) {
+            int target = depth - 1;
+            while (depth > target) {
+                if (next() == Token.END) {
+                    throw error("Unexpected end of input");
+                }
+            }
+        } else if (token == Token.END_OBJECT || token == Token.END_ARRAY || token == Token.END) {
+            throw error("Expected a value");
+        }
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public long getColumn() {
+        return bufferStart + pos - lineStart + 1;
+    }
+
+    public IOException error(String message) {
+        return new IOException("JSON syntax error at line " + line + ", column " + getColumn() + ": " + message);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void valueDone() {
+        afterValue = true;
+        expectName = false;
+        if (depth == 0) {
+            done = true;
+        }
+    }
+
+    private void push(boolean object) {
+        if (depth == stack.length) {
+            boolean[] grown = new boolean[depth * 2];
+            System.arraycopy(stack, 0, grown, 0, depth);
+            stack = grown;
+        }
+        stack[depth++] = object;
+    }
+
+    // Returns the next non-whitespace char without consuming it, or -1 at end of input
+    private int skipWhitespace() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[pos];
+            if (c == '\n') {
+                line++;
+                lineStart = bufferStart + pos + 1;
+            } else if (c != ' ' && c != '\t' && c != '\r') {
+                return c;
+            }
+            pos++;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        bufferStart += limit;
+        pos = 0;
+        limit = 0;
+        int n;
+        while ((n = reader.read(buffer, 0, buffer.length)) == 0) {
+            // Readers may return 0; keep going until data or end of stream
+        }
+        if (n < 0) {
+            return false;
+        }
+        limit = n;
+        return true;
+    }
+
+    private void readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw error("Unterminated string");
+            }
+            // Copy the run of plain characters in one go
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == '"' || c == '\\' || c < 0x20) {
+                    break;
+                }
+                pos++;
+            }
+            text.append(buffer, start, pos - start);
+            if (pos == limit) {
+                continue;
+            }
+            char c = buffer[pos++];
+            if (c == '"') {
+                return;
+            }
+            if (c < 0x20) {
+                pos--;
+                throw error("Control character in string");
+            }
+            text.append(readEscape());
+        }
+    }
+
+    private char readEscape() throws IOException {
+        char c = nextChar();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(nextChar(), 16);
+                    if (digit < 0) {
+                        throw error("Invalid \\u escape");
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            default:
+                throw error("Invalid escape '\\" + c + "'");
+        }
+    }
+
+    private char nextChar() throws IOException {
+        if (pos == limit && !fill()) {
+            throw error("Unexpected end of input");
+        }
+        return buffer[pos++];
+    }
+
+    private void readNumber() throws IOException {
+        text.setLength(0);
+        while (true) {
+            if (pos == limit && !fill()) {
+                break;
+            }
+            char c = buffer[pos];
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                text.append(c);
+                pos++;
+            } else {
+                break;
+            }
+        }
+        // Full validation happens in getInt() for the fields that are actually used
+        if (text.length() == 0 || (text.length() == 1 && text.charAt(0) == '-')) {
+            throw error("Invalid number");
+        }
+    }
+
+    private void readLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (pos == limit && !fill() || buffer[pos] != literal.charAt(i)) {
+                throw error("Unexpected token, expected '" + literal + "'");
+            }
+            pos++;
+        }
+    }
+
+    // Numbers such as 112.0 or 1.12e2 are accepted as long as they are whole
+    private int parseIntSlow() throws IOException {
+        try {
+            double value = Double.parseDouble(text.toString().trim());
+            if (value == Math.rint(value) && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return (int) value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw error("Expected a whole number, got '" + text + "'");
+    }
+}
@@ -0,0 +1,331 @@
+package birthstats;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process-wide operation metrics: a latency histogram, row and error counts per operation,
+// import batch sizes, connection pool wait times and query cache hit rates. Read through the JMX bean
+// birthstats:type=Metrics, the Diagnostics window, or the optional periodic log line.
+public final class Metrics implements MetricsMXBean {
+    public enum Operation {
+        REFRESH("Refresh"),
+        PAGE_LOAD("Page load"),
+        SEARCH("Search"),
+        INSERT("Insert", true),
+        UPDATE("Update", true),
+        DELETE("Delete", true),
+        IMPORT("Import", true),
+        IMPORT_BATCH("Import batch"),
+        EXPORT("Export"),
+        SAVE("Save changes", true),
+        SUMMARY("Summary"),
+        SUMMARY_CHECK("Summary check"),
+        PIVOT("Pivot");
+
+        private final String label;
+        private final boolean writes;
+
+        Operation(String label) {
+            this(label, false);
+        }
+
+        Operation(String label, boolean writes) {
+            this.label = label;
+            this.writes = writes;
+        }
+
+        // Whether the operation changes BirthStatistics, which makes cached query results stale
+        public boolean writes() {
+            return writes;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    public static final String OBJECT_NAME = "birthstats:type=Metrics";
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    private final Map<Operation, OperationMetrics> operations = new EnumMap<>(Operation.class);
+    private final LatencyHistogram connectionWait = new LatencyHistogram();
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder batchRows = new LongAdder();
+    private final AtomicLong maxBatchRows = new AtomicLong();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder cacheEvictions = new LongAdder();
+    private volatile long cacheEntries;
+    private volatile long cacheBytes;
+    private volatile long resetMillis = System.currentTimeMillis();
+    private ScheduledExecutorService logger;
+
+    private Metrics() {
+        for (Operation op : Operation.values()) {
+            operations.put(op, new OperationMetrics());
+        }
+    }
+
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    // Start time for timing an operation; pass it to record() when the operation ends
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    public void record(Operation op, long startNanos, long rows, boolean failed) {
+        OperationMetrics metrics = operations.get(op);
+        metrics.latency.record(System.nanoTime() - startNanos);
+        metrics.rows.add(rows);
+        if (failed) {
+            metrics.errors.increment();
+        }
+    }
+
+    public void record(Operation op, long startNanos, long rows) {
+        record(op, startNanos, rows, false);
+    }
+
+    // A run the user cancelled: counted on its own and kept out of the latencies and rows/s,
+    // which a partial run would skew
+    public void recordCancelled(Operation op) {
+        operations.get(op).cancelled.increment();
+    }
+
+    // One executeBatch() / bulk write of the given number of rows
+    public void recordBatch(long startNanos, int rows) {
+        record(Operation.IMPORT_BATCH, startNanos, rows);
+        batchCount.increment();
+        batchRows.add(rows);
+        long max;
+        while (rows > (max = maxBatchRows.get()) && !maxBatchRows.compareAndSet(max, rows)) {
+            // Retry until the max is at least this batch
+        }
+    }
+
+    void recordConnectionWait(long nanos) {
+        connectionWait.record(nanos);
+    }
+
+    void recordQueryCacheHit() {
+        cacheHits.increment();
+    }
+
+    void recordQueryCacheMiss() {
+        cacheMisses.increment();
+    }
+
+    void recordQueryCacheEviction() {
+        cacheEvictions.increment();
+    }
+
+    void setQueryCacheSize(long entries, long bytes) {
+        cacheEntries = entries;
+        cacheBytes = bytes;
+    }
+
+    public OperationStats getStats(Operation op) {
+        OperationMetrics metrics = operations.get(op);
+        LatencyHistogram latency = metrics.latency;
+        return new OperationStats(op.toString(), latency.getCount(), metrics.errors.sum(),
+            metrics.cancelled.sum(), metrics.rows.sum(), latency.getMeanMs(), latency.getPercentileMs(50), latency.getPercentileMs(95),
+            latency.getPercentileMs(99), latency.getMaxMs(), latency.getTotalNanos());
+    }
+
+    @Override
+    public OperationStats[] getOperations() {
+        List<OperationStats> stats = new ArrayList<>();
+        for (Operation op : Operation.values()) {
+            stats.add(getStats(op));
+        }
+        return stats.toArray(new OperationStats[0]);
+    }
+
+    @Override
+    public long getImportBatches() {
+        return batchCount.sum();
+    }
+
+    @Override
+    public double getAverageBatchRows() {
+        long batches = batchCount.sum();
+        return batches == 0 ? 0 : (double) batchRows.sum() / batches;
+    }
+
+    @Override
+    public long getMaxBatchRows() {
+        return maxBatchRows.get();
+    }
+
+    @Override
+    public long getConnectionBorrows() {
+        return connectionWait.getCount();
+    }
+
+    @Override
+    public double getConnectionWaitMeanMs() {
+        return connectionWait.getMeanMs();
+    }
+
+    @Override
+    public double getConnectionWaitP99Ms() {
+        return connectionWait.getPercentileMs(99);
+    }
+
+    @Override
+    public double getConnectionWaitMaxMs() {
+        return connectionWait.getMaxMs();
+    }
+
+    @Override
+    public long getQueryCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getQueryCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public double getQueryCacheHitRate() {
+        long hits = cacheHits.sum();
+        long lookups = hits + cacheMisses.sum();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public long getQueryCacheEvictions() {
+        return cacheEvictions.sum();
+    }
+
+    @Override
+    public long getQueryCacheEntries() {
+        return cacheEntries;
+    }
+
+    @Override
+    public long getQueryCacheBytes() {
+        return cacheBytes;
+    }
+
+    @Override
+    public long getTimeToFirstPaintMs() {
+        return StartupMetrics.getTimeToFirstPaintMs();
+    }
+
+    @Override
+    public long getTimeToLiveDataMs() {
+        return StartupMetrics.getTimeToLiveDataMs();
+    }
+
+    @Override
+    public long getSecondsSinceReset() {
+        return (System.currentTimeMillis() - resetMillis) / 1000;
+    }
+
+    @Override
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder("Metrics:");
+        for (Operation op : Operation.values()) {
+            OperationStats stats = getStats(op);
+            if (stats.getCount() == 0 && stats.getCancelled() == 0) {
+                continue;
+            }
+            sb.append(String.format(" %s n=%d p50=%.1fms p99=%.1fms", op, stats.getCount(),
+                stats.getP50Ms(), stats.getP99Ms()));
+            if (stats.getRows() > 0) {
+                sb.append(String.format(" %.0f rows/s", stats.getRowsPerSecond()));
+            }
+            if (stats.getErrors() > 0) {
+                sb.append(" errors=").append(stats.getErrors());
+            }
+            if (stats.getCancelled() > 0) {
+                sb.append(" cancelled=").append(stats.getCancelled());
+            }
+            sb.append(';');
+        }
+        if (batchCount.sum() > 0) {
+            sb.append(String.format(" batch avg=%.0f max=%d rows;", getAverageBatchRows(), getMaxBatchRows()));
+        }
+        if (connectionWait.getCount() > 0) {
+            sb.append(String.format(" conn wait mean=%.2fms p99=%.2fms", getConnectionWaitMeanMs(),
+                getConnectionWaitP99Ms()));
+        }
+        if (cacheHits.sum() + cacheMisses.sum() > 0) {
+            sb.append(String.format(" query cache hits=%.0f%% %d entries %.1fMB;", getQueryCacheHitRate() * 100,
+                cacheEntries, cacheBytes / (1024.0 * 1024.0)));
+        }
+        if (StartupMetrics.getTimeToFirstPaintMs() >= 0) {
+            sb.append(" startup paint=").append(StartupMetrics.getTimeToFirstPaintMs()).append("ms");
+            if (StartupMetrics.getTimeToLiveDataMs() >= 0) {
+                sb.append(" live=").append(StartupMetrics.getTimeToLiveDataMs()).append("ms");
+            }
+            sb.append(';');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (OperationMetrics metrics : operations.values()) {
+            metrics.latency.reset();
+            metrics.rows.reset();
+            metrics.errors.reset();
+            metrics.cancelled.reset();
+        }
+        connectionWait.reset();
+        batchCount.reset();
+        batchRows.reset();
+        maxBatchRows.set(0);
+        cacheHits.reset();
+        cacheMisses.reset();
+        cacheEvictions.reset();
+        resetMillis = System.currentTimeMillis();
+    }
+
+    void registerMBean() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            }
+        } catch (Exception e) {
+            System.err.println("Could not register metrics MBean: " + e.getMessage());
+        }
+    }
+
+    // Print the summary line every intervalSeconds; 0 or less disables it
+    synchronized void startLogging(int intervalSeconds) {
+        if (intervalSeconds <= 0 || logger != null) {
+            return;
+        }
+        logger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-log");
+            t.setDaemon(true);
+            return t;
+        });
+        logger.scheduleAtFixedRate(() -> System.out.println(getSummary()),
+            intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private static final class OperationMetrics {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder rows = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder cancelled = new LongAdder();
+    }
+}
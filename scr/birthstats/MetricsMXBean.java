@@ -0,0 +1,42 @@
+package birthstats;
+
+// JMX view of Metrics, registered as birthstats:type=Metrics (see jconsole or VisualVM)
+public interface MetricsMXBean {
+    OperationStats[] getOperations();
+
+    long getImportBatches();
+
+    double getAverageBatchRows();
+
+    long getMaxBatchRows();
+
+    long getConnectionBorrows();
+
+    double getConnectionWaitMeanMs();
+
+    double getConnectionWaitP99Ms();
+
+    double getConnectionWaitMaxMs();
+
+    long getQueryCacheHits();
+
+    long getQueryCacheMisses();
+
+    double getQueryCacheHitRate();
+
+    long getQueryCacheEvictions();
+
+    long getQueryCacheEntries();
+
+    long getQueryCacheBytes();
+
+    long getTimeToFirstPaintMs();
+
+    long getTimeToLiveDataMs();
+
+    long getSecondsSinceReset();
+
+    String getSummary();
+
+    void reset();
+}
@@ -0,0 +1,102 @@
+package birthstats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Substring index over a set of distinct strings, such as the area names.
+// Every value is split into single characters and bigrams; a query looks up the rarest of its
+// grams and only verifies those candidates with contains(). Matching is case-insensitive.
+public class NGramIndex {
+    private final String[] values;
+    private final String[] folded;
+    private final Map<String, int[]> postings = new HashMap<>();
+
+    public NGramIndex(Collection<String> distinctValues) {
+        Set<String> unique = new HashSet<>();
+        List<String> kept = new ArrayList<>();
+        for (String value : distinctValues) {
+            if (value != null && unique.add(value)) {
+                kept.add(value);
+            }
+        }
+        values = kept.toArray(new String[0]);
+        folded = new String[values.length];
+
+        Map<String, List<Integer>> lists = new HashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            folded[i] = values[i].toLowerCase(Locale.ROOT);
+            for (String gram : grams(folded[i])) {
+                lists.computeIfAbsent(gram, g -> new ArrayList<>()).add(i);
+            }
+        }
+        for (Map.Entry<String, List<Integer>> e : lists.entrySet()) {
+            List<Integer> ids = e.getValue();
+            int[] posting = new int[ids.size()];
+            for (int i = 0; i < posting.length; i++) {
+                posting[i] = ids.get(i);
+            }
+            postings.put(e.getKey(), posting);
+        }
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    // All indexed values containing the given text
+    public List<String> search(String text) {
+        String query = text.toLowerCase(Locale.ROOT);
+        if (query.isEmpty()) {
+            return new ArrayList<>(Arrays.asList(values));
+        }
+
+        int[] candidates = null;
+        for (String gram : queryGrams(query)) {
+            int[] posting = postings.get(gram);
+            if (posting == null) {
+                return new ArrayList<>();
+            }
+            if (candidates == null || posting.length < candidates.length) {
+                candidates = posting;
+            }
+        }
+
+        List<String> matches = new ArrayList<>();
+        for (int id : candidates) {
+            if (folded[id].contains(query)) {
+                matches.add(values[id]);
+            }
+        }
+        return matches;
+    }
+
+    private static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i < value.length(); i++) {
+            grams.add(value.substring(i, i + 1));
+            if (i + 1 < value.length()) {
+                grams.add(value.substring(i, i + 2));
+            }
+        }
+        return grams;
+    }
+
+    // A one-character query uses its unigram; longer queries only need their bigrams
+    private static Set<String> queryGrams(String query) {
+        if (query.length() == 1) {
+            return grams(query);
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 1 < query.length(); i++) {
+            grams.add(query.substring(i, i + 2));
+        }
+        return grams;
+    }
+}
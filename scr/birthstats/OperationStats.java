@@ -0,0 +1,85 @@
+package birthstats;
+
+import java.beans.ConstructorProperties;
+
+// Snapshot of one operation's metrics; exposed over JMX as a composite value
+public final class OperationStats {
+    private final String name;
+    private final long count;
+    private final long errors;
+    private final long cancelled;
+    private final long rows;
+    private final double meanMs;
+    private final double p50Ms;
+    private final double p95Ms;
+    private final double p99Ms;
+    private final double maxMs;
+    private final long totalNanos;
+
+    @ConstructorProperties({"name", "count", "errors", "cancelled", "rows", "meanMs", "p50Ms", "p95Ms", "p99Ms",
+        "maxMs", "totalNanos"})
+    public OperationStats(String name, long count, long errors, long cancelled, long rows, double meanMs,
+                          double p50Ms, double p95Ms, double p99Ms, double maxMs, long totalNanos) {
+        this.name = name;
+        this.count = count;
+        this.errors = errors;
+        this.cancelled = cancelled;
+        this.rows = rows;
+        this.meanMs = meanMs;
+        this.p50Ms = p50Ms;
+        this.p95Ms = p95Ms;
+        this.p99Ms = p99Ms;
+        this.maxMs = maxMs;
+        this.totalNanos = totalNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    // Runs stopped by the user; not part of count or the latencies
+    public long getCancelled() {
+        return cancelled;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public double getMeanMs() {
+        return meanMs;
+    }
+
+    public double getP50Ms() {
+        return p50Ms;
+    }
+
+    public double getP95Ms() {
+        return p95Ms;
+    }
+
+    public double getP99Ms() {
+        return p99Ms;
+    }
+
+    public double getMaxMs() {
+        return maxMs;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    // Rows per second of time spent inside the operation, not wall-clock throughput
+    public double getRowsPerSecond() {
+        return totalNanos == 0 ? 0 : rows * 1e9 / totalNanos;
+    }
+}
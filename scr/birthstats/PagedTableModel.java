@@ -0,0 +1,706 @@
+package birthstats;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// Virtual table model over BirthStatistics.
+// Only the row count and the first ID of every page are loaded up front; pages are fetched
+// on demand with keyset queries (WHERE ID >= ? AND ID < next page's first ID) and kept in a
+// small LRU cache, with the neighbouring pages prefetched. Cache and page bookkeeping are
+// only touched on the EDT.
+// Single-row writes patch the index and the cached pages in place (insertRow, updateRow,
+// removeRow), and rows added after the index was loaded are appended with loadIndexTail, so
+// the grid keeps its scroll position and selection instead of reloading.
+// Page indexes and pages are also kept in the shared QueryCache, which outlives setIndex(), so
+// a repeated search or Refresh and scrolling back to rows seen before skip the database.
+// Cells are editable: edits go to a ChangeSet that is overlaid on the pages, and new rows are
+// shown after the loaded ones until they are saved.
+public class PagedTableModel extends AbstractTableModel {
+    static final String[] COLUMNS = {"ID", "Year", "Record Type", "Area Code", "Area Name",
+                                     "Gender", "Birth Weight", "Multiple Birth", "Birth Count"};
+    private static final String SELECT_COLUMNS =
+        "ID, StatYear, RecordType, AreaCode, AreaName, Gender, BirthWeight, MultipleBirth, BirthCount";
+    // Older requests are dropped when the user scrolls faster than pages load
+    private static final int MAX_PENDING_PAGES = 8;
+
+    private final ConnectionSource connections;
+    private final QueryCache queryCache;
+    private final int pageSize;
+    private final int cachePages;
+    private final ExecutorService loader;
+
+    private PageIndex index = PageIndex.EMPTY;
+    private boolean showingCachedRows;
+    private final Map<Integer, Object[][]> cache;
+    private final Set<Integer> requested = new HashSet<>();
+    private final Deque<PageRequest> pending = new ArrayDeque<>();  // guarded by itself
+    private final ChangeSet changes = new ChangeSet();
+    private boolean editable = true;
+
+    public PagedTableModel(ConnectionSource connections, QueryCache queryCache, int pageSize, int cachePages) {
+        this.connections = connections;
+        this.queryCache = queryCache;
+        this.pageSize = Math.max(1, pageSize);
+        this.cachePages = Math.max(3, cachePages);
+        this.cache = new LinkedHashMap<Integer, Object[][]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Object[][]> eldest) {
+                return size() > PagedTableModel.this.cachePages;
+            }
+        };
+        this.loader = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "table-page-loader");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // A filter is a SQL boolean expression over BirthStatistics plus its parameters
+    public static final class Filter {
+        public static final Filter NONE = new Filter("", new Object[0]);
+
+        final String where;
+        final Object[] params;
+
+        public Filter(String where, Object[] params) {
+            this.where = where;
+            this.params = params;
+        }
+
+        // The filter's part of a QueryCache key
+        String key() {
+            StringBuilder sb = new StringBuilder(where);
+            for (Object param : params) {
+                sb.append('\u0000').append(param);
+            }
+            return sb.toString();
+        }
+    }
+
+    // Row count, the first ID and first row of every page, and the highest ID for one filter.
+    // Pages start out pageSize rows long; deletes shrink them and inserts grow the last one.
+    public static final class PageIndex {
+        static final PageIndex EMPTY = new PageIndex(Filter.NONE, 0, new int[0], new int[0], 0);
+
+        final Filter filter;
+        final int rowCount;
+        final int[] pageStartIds;
+        final int[] pageFirstRows;
+        final int maxId;          // rows with a higher ID were added after the index was loaded
+
+        PageIndex(Filter filter, int rowCount, int[] pageStartIds, int[] pageFirstRows, int maxId) {
+            this.filter = filter;
+            this.rowCount = rowCount;
+            this.pageStartIds = pageStartIds;
+            this.pageFirstRows = pageFirstRows;
+            this.maxId = maxId;
+        }
+
+        int pageRows(int page) {
+            return (page + 1 < pageFirstRows.length ? pageFirstRows[page + 1] : rowCount) - pageFirstRows[page];
+        }
+
+        // The page holding a row number, or -1
+        int pageOfRow(int row) {
+            int page = Arrays.binarySearch(pageFirstRows, row);
+            if (page < 0) {
+                return -page - 2;
+            }
+            // Empty pages share their first row with the next page
+            while (page + 1 < pageFirstRows.length && pageFirstRows[page + 1] == row) {
+                page++;
+            }
+            return page;
+        }
+
+        // The page whose ID range holds an ID, or -1
+        int pageOfId(int id) {
+            int page = Arrays.binarySearch(pageStartIds, id);
+            return page < 0 ? -page - 2 : page;
+        }
+    }
+
+    // Runs the count and page-key queries; call from a background thread, then pass the result
+    // to setIndex(). Each statement is handed to onStatement first so the caller can cancel it.
+    public PageIndex loadIndex(Connection conn, Filter filter, Consumer<Statement> onStatement) throws SQLException {
+        long version = QueryCache.dataVersion();
+        PageIndex loaded = loadIndex(conn, filter, null, onStatement);
+        queryCache.put(indexKey(filter), loaded, 64 + 8L * loaded.pageStartIds.length, version);
+        return loaded;
+    }
+
+    // The index loadIndex() would return, if it is still cached; safe to call from any thread
+    public PageIndex getCachedIndex(Filter filter) {
+        return (PageIndex) queryCache.get(indexKey(filter));
+    }
+
+    private String indexKey(Filter filter) {
+        return "index\u0000" + pageSize + "\u0000" + filter.key();
+    }
+
+    private static String pageKey(PageIndex forIndex, int page) {
+        int end = page + 1 < forIndex.pageStartIds.length ? forIndex.pageStartIds[page + 1] : -1;
+        return "page\u0000" + forIndex.pageStartIds[page] + "\u0000" + end + "\u0000" + forIndex.pageRows(page) +
+            "\u0000" + forIndex.filter.key();
+    }
+
+    // Indexes only the rows with an ID above base.maxId, i.e. the ones added since base was
+    // loaded; pass the result to appendIndex()
+    public PageIndex loadIndexTail(Connection conn, PageIndex base, Consumer<Statement> onStatement)
+            throws SQLException {
+        return loadIndex(conn, base.filter, base.maxId, onStatement);
+    }
+
+    private PageIndex loadIndex(Connection conn, Filter filter, Integer afterId, Consumer<Statement> onStatement)
+            throws SQLException {
+        String where = afterId == null ? filter.where
+            : filter.where.isEmpty() ? "ID > ?" : "ID > ? AND (" + filter.where + ")";
+        where = where.isEmpty() ? "" : " WHERE " + where;
+        String sql = "SELECT ID FROM (" +
+            "SELECT ID, ROW_NUMBER() OVER (ORDER BY ID) - 1 AS RowNum FROM BirthStatistics" + where +
+            ") keys WHERE RowNum % ? = 0 ORDER BY ID";
+        List<Integer> starts = new ArrayList<>();
+        int rowCount;
+        int maxId = afterId == null ? 0 : afterId;
+
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT COUNT(*), MAX(ID) FROM BirthStatistics" + where)) {
+            onStatement.accept(stmt);
+            bindFilter(stmt, filter, afterId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                rowCount = rs.getInt(1);
+                int max = rs.getInt(2);
+                if (!rs.wasNull()) {
+                    maxId = max;
+                }
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            onStatement.accept(stmt);
+            int next = bindFilter(stmt, filter, afterId);
+            stmt.setInt(next, pageSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    starts.add(rs.getInt(1));
+                }
+            }
+        }
+
+        int[] pageStartIds = new int[starts.size()];
+        int[] pageFirstRows = new int[starts.size()];
+        for (int i = 0; i < pageStartIds.length; i++) {
+            pageStartIds[i] = starts.get(i);
+            pageFirstRows[i] = i * pageSize;
+        }
+        return new PageIndex(filter, rowCount, pageStartIds, pageFirstRows, maxId);
+    }
+
+    private static int bindFilter(PreparedStatement stmt, Filter filter, Integer afterId) throws SQLException {
+        int next = 1;
+        if (afterId != null) {
+            stmt.setInt(next++, afterId);
+        }
+        return bind(stmt, filter.params, next);
+    }
+
+    // Installs a freshly loaded index and drops every cached page
+    public void setIndex(PageIndex newIndex) {
+        index = newIndex;
+        showingCachedRows = false;
+        cache.clear();
+        requested.clear();
+        synchronized (pending) {
+            pending.clear();
+        }
+        fireTableDataChanged();
+    }
+
+    public void clear() {
+        setIndex(PageIndex.EMPTY);
+    }
+
+    // Drops the cached pages but keeps the index, for writes that changed values in place; the
+    // rows on screen are fetched again and keep their position
+    public void invalidatePages() {
+        patchIndex(new PageIndex(index.filter, index.rowCount, index.pageStartIds, index.pageFirstRows,
+            index.maxId));
+        cache.clear();
+        if (index.rowCount > 0) {
+            fireTableRowsUpdated(0, index.rowCount - 1);
+        }
+    }
+
+    // Adds the rows found by loadIndexTail() after the indexed ones. Returns false, changing
+    // nothing, when the index was replaced since base was taken.
+    public boolean appendIndex(PageIndex base, PageIndex tail) {
+        if (index != base || showingCachedRows) {
+            return false;
+        }
+        if (tail.rowCount == 0) {
+            return true;
+        }
+        int pages = base.pageStartIds.length;
+        int[] starts = Arrays.copyOf(base.pageStartIds, pages + tail.pageStartIds.length);
+        int[] firstRows = Arrays.copyOf(base.pageFirstRows, starts.length);
+        for (int i = 0; i < tail.pageStartIds.length; i++) {
+            starts[pages + i] = tail.pageStartIds[i];
+            firstRows[pages + i] = base.rowCount + tail.pageFirstRows[i];
+        }
+        patchIndex(new PageIndex(base.filter, base.rowCount + tail.rowCount, starts, firstRows,
+            Math.max(base.maxId, tail.maxId)));
+        fireTableRowsInserted(base.rowCount, index.rowCount - 1);
+        return true;
+    }
+
+    // Shows a row the caller has just inserted, given its generated ID. Only the unfiltered
+    // view can take it without asking the database whether the row matches, and only a new
+    // highest ID belongs at the end; otherwise returns false and the caller appends the rows
+    // with loadIndexTail() instead.
+    public boolean insertRow(Object[] row) {
+        row = asLoaded(row);
+        int id = (Integer) row[0];
+        if (showingCachedRows || index.filter != Filter.NONE || id <= index.maxId) {
+            return false;
+        }
+        int pages = index.pageStartIds.length;
+        int last = pages - 1;
+        int[] starts = index.pageStartIds;
+        int[] firstRows = index.pageFirstRows;
+        if (pages == 0 || index.pageRows(last) >= pageSize) {
+            starts = Arrays.copyOf(starts, pages + 1);
+            firstRows = Arrays.copyOf(firstRows, pages + 1);
+            starts[pages] = id;
+            firstRows[pages] = index.rowCount;
+            cache.put(pages, new Object[][] {row});
+        } else {
+            Object[][] rows = cache.get(last);
+            if (rows != null) {
+                rows = Arrays.copyOf(rows, rows.length + 1);
+                rows[rows.length - 1] = row;
+                cache.put(last, rows);
+            }
+        }
+        int added = index.rowCount;
+        patchIndex(new PageIndex(index.filter, index.rowCount + 1, starts, firstRows, id));
+        fireTableRowsInserted(added, added);
+        return true;
+    }
+
+    // Replaces a row after an update. It stays in place even if it no longer matches the
+    // filter, until the next reload.
+    public void updateRow(Object[] row) {
+        row = asLoaded(row);
+        int page = index.pageOfId((Integer) row[0]);
+        Object[][] rows = page < 0 ? null : cache.get(page);
+        int offset = rows == null ? -1 : offsetOf(rows, (Integer) row[0]);
+        if (offset >= 0) {
+            rows = rows.clone();  // The QueryCache may share the old array
+            rows[offset] = row;
+            cache.put(page, rows);
+            int changed = index.pageFirstRows[page] + offset;
+            fireTableRowsUpdated(changed, changed);
+        }
+    }
+
+    // Takes a deleted row out of the index and its page; the rows after it move up by one.
+    // Returns false when it cannot tell whether the row is in this view (its page is not loaded
+    // and a filter is set), and the caller should reload instead.
+    public boolean removeRow(int id) {
+        int page = showingCachedRows || id > index.maxId ? -1 : index.pageOfId(id);
+        if (page < 0 || index.pageRows(page) == 0) {
+            return true;  // Not indexed
+        }
+        Object[][] rows = cache.get(page);
+        int offset = -1;
+        if (rows != null) {
+            offset = offsetOf(rows, id);
+            if (offset < 0) {
+                return true;  // Not in this view
+            }
+            Object[][] remaining = new Object[rows.length - 1][];
+            System.arraycopy(rows, 0, remaining, 0, offset);
+            System.arraycopy(rows, offset + 1, remaining, offset, remaining.length - offset);
+            cache.put(page, remaining);
+        } else if (index.filter != Filter.NONE) {
+            return false;
+        }
+        int[] firstRows = index.pageFirstRows.clone();
+        for (int i = page + 1; i < firstRows.length; i++) {
+            firstRows[i]--;
+        }
+        patchIndex(new PageIndex(index.filter, index.rowCount - 1, index.pageStartIds, firstRows, index.maxId));
+        if (offset >= 0) {
+            int removed = firstRows[page] + offset;
+            fireTableRowsDeleted(removed, removed);
+        } else {
+            fireTableDataChanged();
+        }
+        return true;
+    }
+
+    // Installs a patched index over the same pages. Page loads still in flight were started
+    // for the old index and are dropped, so visible pages are requested again when painted.
+    private void patchIndex(PageIndex patched) {
+        index = patched;
+        requested.clear();
+        synchronized (pending) {
+            pending.clear();
+        }
+    }
+
+    // The row as readRow() would return it after the write, which reads NULL integers as 0
+    private static Object[] asLoaded(Object[] row) {
+        Object[] loaded = row.clone();
+        for (int column : new int[] {1, 8}) {
+            if (loaded[column] == null) {
+                loaded[column] = 0;
+            }
+        }
+        return loaded;
+    }
+
+    // Pages are sorted by ID
+    private static int offsetOf(Object[][] rows, int id) {
+        int low = 0;
+        int high = rows.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = (Integer) rows[mid][0];
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // Shows rows saved by an earlier session as a single page until setIndex() installs live
+    // data. Nothing is fetched from the database while they are shown.
+    public void showCachedRows(Object[][] rows) {
+        Object[][] page = rows.length > pageSize ? Arrays.copyOf(rows, pageSize) : rows;
+        setIndex(new PageIndex(Filter.NONE, page.length, new int[] {(Integer) page[0][0]}, new int[] {0},
+            (Integer) page[page.length - 1][0]));
+        showingCachedRows = true;
+        cache.put(0, page);
+        fireTableDataChanged();
+    }
+
+    public boolean isShowingCachedRows() {
+        return showingCachedRows;
+    }
+
+    // A page that is already in memory, or null; never triggers a fetch
+    public Object[][] getLoadedPage(int page) {
+        return cache.get(page);
+    }
+
+    public Filter getFilter() {
+        return index.filter;
+    }
+
+    public PageIndex getIndex() {
+        return index;
+    }
+
+    public ChangeSet getChanges() {
+        return changes;
+    }
+
+    // Turned off while a save runs, so the change set cannot move under it
+    public void setEditable(boolean editable) {
+        this.editable = editable;
+    }
+
+    @Override
+    public int getRowCount() {
+        return index.rowCount + changes.getInsertedCount();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 0 || column == 1 || column == 8 ? Integer.class : String.class;
+    }
+
+    // Every column but the ID, on rows that are loaded and not marked for deletion
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        if (!editable || showingCachedRows || column == 0) {
+            return false;
+        }
+        Object[] values = getRow(row);
+        return values != null && (isInserted(row) || !changes.isDeleted((Integer) values[0]));
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        if (!isCellEditable(row, column)) {
+            return;
+        }
+        if (value instanceof String && ((String) value).isEmpty()) {
+            value = null;
+        }
+        if (isInserted(row)) {
+            changes.getInserted(row - index.rowCount)[column] = value;
+        } else {
+            changes.setValue(getLoadedRow(row), column, value);
+        }
+        fireTableCellUpdated(row, column);
+    }
+
+    // Appends an empty new row and returns its index
+    public int addRow() {
+        changes.addRow();
+        int row = getRowCount() - 1;
+        fireTableRowsInserted(row, row);
+        return row;
+    }
+
+    // Marks loaded rows for deletion, or unmarks them; new rows are simply dropped
+    public void toggleDeleted(int[] rows) {
+        if (!editable || showingCachedRows) {
+            return;
+        }
+        int[] sorted = rows.clone();
+        Arrays.sort(sorted);
+        for (int i = sorted.length - 1; i >= 0; i--) {
+            int row = sorted[i];
+            if (isInserted(row)) {
+                changes.removeInserted(row - index.rowCount);
+                fireTableRowsDeleted(row, row);
+            } else if (getLoadedRow(row) != null) {
+                changes.toggleDeleted(getLoadedRow(row));
+                fireTableRowsUpdated(row, row);
+            }
+        }
+    }
+
+    public void discardChanges() {
+        changes.clear();
+        fireTableDataChanged();
+    }
+
+    public boolean isInserted(int row) {
+        return row >= index.rowCount && row < getRowCount();
+    }
+
+    public boolean isDeleted(int row) {
+        Object[] values = isInserted(row) ? null : getLoadedRow(row);
+        return values != null && changes.isDeleted((Integer) values[0]);
+    }
+
+    public boolean isDirty(int row, int column) {
+        if (isInserted(row)) {
+            return true;
+        }
+        Object[] values = getLoadedRow(row);
+        return values != null && changes.isDirty((Integer) values[0], column);
+    }
+
+    public boolean isRowLoaded(int row) {
+        return getRow(row) != null;
+    }
+
+    // Returns null while the row's page is still loading
+    @Override
+    public Object getValueAt(int row, int column) {
+        Object[] values = getRow(row);
+        return values == null ? null : values[column];
+    }
+
+    // The row as shown, with unsaved edits applied
+    public Object[] getRow(int row) {
+        if (isInserted(row)) {
+            return changes.getInserted(row - index.rowCount);
+        }
+        Object[] values = getLoadedRow(row);
+        return values == null ? null : changes.overlay(values);
+    }
+
+    // The row as the database returned it
+    private Object[] getLoadedRow(int row) {
+        int page = index.pageOfRow(row);
+        if (page < 0) {
+            return null;
+        }
+        Object[][] rows = cache.get(page);
+        if (rows == null && !showingCachedRows) {
+            rows = (Object[][]) queryCache.getIfCached(pageKey(index, page));
+            if (rows != null) {
+                cache.put(page, rows);
+            }
+        }
+        if (rows == null) {
+            requestPage(page);
+            requestPage(page + 1);
+            requestPage(page - 1);
+            return null;
+        }
+        int offset = row - index.pageFirstRows[page];
+        return offset < rows.length ? rows[offset] : null;
+    }
+
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    private void requestPage(int page) {
+        if (page < 0 || page >= index.pageStartIds.length || cache.containsKey(page) || !requested.add(page)) {
+            return;
+        }
+        synchronized (pending) {
+            pending.addFirst(new PageRequest(index, page));
+            if (pending.size() > MAX_PENDING_PAGES) {
+                requested.remove(pending.removeLast().page);
+            }
+        }
+        loader.execute(this::loadNextPage);
+    }
+
+    // Loads the most recently requested page, so the rows on screen win over stale prefetches
+    private void loadNextPage() {
+        PageRequest request;
+        synchronized (pending) {
+            request = pending.pollFirst();
+        }
+        if (request == null) {
+            return;
+        }
+        PageIndex forIndex = request.index;
+        int page = request.page;
+
+        Object[][] rows;
+        try {
+            rows = fetchPage(forIndex, page);
+        } catch (SQLException e) {
+            int first = forIndex.pageFirstRows[page];
+            System.err.println("Error loading rows " + first + "-" + (first + forIndex.pageRows(page) - 1)
+                + ": " + e.getMessage());
+            SwingUtilities.invokeLater(() -> {
+                if (index == forIndex) {
+                    requested.remove(page);
+                }
+            });
+            return;
+        }
+
+        SwingUtilities.invokeLater(() -> {
+            if (index != forIndex) {
+                return;  // Reloaded or filtered meanwhile
+            }
+            requested.remove(page);
+            cache.put(page, rows);
+            int first = index.pageFirstRows[page];
+            int last = first + index.pageRows(page) - 1;
+            if (last >= first) {
+                fireTableRowsUpdated(first, last);
+            }
+        });
+    }
+
+    // A page ends where the next one starts, so rows added or removed elsewhere cannot shift it
+    private Object[][] fetchPage(PageIndex forIndex, int page) throws SQLException {
+        int pageRows = forIndex.pageRows(page);
+        if (pageRows == 0) {
+            return new Object[0][];
+        }
+        String key = pageKey(forIndex, page);
+        Object[][] cached = (Object[][]) queryCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long version = QueryCache.dataVersion();
+        boolean bounded = page + 1 < forIndex.pageStartIds.length;
+        String sql = "SELECT TOP (?) " + SELECT_COLUMNS + " FROM BirthStatistics WHERE ID >= ?" +
+            (bounded ? " AND ID < ?" : "") +
+            (forIndex.filter.where.isEmpty() ? "" : " AND (" + forIndex.filter.where + ")") +
+            " ORDER BY ID";
+        List<Object[]> rows = new ArrayList<>(pageRows);
+        long start = Metrics.start();
+        boolean completed = false;
+        try (Connection conn = connections.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, pageRows);
+            stmt.setInt(2, forIndex.pageStartIds[page]);
+            int next = 3;
+            if (bounded) {
+                stmt.setInt(next++, forIndex.pageStartIds[page + 1]);
+            }
+            bind(stmt, forIndex.filter.params, next);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(readRow(rs));
+                }
+            }
+            completed = true;
+        } finally {
+            Metrics.getInstance().record(Metrics.Operation.PAGE_LOAD, start, rows.size(), !completed);
+        }
+        Object[][] loaded = rows.toArray(new Object[0][]);
+        queryCache.put(key, loaded, QueryCache.sizeOf(loaded), version);
+        return loaded;
+    }
+
+    // One grid row from a result set over SELECT_COLUMNS
+    static Object[] readRow(ResultSet rs) throws SQLException {
+        return new Object[] {
+            rs.getInt(1),
+            rs.getInt(2),
+            rs.getString(3),
+            rs.getString(4),
+            rs.getString(5),
+            rs.getString(6),
+            rs.getString(7),
+            rs.getString(8),
+            rs.getInt(9)
+        };
+    }
+
+    private static final class PageRequest {
+        final PageIndex index;
+        final int page;
+
+        PageRequest(PageIndex index, int page) {
+            this.index = index;
+            this.page = page;
+        }
+    }
+
+    private static int bind(PreparedStatement stmt, Object[] params, int first) throws SQLException {
+        int i = first;
+        for (Object param : params) {
+            stmt.setObject(i++, param);
+        }
+        return i;
+    }
+}
@@ -0,0 +1,243 @@
+package birthstats;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+// Pivot view over the columnar cache: pick the row dimensions, an optional column dimension and
+// a measure. Aggregation runs in the background as a task of the main window; results are cheap
+// enough to re-pivot freely.
+public class PivotPanel extends JPanel {
+    private static final BirthColumn[] DIMENSIONS = {
+        BirthColumn.STAT_YEAR, BirthColumn.RECORD_TYPE, BirthColumn.AREA_CODE, BirthColumn.AREA_NAME,
+        BirthColumn.GENDER, BirthColumn.BIRTH_WEIGHT, BirthColumn.MULTIPLE_BIRTH
+    };
+    private static final String[] MEASURES = {"Total births", "Records", "Average births per record"};
+
+    private final ColumnarTable table;
+    private final Predicate<DatabaseTask<?, ?>> taskRunner;
+    private final AggregationEngine engine = new AggregationEngine();
+    private final Map<BirthColumn, JCheckBox> rowChecks = new LinkedHashMap<>();
+    private final JComboBox<Object> columnCombo = new JComboBox<>();
+    private final JComboBox<String> measureCombo = new JComboBox<>(MEASURES);
+    private final JButton runBtn = new JButton("Run");
+    private final JLabel statusLabel = new JLabel(" ");
+    private final PivotTableModel model = new PivotTableModel();
+
+    // taskRunner starts a task, or returns false when another one is still running
+    public PivotPanel(ColumnarTable table, Predicate<DatabaseTask<?, ?>> taskRunner) {
+        super(new BorderLayout(5, 5));
+        this.table = table;
+        this.taskRunner = taskRunner;
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JPanel rowPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        rowPanel.add(new JLabel("Rows:"));
+        for (BirthColumn column : DIMENSIONS) {
+            JCheckBox check = new JCheckBox(column.getLabel());
+            rowChecks.put(column, check);
+            rowPanel.add(check);
+        }
+        rowChecks.get(BirthColumn.GENDER).setSelected(true);
+
+        columnCombo.addItem("(none)");
+        for (BirthColumn column : DIMENSIONS) {
+            columnCombo.addItem(column);
+        }
+        columnCombo.setSelectedItem(BirthColumn.BIRTH_WEIGHT);
+
+        JPanel optionPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        optionPanel.add(new JLabel("Columns:"));
+        optionPanel.add(columnCombo);
+        optionPanel.add(new JLabel("Measure:"));
+        optionPanel.add(measureCombo);
+        optionPanel.add(runBtn);
+
+        JPanel controls = new JPanel(new GridLayout(2, 1, 0, 5));
+        controls.add(rowPanel);
+        controls.add(optionPanel);
+
+        JTable resultTable = new JTable(model);
+        resultTable.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        add(controls, BorderLayout.NORTH);
+        add(new JScrollPane(resultTable), BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+
+        runBtn.addActionListener(e -> runPivot());
+        measureCombo.addActionListener(e -> model.setMeasure(measureCombo.getSelectedIndex()));
+    }
+
+    public static void showDialog(Component parent, ColumnarTable table, Predicate<DatabaseTask<?, ?>> taskRunner) {
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(parent), "Pivot", Dialog.ModalityType.MODELESS);
+        PivotPanel panel = new PivotPanel(table, taskRunner);
+        dialog.add(panel);
+        dialog.setSize(1000, 600);
+        dialog.setLocationRelativeTo(parent);
+        dialog.setVisible(true);
+        panel.runPivot();
+    }
+
+    private void runPivot() {
+        List<BirthColumn> rowDims = new ArrayList<>();
+        for (Map.Entry<BirthColumn, JCheckBox> e : rowChecks.entrySet()) {
+            if (e.getValue().isSelected()) {
+                rowDims.add(e.getKey());
+            }
+        }
+        BirthColumn columnDim = columnCombo.getSelectedItem() instanceof BirthColumn
+            ? (BirthColumn) columnCombo.getSelectedItem() : null;
+        if (rowDims.contains(columnDim)) {
+            columnDim = null;
+        }
+        List<BirthColumn> groupBy = new ArrayList<>(rowDims);
+        if (columnDim != null) {
+            groupBy.add(columnDim);
+        }
+
+        BirthColumn pivotColumn = columnDim;
+        DatabaseTask<AggregationEngine.Result, Void> task =
+                new DatabaseTask<AggregationEngine.Result, Void>("Aggregating", Metrics.Operation.PIVOT) {
+            @Override
+            protected AggregationEngine.Result runInBackground() {
+                AggregationEngine.Result result = engine.aggregate(table, groupBy);
+                addRows(result.rowsScanned);
+                return result;
+            }
+
+            @Override
+            protected void succeeded(AggregationEngine.Result result) {
+                runBtn.setEnabled(true);
+                model.setResult(result, rowDims.size(), pivotColumn != null, measureCombo.getSelectedIndex());
+                statusLabel.setText(String.format("%,d rows, %,d groups in %.1f ms",
+                    result.rowsScanned, result.size(), result.getElapsedMs()));
+            }
+
+            @Override
+            protected void failed(Throwable cause) {
+                runBtn.setEnabled(true);
+                statusLabel.setText("Aggregation failed: " + cause.getMessage());
+                cause.printStackTrace();
+            }
+
+            @Override
+            protected void cancelled() {
+                runBtn.setEnabled(true);
+                statusLabel.setText("Aggregation cancelled");
+            }
+        };
+        if (taskRunner.test(task)) {
+            runBtn.setEnabled(false);
+            statusLabel.setText("Aggregating...");
+        }
+    }
+
+    // Lays the flat group list out as a cross tab: one row per row-dimension combination, one
+    // column per value of the column dimension, plus a row total
+    private static final class PivotTableModel extends AbstractTableModel {
+        private String[] rowHeaders = new String[0];
+        private List<String> columnValues = new ArrayList<>();
+        private List<String[]> rowKeys = new ArrayList<>();
+        private long[][] sums = new long[0][];
+        private long[][] counts = new long[0][];
+        private int measure;
+
+        void setResult(AggregationEngine.Result result, int rowDimCount, boolean pivoted, int measure) {
+            this.measure = measure;
+            rowHeaders = new String[rowDimCount];
+            for (int d = 0; d < rowDimCount; d++) {
+                rowHeaders[d] = result.groupBy.get(d).getLabel();
+            }
+
+            // Groups arrive ordered by the row dimensions; the column values are ordered by code
+            TreeMap<Integer, String> columnCodes = new TreeMap<>();
+            Map<String, Integer> rowIndex = new LinkedHashMap<>();
+            List<String[]> keys = new ArrayList<>();
+            for (int g = 0; g < result.size(); g++) {
+                if (pivoted) {
+                    columnCodes.put(result.codes[g][rowDimCount], result.keys[g][rowDimCount]);
+                }
+                String[] rowKey = Arrays.copyOf(result.keys[g], rowDimCount);
+                if (rowIndex.putIfAbsent(String.join("\u0000", rowKey), rowIndex.size()) == null) {
+                    keys.add(rowKey);
+                }
+            }
+            columnValues = new ArrayList<>(columnCodes.values());
+            Map<String, Integer> columnIndex = new LinkedHashMap<>();
+            for (String value : columnValues) {
+                columnIndex.put(value, columnIndex.size());
+            }
+            int width = columnValues.size() + 1;
+            sums = new long[keys.size()][width];
+            counts = new long[keys.size()][width];
+            for (int g = 0; g < result.size(); g++) {
+                String[] rowKey = Arrays.copyOf(result.keys[g], rowDimCount);
+                int r = rowIndex.get(String.join("\u0000", rowKey));
+                if (pivoted) {
+                    int c = columnIndex.get(result.keys[g][rowDimCount]);
+                    sums[r][c] += result.sums[g];
+                    counts[r][c] += result.counts[g];
+                }
+                sums[r][width - 1] += result.sums[g];
+                counts[r][width - 1] += result.counts[g];
+            }
+            rowKeys = keys;
+            fireTableStructureChanged();
+        }
+
+        void setMeasure(int measure) {
+            this.measure = measure;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rowKeys.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return rowHeaders.length + columnValues.size() + 1;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            if (column < rowHeaders.length) {
+                return rowHeaders[column];
+            }
+            int c = column - rowHeaders.length;
+            return c < columnValues.size() ? columnValues.get(c) : "Total";
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            if (column < rowHeaders.length) {
+                return String.class;
+            }
+            return measure == 2 ? Double.class : Long.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            if (column < rowHeaders.length) {
+                return rowKeys.get(row)[column];
+            }
+            int c = column - rowHeaders.length;
+            long count = counts[row][c];
+            switch (measure) {
+                case 0:
+                    return count == 0 ? null : sums[row][c];
+                case 1:
+                    return count == 0 ? null : count;
+                default:
+                    return count == 0 ? null : (double) sums[row][c] / count;
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package birthstats;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Client-side cache of grid query results: the page index for a filter and the rows of each
+// page, keyed by the filter's SQL and parameters plus the page bounds. A repeated search, a
+// Refresh or scrolling back over rows seen before is then answered without a round trip.
+//
+// Entries are evicted least recently used once their estimated size passes the byte budget.
+// Every entry remembers the data version it was read at; a task that writes BirthStatistics
+// bumps the version when it finishes (see DatabaseTask), which makes all older entries stale.
+// Writes by other clients cannot be seen, so entries also expire after a maximum age.
+public final class QueryCache {
+    private static final AtomicLong DATA_VERSION = new AtomicLong();
+
+    private final long maxBytes;
+    private final long maxAgeNanos;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    // maxBytes 0 disables the cache; maxAgeSeconds 0 keeps entries until they are stale or evicted
+    public QueryCache(long maxBytes, int maxAgeSeconds) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.maxAgeNanos = maxAgeSeconds <= 0 ? Long.MAX_VALUE : maxAgeSeconds * 1_000_000_000L;
+    }
+
+    public static QueryCache fromConfig(ConfigManager config) {
+        return new QueryCache(config.getQueryCacheMegabytes() * 1024L * 1024L, config.getQueryCacheMaxAge());
+    }
+
+    // Read before running a query and pass to put(), so a write that lands meanwhile keeps the
+    // result out of the cache
+    public static long dataVersion() {
+        return DATA_VERSION.get();
+    }
+
+    public static void dataChanged() {
+        DATA_VERSION.incrementAndGet();
+    }
+
+    // Returns the cached result or null, counting a hit or a miss
+    public Object get(String key) {
+        Object value = getIfCached(key);
+        if (value == null && maxBytes > 0) {
+            Metrics.getInstance().recordQueryCacheMiss();
+        }
+        return value;
+    }
+
+    // Like get(), but only counts hits; for lookups whose miss is counted by a later get()
+    public synchronized Object getIfCached(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.version != DATA_VERSION.get() || System.nanoTime() - entry.loadedNanos > maxAgeNanos) {
+            remove(key, entry);
+            return null;
+        }
+        Metrics.getInstance().recordQueryCacheHit();
+        return entry.value;
+    }
+
+    public synchronized void put(String key, Object value, long valueBytes, long version) {
+        long size = valueBytes + sizeOf(key);
+        if (version != DATA_VERSION.get() || size > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(key, new Entry(value, size, version));
+        if (previous != null) {
+            bytes -= previous.bytes;
+        }
+        bytes += size;
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Entry> evicted = eldest.next();
+            eldest.remove();
+            bytes -= evicted.getValue().bytes;
+            Metrics.getInstance().recordQueryCacheEviction();
+        }
+        updateSize();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+        updateSize();
+    }
+
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        bytes -= entry.bytes;
+        updateSize();
+    }
+
+    private void updateSize() {
+        Metrics.getInstance().setQueryCacheSize(entries.size(), bytes);
+    }
+
+    // Rough heap footprint of a page of grid rows: the arrays, boxed integers and strings
+    static long sizeOf(Object[][] rows) {
+        long size = 16 + 8L * rows.length;
+        for (Object[] row : rows) {
+            size += 16 + 8L * row.length;
+            for (Object value : row) {
+                if (value instanceof String) {
+                    size += sizeOf((String) value);
+                } else if (value != null) {
+                    size += 16;
+                }
+            }
+        }
+        return size;
+    }
+
+    static long sizeOf(String s) {
+        return 40 + 2L * s.length();
+    }
+
+    private static final class Entry {
+        final Object value;
+        final long bytes;
+        final long version;
+        final long loadedNanos = System.nanoTime();
+
+        Entry(Object value, long bytes, long version) {
+            this.value = value;
+            this.bytes = bytes;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package birthstats;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+// A chunk of parsed BirthStatistics rows, stored column by column, ready to be bound
+// to the INSERT statement. Importers fill these; writers drain them.
+public class RecordBatch {
+    public static final String INSERT_SQL = "INSERT INTO BirthStatistics " +
+        "(StatYear, RecordType, AreaCode, AreaName, Gender, BirthWeight, MultipleBirth, BirthCount) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    final int[] statYear;
+    final String[] recordType;
+    final String[] areaCode;
+    final String[] areaName;
+    final String[] gender;
+    final String[] birthWeight;
+    final String[] multipleBirth;
+    final int[] birthCount;
+    private int size;
+    private long firstLine;
+
+    public RecordBatch(int capacity) {
+        statYear = new int[capacity];
+        recordType = new String[capacity];
+        areaCode = new String[capacity];
+        areaName = new String[capacity];
+        gender = new String[capacity];
+        birthWeight = new String[capacity];
+        multipleBirth = new String[capacity];
+        birthCount = new int[capacity];
+    }
+
+    public void add(int year, String type, String code, String name, String sex,
+                    String weight, String multiple, int count) {
+        int i = size++;
+        statYear[i] = year;
+        recordType[i] = type;
+        areaCode[i] = code;
+        areaName[i] = name;
+        gender[i] = sex;
+        birthWeight[i] = weight;
+        multipleBirth[i] = multiple;
+        birthCount[i] = count;
+    }
+
+    // Reads the eight import columns of the tokenizer's current record
+    public void add(CsvTokenizer csv) {
+        add(csv.getInt(0), csv.getString(1), csv.getString(2), csv.getString(3),
+            csv.getString(4), csv.getString(5), csv.getString(6), csv.getInt(7));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == statYear.length;
+    }
+
+    public int capacity() {
+        return statYear.length;
+    }
+
+    // Source line of the first row, for error messages
+    public long getFirstLine() {
+        return firstLine;
+    }
+
+    public void setFirstLine(long firstLine) {
+        this.firstLine = firstLine;
+    }
+
+    public void clear() {
+        size = 0;
+        firstLine = 0;
+    }
+
+    // Binds every row to INSERT_SQL and adds it to the statement's batch
+    public void addBatchTo(PreparedStatement pstmt) throws SQLException {
+        for (int i = 0; i < size; i++) {
+            pstmt.setInt(1, statYear[i]);
+            pstmt.setString(2, recordType[i]);
+            pstmt.setString(3, areaCode[i]);
+            pstmt.setString(4, areaName[i]);
+            pstmt.setString(5, gender[i]);
+            pstmt.setString(6, birthWeight[i]);
+            pstmt.setString(7, multipleBirth[i]);
+            pstmt.setInt(8, birthCount[i]);
+            pstmt.addBatch();
+        }
+    }
+}
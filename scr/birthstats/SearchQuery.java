@@ -0,0 +1,355 @@
+package birthstats;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Search box syntax, compiled into typed predicates the indexes can use.
+//
+//   year:112  year:110..112  year>=111   StatYear
+//   count>10  count:0                    BirthCount
+//   id:42                                ID
+//   code:65000010  code:6500*            AreaCode, exact or prefix
+//   area:<text>                          AreaName substring, resolved through the n-gram index
+//   gender:, weight:, birth:, type:      exact match on the category columns
+//
+// Terms are ANDed. A bare number matches year, count or an area code prefix; bare text matches
+// an area name substring or any of the exact-match text columns.
+public class SearchQuery {
+    public static final String HELP =
+        "Search syntax (terms are combined with AND):\n" +
+        "  year:112   year:110..112   year>=111\n" +
+        "  count>10   id:42\n" +
+        "  code:65000010   code:6500*\n" +
+        "  area:<part of area name>\n" +
+        "  gender:<value>   weight:<value>   birth:<value>   type:<value>\n" +
+        "Use quotes for values with spaces. Bare words search area names and categories.";
+
+    // Above this many matching area names the IN list is replaced by a LIKE
+    private static final int MAX_IN_LIST = 1000;
+
+    private static final Map<String, BirthColumn> FIELDS = new HashMap<>();
+    static {
+        FIELDS.put("id", BirthColumn.ID);
+        FIELDS.put("year", BirthColumn.STAT_YEAR);
+        FIELDS.put("y", BirthColumn.STAT_YEAR);
+        FIELDS.put("type", BirthColumn.RECORD_TYPE);
+        FIELDS.put("code", BirthColumn.AREA_CODE);
+        FIELDS.put("area", BirthColumn.AREA_NAME);
+        FIELDS.put("gender", BirthColumn.GENDER);
+        FIELDS.put("sex", BirthColumn.GENDER);
+        FIELDS.put("weight", BirthColumn.BIRTH_WEIGHT);
+        FIELDS.put("birth", BirthColumn.MULTIPLE_BIRTH);
+        FIELDS.put("plural", BirthColumn.MULTIPLE_BIRTH);
+        FIELDS.put("count", BirthColumn.BIRTH_COUNT);
+        FIELDS.put("n", BirthColumn.BIRTH_COUNT);
+    }
+
+    private static final Pattern FIELD_TERM = Pattern.compile("([A-Za-z]+)(>=|<=|:|=|>|<)(.*)", Pattern.DOTALL);
+    private static final Pattern RANGE = Pattern.compile("(-?\\d{1,9})\\.\\.(-?\\d{1,9})");
+    private static final Pattern NUMBER = Pattern.compile("-?\\d{1,9}");
+
+    private final List<Term> terms;
+
+    private SearchQuery(List<Term> terms) {
+        this.terms = terms;
+    }
+
+    // Throws IllegalArgumentException with a user-readable message on bad input
+    public static SearchQuery parse(String text) {
+        List<Term> terms = new ArrayList<>();
+        for (String token : tokenize(text)) {
+            Matcher m = FIELD_TERM.matcher(token);
+            if (m.matches() && FIELDS.containsKey(m.group(1).toLowerCase())) {
+                BirthColumn column = FIELDS.get(m.group(1).toLowerCase());
+                String op = m.group(2).equals("=") ? ":" : m.group(2);
+                String value = unquote(m.group(3));
+                if (value.isEmpty()) {
+                    throw new IllegalArgumentException("Missing value after " + m.group(1) + m.group(2));
+                }
+                terms.add(fieldTerm(column, op, value, m.group(1)));
+            } else if (!unquote(token).isEmpty()) {
+                terms.add(new Term(null, ":", unquote(token)));
+            }
+        }
+        return new SearchQuery(terms);
+    }
+
+    public boolean isEmpty() {
+        return terms.isEmpty();
+    }
+
+    // True if compiling needs area name lookups
+    public boolean usesAreaSearch() {
+        for (Term term : terms) {
+            if (term.column == BirthColumn.AREA_NAME || (term.column == null && !isNumber(term.value))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // areaLookup returns the distinct area names containing a substring, or null when no index
+    // is available, in which case AreaName falls back to a LIKE predicate.
+    public PagedTableModel.Filter toFilter(Function<String, List<String>> areaLookup) {
+        StringBuilder where = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+        for (Term term : terms) {
+            if (where.length() > 0) {
+                where.append(" AND ");
+            }
+            if (term.column == null) {
+                appendBare(term.value, areaLookup, where, params);
+            } else if (term.column == BirthColumn.AREA_NAME) {
+                appendArea(term.value, areaLookup, where, params);
+            } else if (!term.column.isText()) {
+                appendNumeric(term, where, params);
+            } else if (term.column == BirthColumn.AREA_CODE && term.value.endsWith("*")) {
+                where.append("AreaCode LIKE ?");
+                params.add(escapeLike(term.value.substring(0, term.value.length() - 1)) + "%");
+            } else {
+                where.append(term.column.getDbName()).append(" = ?");
+                params.add(term.value);
+            }
+        }
+        return new PagedTableModel.Filter(where.toString(), params.toArray());
+    }
+
+    // Same query evaluated against an in-memory table, for snapshots opened without a database.
+    // Text comparisons are resolved to dictionary codes once, so the per-row test is integer work.
+    public IntPredicate toPredicate(ColumnarTable table, Function<String, List<String>> areaLookup) {
+        IntPredicate result = row -> true;
+        for (Term term : terms) {
+            IntPredicate test;
+            if (term.column == null) {
+                test = bareTest(table, term.value, areaLookup);
+            } else if (term.column == BirthColumn.AREA_NAME) {
+                test = codeTest(table, BirthColumn.AREA_NAME, areaCodes(table, term.value, areaLookup));
+            } else if (!term.column.isText()) {
+                test = numericTest(table, term);
+            } else if (term.column == BirthColumn.AREA_CODE && term.value.endsWith("*")) {
+                test = codeTest(table, BirthColumn.AREA_CODE,
+                    prefixCodes(table, term.value.substring(0, term.value.length() - 1)));
+            } else {
+                int code = table.lookup(term.column, term.value);
+                BirthColumn column = term.column;
+                test = code < 0 ? row -> false : row -> table.getCode(column, row) == code;
+            }
+            result = result.and(test);
+        }
+        return result;
+    }
+
+    private static Term fieldTerm(BirthColumn column, String op, String value, String name) {
+        if (column.isText()) {
+            if (!op.equals(":")) {
+                throw new IllegalArgumentException(name + " only supports ':' (got '" + op + "')");
+            }
+            return new Term(column, op, value);
+        }
+        Matcher range = RANGE.matcher(value);
+        if (op.equals(":") && range.matches()) {
+            return new Term(column, "..", value);
+        }
+        if (!isNumber(value)) {
+            throw new IllegalArgumentException(name + " needs a whole number, got '" + value + "'");
+        }
+        return new Term(column, op, value);
+    }
+
+    private static void appendNumeric(Term term, StringBuilder where, List<Object> params) {
+        String column = term.column.getDbName();
+        if (term.op.equals("..")) {
+            Matcher range = RANGE.matcher(term.value);
+            range.matches();
+            where.append(column).append(" BETWEEN ? AND ?");
+            params.add(parseInt(range.group(1)));
+            params.add(parseInt(range.group(2)));
+        } else {
+            where.append(column).append(' ').append(term.op.equals(":") ? "=" : term.op).append(" ?");
+            params.add(parseInt(term.value));
+        }
+    }
+
+    private static void appendArea(String value, Function<String, List<String>> areaLookup,
+                                   StringBuilder where, List<Object> params) {
+        List<String> names = areaLookup.apply(value);
+        if (names == null || names.size() > MAX_IN_LIST) {
+            where.append("AreaName LIKE ?");
+            params.add("%" + escapeLike(value) + "%");
+        } else if (names.isEmpty()) {
+            where.append("1 = 0");
+        } else {
+            where.append("AreaName IN (");
+            for (int i = 0; i < names.size(); i++) {
+                where.append(i == 0 ? "?" : ", ?");
+                params.add(names.get(i));
+            }
+            where.append(')');
+        }
+    }
+
+    // Each alternative is an equality or prefix match, so SQL Server can combine index seeks
+    private static void appendBare(String value, Function<String, List<String>> areaLookup,
+                                   StringBuilder where, List<Object> params) {
+        where.append('(');
+        if (isNumber(value)) {
+            int number = parseInt(value);
+            where.append("StatYear = ? OR BirthCount = ? OR AreaCode LIKE ?");
+            params.add(number);
+            params.add(number);
+            params.add(escapeLike(value) + "%");
+        } else {
+            appendArea(value, areaLookup, where, params);
+            for (BirthColumn column : new BirthColumn[] {BirthColumn.RECORD_TYPE, BirthColumn.GENDER,
+                                                          BirthColumn.BIRTH_WEIGHT, BirthColumn.MULTIPLE_BIRTH}) {
+                where.append(" OR ").append(column.getDbName()).append(" = ?");
+                params.add(value);
+            }
+        }
+        where.append(')');
+    }
+
+    private static IntPredicate numericTest(ColumnarTable table, Term term) {
+        BirthColumn column = term.column;
+        if (term.op.equals("..")) {
+            Matcher range = RANGE.matcher(term.value);
+            range.matches();
+            int low = parseInt(range.group(1));
+            int high = parseInt(range.group(2));
+            return row -> {
+                int value = table.getInt(column, row);
+                return value >= low && value <= high;
+            };
+        }
+        int operand = parseInt(term.value);
+        switch (term.op) {
+            case ">":
+                return row -> table.getInt(column, row) > operand;
+            case ">=":
+                return row -> table.getInt(column, row) >= operand;
+            case "<":
+                return row -> table.getInt(column, row) < operand;
+            case "<=":
+                return row -> table.getInt(column, row) <= operand;
+            default:
+                return row -> table.getInt(column, row) == operand;
+        }
+    }
+
+    private static IntPredicate bareTest(ColumnarTable table, String value,
+                                         Function<String, List<String>> areaLookup) {
+        if (isNumber(value)) {
+            int number = parseInt(value);
+            boolean[] codes = prefixCodes(table, value);
+            return row -> table.getInt(BirthColumn.STAT_YEAR, row) == number
+                || table.getInt(BirthColumn.BIRTH_COUNT, row) == number
+                || codes[table.getCode(BirthColumn.AREA_CODE, row)];
+        }
+        IntPredicate test = codeTest(table, BirthColumn.AREA_NAME, areaCodes(table, value, areaLookup));
+        for (BirthColumn column : new BirthColumn[] {BirthColumn.RECORD_TYPE, BirthColumn.GENDER,
+                                                      BirthColumn.BIRTH_WEIGHT, BirthColumn.MULTIPLE_BIRTH}) {
+            int code = table.lookup(column, value);
+            if (code >= 0) {
+                test = test.or(row -> table.getCode(column, row) == code);
+            }
+        }
+        return test;
+    }
+
+    private static IntPredicate codeTest(ColumnarTable table, BirthColumn column, boolean[] codes) {
+        return row -> codes[table.getCode(column, row)];
+    }
+
+    // Area name codes containing the text, through the n-gram index when one is given
+    private static boolean[] areaCodes(ColumnarTable table, String value,
+                                       Function<String, List<String>> areaLookup) {
+        boolean[] codes = new boolean[table.cardinality(BirthColumn.AREA_NAME)];
+        List<String> names = areaLookup.apply(value);
+        if (names != null) {
+            for (String name : names) {
+                int code = table.lookup(BirthColumn.AREA_NAME, name);
+                if (code >= 0) {
+                    codes[code] = true;
+                }
+            }
+            return codes;
+        }
+        for (int code = 0; code < codes.length; code++) {
+            String name = table.decode(BirthColumn.AREA_NAME, code);
+            codes[code] = name != null && name.contains(value);
+        }
+        return codes;
+    }
+
+    private static boolean[] prefixCodes(ColumnarTable table, String prefix) {
+        boolean[] codes = new boolean[table.cardinality(BirthColumn.AREA_CODE)];
+        for (int code = 0; code < codes.length; code++) {
+            String areaCode = table.decode(BirthColumn.AREA_CODE, code);
+            codes[code] = areaCode != null && areaCode.startsWith(prefix);
+        }
+        return codes;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                current.append(c);
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (current.length() > 0) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                }
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unclosed quote in search");
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    private static String unquote(String value) {
+        return value.replace("\"", "").trim();
+    }
+
+    private static boolean isNumber(String value) {
+        return NUMBER.matcher(value).matches();
+    }
+
+    // Only called on values matched by NUMBER or RANGE, which cannot overflow
+    private static int parseInt(String value) {
+        return Integer.parseInt(value);
+    }
+
+    // SQL Server LIKE treats %, _ and [ as wildcards
+    private static String escapeLike(String value) {
+        return value.replace("[", "[[]").replace("%", "[%]").replace("_", "[_]");
+    }
+
+    private static final class Term {
+        final BirthColumn column;  // null for a bare word
+        final String op;
+        final String value;
+
+        Term(BirthColumn column, String op, String value) {
+            this.column = column;
+            this.op = op;
+            this.value = value;
+        }
+    }
+}
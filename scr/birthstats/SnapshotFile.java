@@ -0,0 +1,349 @@
+package birthstats;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+// Binary, memory-mapped copy of BirthStatistics for offline use.
+//
+// Layout (little endian):
+//   header      magic "BSNP", version, row count, column count, creation time
+//   directory   per column: ordinal, bytes per row, data offset, dictionary offset, dictionary
+//               entry count and dictionary byte length
+//   dictionaries  per text column: each value as a length (-1 for NULL) plus UTF-8 bytes
+//   columns     ID, StatYear and BirthCount as 4-byte ints; text columns as 1, 2 or 4 byte
+//               dictionary codes; every column starts on an 8-byte boundary
+//
+// open() only reads the header and the small dictionaries; the column data is mapped with
+// FileChannel.map and paged in by the OS as rows are touched, so opening takes the same few
+// milliseconds whatever the row count.
+public class SnapshotFile implements ColumnarTable, Closeable {
+    private static final int MAGIC = 0x504E5342;  // "BSNP" read as a little-endian int
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int DIRECTORY_ENTRY_BYTES = 32;
+    private static final BirthColumn[] COLUMNS = BirthColumn.values();
+
+    private final File file;
+    private final FileChannel channel;
+    private final int size;
+    private final long createdMillis;
+    // Mapped column data indexed by ordinal; each text column uses exactly one of the code arrays
+    private final IntBuffer[] intColumns = new IntBuffer[COLUMNS.length];
+    private final ByteBuffer[] byteCodes = new ByteBuffer[COLUMNS.length];
+    private final ShortBuffer[] shortCodes = new ShortBuffer[COLUMNS.length];
+    private final IntBuffer[] intCodes = new IntBuffer[COLUMNS.length];
+    private final Map<BirthColumn, String[]> dictionaries = new EnumMap<>(BirthColumn.class);
+    private final Map<BirthColumn, Map<String, Integer>> lookups = new EnumMap<>(BirthColumn.class);
+
+    private SnapshotFile(File file, FileChannel channel) throws IOException {
+        this.file = file;
+        this.channel = channel;
+
+        ByteBuffer header = readFully(channel, 0, HEADER_BYTES + COLUMNS.length * DIRECTORY_ENTRY_BYTES);
+        if (header.getInt() != MAGIC) {
+            throw new IOException(file.getName() + " is not a birth statistics snapshot");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + file.getName());
+        }
+        size = header.getInt();
+        int columnCount = header.getInt();
+        createdMillis = header.getLong();
+        if (size < 0 || columnCount != COLUMNS.length) {
+            throw new IOException("Corrupt snapshot header in " + file.getName());
+        }
+
+        long fileSize = channel.size();
+        for (int i = 0; i < columnCount; i++) {
+            int ordinal = header.getInt();
+            int width = header.getInt();
+            long dataOffset = header.getLong();
+            long dictionaryOffset = header.getLong();
+            int dictionarySize = header.getInt();
+            int dictionaryBytes = header.getInt();
+            if (ordinal != i || (width != 1 && width != 2 && width != 4)
+                    || dataOffset < 0 || dataOffset + (long) width * size > fileSize) {
+                throw new IOException("Corrupt snapshot directory in " + file.getName());
+            }
+
+            BirthColumn column = COLUMNS[i];
+            ByteBuffer data = map(dataOffset, (long) width * size);
+            if (!column.isText()) {
+                intColumns[i] = data.asIntBuffer();
+                continue;
+            }
+            if (width == 1) {
+                byteCodes[i] = data;
+            } else if (width == 2) {
+                shortCodes[i] = data.asShortBuffer();
+            } else {
+                intCodes[i] = data.asIntBuffer();
+            }
+            readDictionary(column, dictionaryOffset, dictionarySize, dictionaryBytes, fileSize);
+        }
+    }
+
+    public static SnapshotFile open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            return new SnapshotFile(file, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Writes any columnar table as a snapshot; the file is removed again if writing fails
+    public static void write(ColumnarTable table, File file) throws IOException {
+        int rows = table.size();
+        byte[][] dictionaryPages = new byte[COLUMNS.length][];
+        int[] widths = new int[COLUMNS.length];
+        long[] dataOffsets = new long[COLUMNS.length];
+        long[] dictionaryOffsets = new long[COLUMNS.length];
+
+        long offset = HEADER_BYTES + COLUMNS.length * DIRECTORY_ENTRY_BYTES;
+        for (BirthColumn column : COLUMNS) {
+            if (column.isText()) {
+                int cardinality = table.cardinality(column);
+                widths[column.ordinal()] = cardinality <= 0x100 ? 1 : cardinality <= 0x10000 ? 2 : 4;
+                dictionaryPages[column.ordinal()] = encodeDictionary(table, column);
+                dictionaryOffsets[column.ordinal()] = offset;
+                offset += dictionaryPages[column.ordinal()].length;
+            } else {
+                widths[column.ordinal()] = 4;
+            }
+        }
+        for (BirthColumn column : COLUMNS) {
+            offset = (offset + 7) & ~7L;
+            dataOffsets[column.ordinal()] = offset;
+            offset += (long) widths[column.ordinal()] * rows;
+        }
+
+        boolean completed = false;
+        try (FileChannel out = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(COLUMNS.length)
+                  .putLong(System.currentTimeMillis());
+            for (BirthColumn column : COLUMNS) {
+                int i = column.ordinal();
+                buffer.putInt(i).putInt(widths[i]).putLong(dataOffsets[i]).putLong(dictionaryOffsets[i])
+                      .putInt(column.isText() ? table.cardinality(column) : 0)
+                      .putInt(column.isText() ? dictionaryPages[i].length : 0);
+            }
+            long position = buffer.position();
+            for (byte[] page : dictionaryPages) {
+                if (page != null) {
+                    flush(out, buffer, page.length);
+                    if (page.length > buffer.remaining()) {
+                        ByteBuffer large = ByteBuffer.wrap(page);
+                        while (large.hasRemaining()) {
+                            out.write(large);
+                        }
+                    } else {
+                        buffer.put(page);
+                    }
+                    position += page.length;
+                }
+            }
+            for (BirthColumn column : COLUMNS) {
+                int width = widths[column.ordinal()];
+                long padding = dataOffsets[column.ordinal()] - position;
+                flush(out, buffer, (int) padding);
+                for (long i = 0; i < padding; i++) {
+                    buffer.put((byte) 0);
+                }
+                for (int row = 0; row < rows; row++) {
+                    if (buffer.remaining() < 4) {
+                        flush(out, buffer, 4);
+                    }
+                    int value = column.isText() ? table.getCode(column, row) : table.getInt(column, row);
+                    if (width == 1) {
+                        buffer.put((byte) value);
+                    } else if (width == 2) {
+                        buffer.putShort((short) value);
+                    } else {
+                        buffer.putInt(value);
+                    }
+                }
+                position = dataOffsets[column.ordinal()] + (long) width * rows;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                file.delete();
+            }
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getInt(BirthColumn column, int row) {
+        IntBuffer values = intColumns[column.ordinal()];
+        if (values == null) {
+            throw new IllegalArgumentException(column + " is not a numeric column");
+        }
+        return values.get(row);
+    }
+
+    @Override
+    public int getCode(BirthColumn column, int row) {
+        int i = column.ordinal();
+        ByteBuffer bytes = byteCodes[i];
+        if (bytes != null) {
+            return bytes.get(row) & 0xFF;
+        }
+        ShortBuffer shorts = shortCodes[i];
+        if (shorts != null) {
+            return shorts.get(row) & 0xFFFF;
+        }
+        IntBuffer ints = intCodes[i];
+        if (ints != null) {
+            return ints.get(row);
+        }
+        throw new IllegalArgumentException(column + " is not a text column");
+    }
+
+    @Override
+    public String decode(BirthColumn column, int code) {
+        return dictionary(column)[code];
+    }
+
+    @Override
+    public int cardinality(BirthColumn column) {
+        return dictionary(column).length;
+    }
+
+    @Override
+    public int lookup(BirthColumn column, String value) {
+        dictionary(column);
+        Integer code = lookups.get(column).get(value);
+        return code == null ? -1 : code;
+    }
+
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("File: %s%nRows: %,d%nSize: %,.1f MB%nCreated: %tF %<tT%n",
+            file.getName(), size, file.length() / 1048576.0, createdMillis));
+        for (BirthColumn column : COLUMNS) {
+            if (column.isText()) {
+                sb.append(String.format("%s: %,d distinct values%n", column.getLabel(), cardinality(column)));
+            }
+        }
+        return sb.toString();
+    }
+
+    // The mapped buffers stay valid until they are garbage collected; Java 8 has no public unmap
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private String[] dictionary(BirthColumn column) {
+        String[] values = dictionaries.get(column);
+        if (values == null) {
+            throw new IllegalArgumentException(column + " is not a text column");
+        }
+        return values;
+    }
+
+    private void readDictionary(BirthColumn column, long offset, int count, int bytes, long fileSize)
+            throws IOException {
+        if (count < 0 || bytes < 0 || offset < 0 || offset + bytes > fileSize) {
+            throw new IOException("Corrupt snapshot dictionary in " + file.getName());
+        }
+        ByteBuffer page = readFully(channel, offset, bytes);
+        String[] values = new String[count];
+        Map<String, Integer> codes = new HashMap<>(count * 2);
+        try {
+            for (int code = 0; code < count; code++) {
+                int length = page.getInt();
+                if (length >= 0) {
+                    values[code] = new String(page.array(), page.position(), length, StandardCharsets.UTF_8);
+                    page.position(page.position() + length);
+                }
+                codes.put(values[code], code);
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt snapshot dictionary in " + file.getName(), e);
+        }
+        dictionaries.put(column, values);
+        lookups.put(column, codes);
+    }
+
+    private static byte[] encodeDictionary(ColumnarTable table, BirthColumn column) {
+        int cardinality = table.cardinality(column);
+        byte[][] encoded = new byte[cardinality][];
+        int length = 0;
+        for (int code = 0; code < cardinality; code++) {
+            String value = table.decode(column, code);
+            encoded[code] = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+            length += 4 + (value == null ? 0 : encoded[code].length);
+        }
+        ByteBuffer page = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        for (byte[] value : encoded) {
+            page.putInt(value == null ? -1 : value.length);
+            if (value != null) {
+                page.put(value);
+            }
+        }
+        return page.array();
+    }
+
+    private ByteBuffer map(long offset, long length) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Snapshot file is truncated");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // Empties the buffer into the channel unless it still has room for `needed` bytes
+    private static void flush(FileChannel out, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() >= needed) {
+            return;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,90 @@
+package birthstats;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+// First page of the grid saved locally on exit, so the next start can show rows before the
+// database connection is up. The file is only a convenience: any problem reading it just
+// means starting with an empty grid.
+public class StartupCache {
+    private static final int MAGIC = 0x42534331;  // "BSC1"
+
+    final Object[][] rows;
+    final long savedMillis;
+
+    private StartupCache(Object[][] rows, long savedMillis) {
+        this.rows = rows;
+        this.savedMillis = savedMillis;
+    }
+
+    // Returns null when there is no usable cache
+    public static StartupCache load(File file, int maxRows) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            long savedMillis = in.readLong();
+            int count = in.readInt();
+            if (count <= 0) {
+                return null;
+            }
+            Object[][] rows = new Object[Math.min(count, maxRows)][];
+            for (int i = 0; i < rows.length; i++) {
+                Object[] row = new Object[PagedTableModel.COLUMNS.length];
+                for (int c = 0; c < row.length; c++) {
+                    if (in.readBoolean()) {
+                        row[c] = isNumeric(c) ? (Object) in.readInt() : in.readUTF();
+                    }
+                }
+                rows[i] = row;
+            }
+            return new StartupCache(rows, savedMillis);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring startup cache " + file + ": " + e);
+            return null;
+        }
+    }
+
+    // Written to a temporary file first so a crash mid-write never leaves a torn cache
+    public static void save(File file, Object[][] rows) {
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(rows.length);
+                for (Object[] row : rows) {
+                    for (int c = 0; c < row.length; c++) {
+                        out.writeBoolean(row[c] != null);
+                        if (row[c] != null) {
+                            if (isNumeric(c)) {
+                                out.writeInt((Integer) row[c]);
+                            } else {
+                                out.writeUTF((String) row[c]);
+                            }
+                        }
+                    }
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not save startup cache " + file + ": " + e.getMessage());
+            temp.delete();
+        }
+    }
+
+    private static boolean isNumeric(int column) {
+        return !BirthColumn.values()[column].isText();
+    }
+}
@@ -0,0 +1,37 @@
+package birthstats;
+
+import java.lang.management.ManagementFactory;
+
+// Startup timings measured from JVM start: when the main window first painted and when live
+// data from the database replaced the cached rows. Each is recorded once and reported in the
+// metrics summary, so it only reaches the log when metrics logging is on.
+public final class StartupMetrics {
+    private static final long JVM_START_MILLIS = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private static volatile long firstPaintMs = -1;
+    private static volatile long liveDataMs = -1;
+
+    private StartupMetrics() {
+    }
+
+    static synchronized void firstPaint() {
+        if (firstPaintMs < 0) {
+            firstPaintMs = System.currentTimeMillis() - JVM_START_MILLIS;
+        }
+    }
+
+    static synchronized void liveData() {
+        if (liveDataMs < 0) {
+            liveDataMs = System.currentTimeMillis() - JVM_START_MILLIS;
+        }
+    }
+
+    // -1 until recorded
+    public static long getTimeToFirstPaintMs() {
+        return firstPaintMs;
+    }
+
+    public static long getTimeToLiveDataMs() {
+        return liveDataMs;
+    }
+}
@@ -0,0 +1,102 @@
+package birthstats;
+
+import javax.swing.*;
+import java.awt.*;
+import java.beans.PropertyChangeListener;
+
+// Status line at the bottom of the main window showing the running task's progress.
+public class StatusBar extends JPanel {
+    private final JLabel messageLabel = new JLabel("Ready");
+    private final JProgressBar progressBar = new JProgressBar(0, 1000);
+    private final JButton cancelButton = new JButton("Cancel");
+    private final Timer refreshTimer;
+    private DatabaseTask<?, ?> task;
+
+    public StatusBar() {
+        super(new BorderLayout(5, 0));
+        setBorder(BorderFactory.createEmptyBorder(2, 0, 0, 0));
+
+        progressBar.setPreferredSize(new Dimension(160, progressBar.getPreferredSize().height));
+        progressBar.setVisible(false);
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> {
+            if (task != null) {
+                cancelButton.setEnabled(false);
+                messageLabel.setText(task.getDescription() + ": cancelling...");
+                task.cancelTask();
+            }
+        });
+
+        JPanel right = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        right.add(progressBar);
+        right.add(cancelButton);
+
+        add(messageLabel, BorderLayout.CENTER);
+        add(right, BorderLayout.EAST);
+
+        refreshTimer = new Timer(250, e -> updateProgress());
+    }
+
+    // A cancelled task stays busy until its worker has actually stopped
+    public boolean isBusy() {
+        return task != null && !task.isFinished();
+    }
+
+    public void track(DatabaseTask<?, ?> newTask) {
+        task = newTask;
+        cancelButton.setEnabled(true);
+        progressBar.setVisible(true);
+        progressBar.setIndeterminate(true);
+        messageLabel.setText(newTask.getDescription() + "...");
+
+        PropertyChangeListener listener = evt -> {
+            if ("finished".equals(evt.getPropertyName()) && task == newTask) {
+                finish(newTask);
+            }
+        };
+        newTask.addPropertyChangeListener(listener);
+        refreshTimer.start();
+    }
+
+    public void setMessage(String message) {
+        messageLabel.setText(message);
+    }
+
+    private void updateProgress() {
+        if (task == null) {
+            return;
+        }
+        double fraction = task.getFraction();
+        if (fraction >= 0) {
+            progressBar.setIndeterminate(false);
+            progressBar.setValue((int) (fraction * 1000));
+        }
+        StringBuilder text = new StringBuilder(task.getDescription());
+        if (task.isCancelled()) {
+            text.append(" (cancelling)");
+        }
+        text.append(String.format(": %,d rows (%,.0f rows/s)", task.getRows(), task.getRowsPerSecond()));
+        long eta = task.getEtaSeconds();
+        if (fraction >= 0) {
+            text.append(String.format(", %.0f%%", fraction * 100));
+        }
+        if (eta >= 0) {
+            text.append(", ETA ").append(formatDuration(eta));
+        }
+        messageLabel.setText(text.toString());
+    }
+
+    private void finish(DatabaseTask<?, ?> finished) {
+        refreshTimer.stop();
+        cancelButton.setEnabled(false);
+        progressBar.setVisible(false);
+        String outcome = finished.isCancelled() ? "cancelled" : "done";
+        messageLabel.setText(String.format("%s %s: %,d rows in %.1f s (%,.0f rows/s)",
+            finished.getDescription(), outcome, finished.getRows(),
+            finished.getElapsedSeconds(), finished.getRowsPerSecond()));
+    }
+
+    private static String formatDuration(long seconds) {
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+}
@@ -0,0 +1,207 @@
+package birthstats;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+// Dashboard totals read from the summary tables. Each grouping adds up one small rollup table,
+// so it stays quick however large BirthStatistics grows. Check recomputes the totals from the
+// raw rows and lists any groups that disagree, with the option to rebuild them. Queries run as
+// tasks of the main window, so they show in its status bar and can be cancelled there.
+public class SummaryPanel extends JPanel {
+    private static final int MAX_LISTED_DIFFERENCES = 20;
+
+    private final ConnectionPool pool;
+    private final Predicate<DatabaseTask<?, ?>> taskRunner;
+    private final JComboBox<SummaryTables.View> viewCombo = new JComboBox<>(SummaryTables.View.values());
+    private final JButton refreshBtn = new JButton("Refresh");
+    private final JButton checkBtn = new JButton("Check");
+    private final JLabel statusLabel = new JLabel(" ");
+    private final SummaryTableModel model = new SummaryTableModel();
+
+    // taskRunner starts a task, or returns false when another one is still running
+    public SummaryPanel(ConnectionPool pool, Predicate<DatabaseTask<?, ?>> taskRunner) {
+        super(new BorderLayout(5, 5));
+        this.pool = pool;
+        this.taskRunner = taskRunner;
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        controls.add(new JLabel("Show:"));
+        controls.add(viewCombo);
+        controls.add(refreshBtn);
+        controls.add(checkBtn);
+
+        add(controls, BorderLayout.NORTH);
+        add(new JScrollPane(new JTable(model)), BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+
+        viewCombo.addActionListener(e -> runQuery());
+        refreshBtn.addActionListener(e -> runQuery());
+        checkBtn.addActionListener(e -> runCheck(false));
+    }
+
+    public static void showDialog(Component parent, ConnectionPool pool, Predicate<DatabaseTask<?, ?>> taskRunner) {
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(parent), "Summary",
+            Dialog.ModalityType.MODELESS);
+        SummaryPanel panel = new SummaryPanel(pool, taskRunner);
+        dialog.add(panel);
+        dialog.setSize(800, 500);
+        dialog.setLocationRelativeTo(parent);
+        dialog.setVisible(true);
+        panel.runQuery();
+    }
+
+    private void setBusy(boolean busy, String message) {
+        viewCombo.setEnabled(!busy);
+        refreshBtn.setEnabled(!busy);
+        checkBtn.setEnabled(!busy);
+        statusLabel.setText(message);
+    }
+
+    private void runQuery() {
+        SummaryTables.View view = (SummaryTables.View) viewCombo.getSelectedItem();
+        DatabaseTask<SummaryTables.Result, Void> task =
+                new DatabaseTask<SummaryTables.Result, Void>("Loading summary", Metrics.Operation.SUMMARY) {
+            @Override
+            protected SummaryTables.Result runInBackground() throws Exception {
+                try (Connection conn = pool.getConnection()) {
+                    SummaryTables.Result result = SummaryTables.query(conn, view, this::track);
+                    addRows(result.rows.size());
+                    return result;
+                }
+            }
+
+            @Override
+            protected void succeeded(SummaryTables.Result result) {
+                model.setResult(result);
+                setBusy(false, String.format("%,d groups in %.1f ms%s", result.rows.size(),
+                    getElapsedSeconds() * 1000, result.fromSummary ? ""
+                        : " (computed from BirthStatistics; run create_summary_tables.sql for instant totals)"));
+            }
+
+            @Override
+            protected void failed(Throwable cause) {
+                setBusy(false, "Summary failed: " + cause.getMessage());
+                cause.printStackTrace();
+            }
+
+            @Override
+            protected void cancelled() {
+                setBusy(false, "Summary cancelled");
+            }
+        };
+        if (taskRunner.test(task)) {
+            setBusy(true, "Loading...");
+        }
+    }
+
+    private void runCheck(boolean repair) {
+        DatabaseTask<SummaryTables.CheckResult, Void> task = new DatabaseTask<SummaryTables.CheckResult, Void>(
+                repair ? "Rebuilding summary" : "Checking summary", Metrics.Operation.SUMMARY_CHECK) {
+            @Override
+            protected SummaryTables.CheckResult runInBackground() throws Exception {
+                try (Connection conn = pool.getConnection()) {
+                    return SummaryTables.check(conn, repair, this::track);
+                }
+            }
+
+            @Override
+            protected void succeeded(SummaryTables.CheckResult result) {
+                setBusy(false, result.toString());
+                if (result.isConsistent()) {
+                    return;
+                }
+                // Follow-up tasks start once this one has left the status bar
+                if (result.repaired) {
+                    SwingUtilities.invokeLater(SummaryPanel.this::runQuery);
+                    return;
+                }
+                StringBuilder message = new StringBuilder(result.toString()).append(":\n\n");
+                int listed = Math.min(MAX_LISTED_DIFFERENCES, result.differences.size());
+                for (int i = 0; i < listed; i++) {
+                    message.append(result.differences.get(i)).append('\n');
+                }
+                if (listed < result.differences.size()) {
+                    message.append("... and ").append(result.differences.size() - listed).append(" more\n");
+                }
+                message.append("\nRebuild the summary from BirthStatistics now?");
+                int choice = JOptionPane.showConfirmDialog(SummaryPanel.this, message.toString(),
+                    "Summary Check", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+                if (choice == JOptionPane.YES_OPTION) {
+                    SwingUtilities.invokeLater(() -> runCheck(true));
+                }
+            }
+
+            @Override
+            protected void failed(Throwable cause) {
+                setBusy(false, "Check failed: " + cause.getMessage());
+                cause.printStackTrace();
+            }
+
+            @Override
+            protected void cancelled() {
+                setBusy(false, "Check cancelled");
+            }
+        };
+        if (taskRunner.test(task)) {
+            setBusy(true, repair ? "Rebuilding summary..." : "Checking summary against BirthStatistics...");
+        }
+    }
+
+    private static final class SummaryTableModel extends AbstractTableModel {
+        private String[] columns = new String[0];
+        private List<Object[]> rows = new ArrayList<>();
+
+        void setResult(SummaryTables.Result result) {
+            BirthColumn[] groupBy = result.view.columns;
+            columns = new String[groupBy.length + 3];
+            for (int i = 0; i < groupBy.length; i++) {
+                columns[i] = groupBy[i].getLabel();
+            }
+            columns[groupBy.length] = "Records";
+            columns[groupBy.length + 1] = "Total births";
+            columns[groupBy.length + 2] = "Average births per record";
+            rows = result.rows;
+            fireTableStructureChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            if (column < columns.length - 3) {
+                return Object.class;
+            }
+            return column == columns.length - 1 ? Double.class : Long.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Object[] values = rows.get(row);
+            if (column < values.length) {
+                return values[column];
+            }
+            long records = (Long) values[values.length - 2];
+            long births = (Long) values[values.length - 1];
+            return records == 0 ? 0.0 : Math.round(births * 100.0 / records) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package birthstats;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Reads and checks the pre-aggregated tables kept current by the trigger from
+// create_summary_tables.sql. BirthSummary holds the totals by year, gender, birth weight and
+// plurality, and BirthSummaryArea the totals by area; each dashboard view adds up one of them,
+// which stays small however many rows BirthStatistics holds. Without the tables the views
+// fall back to the raw rows.
+//
+// The rollup keys are NOT NULL so the trigger can seek them with plain equality: a missing
+// year is stored as -1 and missing text as ''. The views turn both back into NULL, and group
+// the raw rows the same way, so '' and NULL show as one blank group either way.
+final class SummaryTables {
+    static final String TABLE = "BirthSummary";
+    static final String AREA_TABLE = "BirthSummaryArea";
+
+    private static final String REBUILD_TABLE = "#SummaryRebuild";
+
+    private static final String DROP_REBUILD_SQL =
+        "IF OBJECT_ID('tempdb.." + REBUILD_TABLE + "') IS NOT NULL DROP TABLE " + REBUILD_TABLE;
+
+    // The two summary tables and the columns each one is keyed on
+    enum Rollup {
+        MAIN(TABLE, BirthColumn.STAT_YEAR, BirthColumn.GENDER, BirthColumn.BIRTH_WEIGHT, BirthColumn.MULTIPLE_BIRTH),
+        AREA(AREA_TABLE, BirthColumn.AREA_CODE, BirthColumn.AREA_NAME);
+
+        final String table;
+        final BirthColumn[] key;
+
+        Rollup(String table, BirthColumn... key) {
+            this.table = table;
+            this.key = key;
+        }
+
+        private String keyList(Function<BirthColumn, String> expression) {
+            StringBuilder sb = new StringBuilder();
+            for (BirthColumn column : key) {
+                sb.append(sb.length() > 0 ? ", " : "").append(expression.apply(column));
+            }
+            return sb.toString();
+        }
+
+        // TABLOCK, HOLDLOCK keeps writers (and so the trigger) out until the check commits
+        String rebuildSql() {
+            return DROP_REBUILD_SQL + "; " +
+                "SELECT " + keyList(c -> stored(c) + " AS " + c.getDbName()) + ", COUNT(*) AS Records, " +
+                "SUM(CAST(COALESCE(BirthCount, 0) AS BIGINT)) AS TotalBirths " +
+                "INTO " + REBUILD_TABLE + " FROM BirthStatistics WITH (TABLOCK, HOLDLOCK) " +
+                "GROUP BY " + keyList(SummaryTables::stored);
+        }
+
+        String diffSql() {
+            String key = keyList(BirthColumn::getDbName);
+            return "SELECT " + keyList(SummaryTables::shown) + ", " +
+                "SUM(SummaryRecords), SUM(SummaryBirths), SUM(ActualRecords), SUM(ActualBirths) " +
+                "FROM (SELECT " + key + ", CAST(Records AS BIGINT) AS SummaryRecords, TotalBirths AS SummaryBirths, " +
+                "             CAST(0 AS BIGINT) AS ActualRecords, CAST(0 AS BIGINT) AS ActualBirths FROM " + table +
+                "      UNION ALL " +
+                "      SELECT " + key + ", 0, 0, Records, TotalBirths FROM " + REBUILD_TABLE + ") x " +
+                "GROUP BY " + key + " " +
+                "HAVING SUM(SummaryRecords) <> SUM(ActualRecords) OR SUM(SummaryBirths) <> SUM(ActualBirths) " +
+                "ORDER BY " + key;
+        }
+
+        String repairSql() {
+            String key = keyList(BirthColumn::getDbName);
+            return "DELETE FROM " + table + "; " +
+                "INSERT INTO " + table + " (" + key + ", Records, TotalBirths) " +
+                "SELECT " + key + ", Records, TotalBirths FROM " + REBUILD_TABLE;
+        }
+    }
+
+    // The dashboard groupings offered by the Summary window, each read from one rollup
+    enum View {
+        GENDER_WEIGHT("By gender and birth weight", false, Rollup.MAIN, BirthColumn.GENDER, BirthColumn.BIRTH_WEIGHT),
+        AREA("By area", true, Rollup.AREA, BirthColumn.AREA_CODE, BirthColumn.AREA_NAME),
+        YEAR("By year", false, Rollup.MAIN, BirthColumn.STAT_YEAR),
+        PLURALITY("By plurality", false, Rollup.MAIN, BirthColumn.MULTIPLE_BIRTH),
+        YEAR_GENDER("By year and gender", false, Rollup.MAIN, BirthColumn.STAT_YEAR, BirthColumn.GENDER);
+
+        private final String label;
+        private final boolean byTotal;
+        final Rollup rollup;
+        final BirthColumn[] columns;
+
+        View(String label, boolean byTotal, Rollup rollup, BirthColumn... columns) {
+            this.label = label;
+            this.byTotal = byTotal;
+            this.rollup = rollup;
+            this.columns = columns;
+        }
+
+        String sql(boolean fromSummary) {
+            StringBuilder select = new StringBuilder();
+            StringBuilder groupBy = new StringBuilder();
+            StringBuilder orderBy = new StringBuilder();
+            for (int i = 0; i < columns.length; i++) {
+                BirthColumn column = columns[i];
+                String separator = i > 0 ? ", " : "";
+                select.append(separator).append(shown(column));
+                groupBy.append(separator).append(fromSummary ? column.getDbName() : raw(column));
+                orderBy.append(separator).append(i + 1);
+            }
+            String measures = fromSummary
+                ? "SUM(CAST(Records AS BIGINT)), SUM(TotalBirths) FROM " + rollup.table
+                : "COUNT_BIG(*), SUM(CAST(COALESCE(BirthCount, 0) AS BIGINT)) FROM BirthStatistics";
+            return "SELECT " + select + ", " + measures + " GROUP BY " + groupBy +
+                " ORDER BY " + (byTotal ? (columns.length + 2) + " DESC" : orderBy.toString());
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    // A raw BirthStatistics column as the rollups store it
+    private static String stored(BirthColumn column) {
+        return column.isText()
+            ? "ISNULL(" + column.getDbName() + ", N'')"
+            : "ISNULL(" + column.getDbName() + ", -1)";
+    }
+
+    // A rollup key column as the views show it
+    private static String shown(BirthColumn column) {
+        return column.isText()
+            ? "NULLIF(" + column.getDbName() + ", N'')"
+            : "NULLIF(" + column.getDbName() + ", -1)";
+    }
+
+    // A raw BirthStatistics column grouped the way the rollups group it
+    private static String raw(BirthColumn column) {
+        return column.isText() ? "NULLIF(" + column.getDbName() + ", N'')" : column.getDbName();
+    }
+
+    private SummaryTables() {
+    }
+
+    // BirthSummaryArea arrived with the per-view rollups, so a BirthSummary left from the old
+    // single-grain layout does not count until create_summary_tables.sql runs again
+    static boolean exists(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT OBJECT_ID('" + AREA_TABLE + "')")) {
+            return rs.next() && rs.getObject(1) != null;
+        }
+    }
+
+    // Runs one grouping; onStatement receives the query before it runs so it can be cancelled
+    static Result query(Connection conn, View view, Consumer<Statement> onStatement) throws SQLException {
+        boolean fromSummary = exists(conn);
+        List<Object[]> rows = new ArrayList<>();
+        try (Statement stmt = conn.createStatement()) {
+            onStatement.accept(stmt);
+            try (ResultSet rs = stmt.executeQuery(view.sql(fromSummary))) {
+                int width = view.columns.length;
+                while (rs.next()) {
+                    Object[] row = new Object[width + 2];
+                    for (int i = 0; i < width; i++) {
+                        row[i] = rs.getObject(i + 1);
+                    }
+                    row[width] = rs.getLong(width + 1);
+                    row[width + 1] = rs.getLong(width + 2);
+                    rows.add(row);
+                }
+            }
+        }
+        return new Result(view, rows, fromSummary);
+    }
+
+    // Recomputes both rollups from BirthStatistics and lists every group where they disagree.
+    // With repair, the tables are then replaced by the recomputed totals.
+    static CheckResult check(Connection conn, boolean repair, Consumer<Statement> onStatement)
+            throws SQLException {
+        if (!exists(conn)) {
+            throw new SQLException("The summary tables do not exist; run create_summary_tables.sql first");
+        }
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            onStatement.accept(stmt);
+            List<Difference> differences = new ArrayList<>();
+            boolean repaired = false;
+            for (Rollup rollup : Rollup.values()) {
+                stmt.execute(rollup.rebuildSql());
+                int found = differences.size();
+                try (ResultSet rs = stmt.executeQuery(rollup.diffSql())) {
+                    int width = rollup.key.length;
+                    while (rs.next()) {
+                        String[] key = new String[width];
+                        for (int i = 0; i < width; i++) {
+                            key[i] = rs.getString(i + 1);
+                        }
+                        differences.add(new Difference(rollup, key, rs.getLong(width + 1), rs.getLong(width + 2),
+                            rs.getLong(width + 3), rs.getLong(width + 4)));
+                    }
+                }
+                if (repair && differences.size() > found) {
+                    stmt.execute(rollup.repairSql());
+                    repaired = true;
+                }
+            }
+            conn.commit();
+            return new CheckResult(differences, repaired);
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        } finally {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(DROP_REBUILD_SQL);
+                conn.setAutoCommit(autoCommit);
+            } catch (SQLException e) {
+                // A broken connection is discarded by the pool along with its temp table
+            }
+        }
+    }
+
+    static final class Result {
+        final View view;
+        final List<Object[]> rows;        // the view's columns, then records and total births
+        final boolean fromSummary;        // false when the summary tables are missing and the raw table was scanned
+
+        Result(View view, List<Object[]> rows, boolean fromSummary) {
+            this.view = view;
+            this.rows = rows;
+            this.fromSummary = fromSummary;
+        }
+    }
+
+    static final class Difference {
+        final Rollup rollup;
+        final String[] key;               // the rollup's key columns
+        final long summaryRecords;
+        final long summaryBirths;
+        final long actualRecords;
+        final long actualBirths;
+
+        Difference(Rollup rollup, String[] key, long summaryRecords, long summaryBirths,
+                   long actualRecords, long actualBirths) {
+            this.rollup = rollup;
+            this.key = key;
+            this.summaryRecords = summaryRecords;
+            this.summaryBirths = summaryBirths;
+            this.actualRecords = actualRecords;
+            this.actualBirths = actualBirths;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder group = new StringBuilder();
+            for (String value : key) {
+                group.append(group.length() > 0 ? " | " : "").append(value == null ? "-" : value);
+            }
+            return String.format("%s %s: summary %d records / %d births, actual %d records / %d births",
+                rollup.table, group, summaryRecords, summaryBirths, actualRecords, actualBirths);
+        }
+    }
+
+    static final class CheckResult {
+        final List<Difference> differences;
+        final boolean repaired;
+
+        CheckResult(List<Difference> differences, boolean repaired) {
+            this.differences = differences;
+            this.repaired = repaired;
+        }
+
+        boolean isConsistent() {
+            return differences.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            if (differences.isEmpty()) {
+                return "The summary tables match BirthStatistics";
+            }
+            return differences.size() + " summary groups differ from BirthStatistics"
+                + (repaired ? "; the summary was rebuilt" : "");
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package birthstats;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+// Streams BirthStatistics to a CSV, JSON or XML file.
+// With one thread the rows go straight from a forward-only cursor into the file. With more, the
+// table is split into ID ranges of equal row count; every range is read on its own pooled
+// connection into a part file, and the parts are stitched together in ID order with
+// FileChannel.transferTo. Gzipped parts are separate gzip members, which concatenate into a
+// valid .gz file.
+public class TableExporter {
+    // Tables smaller than this per thread are not worth splitting
+    private static final int MIN_ROWS_PER_PART = 50000;
+
+    private final ConnectionPool pool;
+    private final int fetchSize;
+    private final int bufferSize;
+    private final int threads;
+    private final List<Statement> statements = new CopyOnWriteArrayList<>();
+    private volatile ExecutorService executor;
+    private volatile boolean cancelled;
+
+    public TableExporter(ConnectionPool pool, int fetchSize, int bufferSize, int threads) {
+        this.pool = pool;
+        this.fetchSize = fetchSize;
+        this.bufferSize = bufferSize;
+        // Leave one connection for the UI
+        this.threads = Math.max(1, Math.min(threads, pool.getMaxSize() - 1));
+    }
+
+    public static TableExporter fromConfig(ConfigManager config, ConnectionPool pool) {
+        return new TableExporter(pool, config.getExportFetchSize(), config.getExportBufferSize(),
+            config.getExportThreads());
+    }
+
+    // Returns the number of rows written; the file is removed again if the export fails
+    public long export(ExportFormat format, File file, boolean gzip, ExportProgress progress) throws Exception {
+        boolean completed = false;
+        try {
+            int[] starts = threads > 1 ? partitionStarts() : null;
+            long rows = starts == null || starts.length < 2
+                ? exportSingle(format, file, gzip, progress)
+                : exportParallel(format, file, gzip, starts, progress);
+            completed = true;
+            return rows;
+        } finally {
+            if (!completed) {
+                file.delete();
+            }
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+        for (Statement stmt : statements) {
+            try {
+                stmt.cancel();
+            } catch (SQLException e) {
+                // Statement already finished
+            }
+        }
+        ExecutorService running = executor;
+        if (running != null) {
+            running.shutdownNow();
+        }
+    }
+
+    private long exportSingle(ExportFormat format, File file, boolean gzip, ExportProgress progress)
+            throws SQLException, IOException {
+        try (Connection conn = pool.getConnection();
+             Utf8Sink out = Utf8Sink.open(file, gzip, bufferSize)) {
+            out.append(format.header);
+            long rows = writeRange(conn, format, out, null, null, progress);
+            out.append(format.footer);
+            return rows;
+        }
+    }
+
+    private long exportParallel(ExportFormat format, File file, boolean gzip, int[] starts,
+                                ExportProgress progress) throws Exception {
+        List<File> parts = new ArrayList<>();
+        for (int i = 0; i < starts.length; i++) {
+            parts.add(new File(file.getPath() + ".part" + i));
+        }
+        executor = Executors.newFixedThreadPool(Math.min(threads, starts.length), r -> {
+            Thread t = new Thread(r, "table-export");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < starts.length; i++) {
+                Integer from = starts[i];
+                Integer to = i + 1 < starts.length ? starts[i + 1] : null;
+                File part = parts.get(i);
+                results.add(executor.submit(() -> {
+                    try (Connection conn = pool.getConnection();
+                         Utf8Sink out = Utf8Sink.open(part, gzip, bufferSize)) {
+                        return writeRange(conn, format, out, from, to, progress);
+                    }
+                }));
+            }
+            executor.shutdown();
+
+            long[] rowCounts = new long[results.size()];
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    rowCounts[i] = results.get(i).get();
+                } catch (ExecutionException e) {
+                    cancel();
+                    Throwable cause = e.getCause();
+                    throw cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+                }
+            }
+            if (cancelled) {
+                throw new CancellationException("Export cancelled");
+            }
+            return stitch(format, file, gzip, parts, rowCounts);
+        } finally {
+            executor.shutdownNow();
+            for (File part : parts) {
+                part.delete();
+            }
+        }
+    }
+
+    // Concatenates the part files in order between the header and footer. transferTo lets the
+    // operating system copy the bytes without passing them through the Java heap.
+    private static long stitch(ExportFormat format, File file, boolean gzip, List<File> parts, long[] rowCounts)
+            throws IOException {
+        long total = 0;
+        try (FileChannel out = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(out, chunk(format.header, gzip));
+            for (int i = 0; i < parts.size(); i++) {
+                if (rowCounts[i] == 0) {
+                    continue;
+                }
+                if (total > 0) {
+                    writeFully(out, chunk(format.separator, gzip));
+                }
+                try (FileChannel in = FileChannel.open(parts.get(i).toPath(), StandardOpenOption.READ)) {
+                    long size = in.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                }
+                total += rowCounts[i];
+            }
+            writeFully(out, chunk(format.footer, gzip));
+        }
+        return total;
+    }
+
+    // Streams one ID range (either bound may be null) without header or footer
+    private long writeRange(Connection conn, ExportFormat format, Utf8Sink out, Integer from, Integer to,
+                            ExportProgress progress) throws SQLException, IOException {
+        String sql = ExportFormat.SELECT_SQL
+            + (from == null ? "" : " WHERE ID >= ?" + (to == null ? "" : " AND ID < ?"))
+            + " ORDER BY ID";
+        try (PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statements.add(stmt);
+            try {
+                if (cancelled) {
+                    throw new CancellationException("Export cancelled");
+                }
+                stmt.setFetchSize(fetchSize);
+                if (from != null) {
+                    stmt.setInt(1, from);
+                    if (to != null) {
+                        stmt.setInt(2, to);
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return writeRows(rs, format, out, progress);
+                }
+            } finally {
+                statements.remove(stmt);
+            }
+        }
+    }
+
+    // Progress is reported every this many rows
+    private static final int REPORT_INTERVAL = 4096;
+
+    private static long writeRows(ResultSet rs, ExportFormat format, Utf8Sink out, ExportProgress progress)
+            throws SQLException, IOException {
+        long count = 0;
+        int sinceReport = 0;
+        while (rs.next()) {
+            if (count > 0) {
+                out.append(format.separator);
+            }
+            format.writeRow(rs, out);
+            count++;
+            if (++sinceReport == REPORT_INTERVAL) {
+                progress.rowsWritten(sinceReport, out.getBytesWritten());
+                sinceReport = 0;
+            }
+        }
+        if (sinceReport > 0) {
+            progress.rowsWritten(sinceReport, out.getBytesWritten());
+        }
+        return count;
+    }
+
+    // First ID of each of up to `threads` ranges holding the same number of rows
+    private int[] partitionStarts() throws SQLException {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT COUNT_BIG(*) FROM BirthStatistics")) {
+            long rows;
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                rows = rs.getLong(1);
+            }
+            int parts = (int) Math.min(threads, rows / MIN_ROWS_PER_PART);
+            if (parts < 2) {
+                return null;
+            }
+            try (PreparedStatement ranges = conn.prepareStatement(
+                     "SELECT MIN(ID) FROM (SELECT ID, NTILE(?) OVER (ORDER BY ID) AS Part FROM BirthStatistics) t " +
+                     "GROUP BY Part ORDER BY Part")) {
+                statements.add(ranges);
+                try {
+                    ranges.setInt(1, parts);
+                    List<Integer> starts = new ArrayList<>();
+                    try (ResultSet rs = ranges.executeQuery()) {
+                        while (rs.next()) {
+                            starts.add(rs.getInt(1));
+                        }
+                    }
+                    int[] result = new int[starts.size()];
+                    for (int i = 0; i < result.length; i++) {
+                        result[i] = starts.get(i);
+                    }
+                    return result;
+                } finally {
+                    statements.remove(ranges);
+                }
+            }
+        }
+    }
+
+    // Header, separator and footer bytes; for gzip output each becomes its own gzip member
+    private static ByteBuffer chunk(String text, boolean gzip) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (!gzip || bytes.length == 0) {
+            return ByteBuffer.wrap(bytes);
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream zip = new GZIPOutputStream(buffer)) {
+            zip.write(bytes);
+        }
+        return ByteBuffer.wrap(buffer.toByteArray());
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package birthstats;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.CancellationException;
+
+// Incremental CSV import for re-published files. Rows are staged in a temp table and MERGEd on
+// the natural key (StatYear, RecordType, AreaCode, Gender, BirthWeight, MultipleBirth): new keys
+// are inserted, keys whose BirthCount changed are updated and everything else is left alone.
+// When the file repeats a key, its last row wins. The whole run is one transaction; on the star
+// schema, new dimension values are committed ahead of it (see BirthSchema.addDimensionValues).
+//
+// Files are identified by SHA-256. When the ImportHistory table (create_import_history.sql)
+// exists, a file whose hash is already listed is skipped without staging anything.
+public class UpsertImporter {
+    static final String STAGE_TABLE = "#BirthStage";
+
+    static final String DROP_STAGE_SQL =
+        "IF OBJECT_ID('tempdb.." + STAGE_TABLE + "') IS NOT NULL DROP TABLE " + STAGE_TABLE;
+
+    static final String CREATE_STAGE_SQL = DROP_STAGE_SQL + "; " +
+        "CREATE TABLE " + STAGE_TABLE + " (" +
+        "StageID INT IDENTITY(1,1) PRIMARY KEY, StatYear INT, RecordType NVARCHAR(100), " +
+        "AreaCode NVARCHAR(20), AreaName NVARCHAR(100), Gender NVARCHAR(10), BirthWeight NVARCHAR(50), " +
+        "MultipleBirth NVARCHAR(20), BirthCount INT)";
+
+    static final String STAGE_INSERT_SQL = RecordBatch.INSERT_SQL.replace("BirthStatistics", STAGE_TABLE);
+
+    private static final String NATURAL_KEY = "StatYear, RecordType, AreaCode, Gender, BirthWeight, MultipleBirth";
+
+    // NOCOUNT keeps the action counts as the only result set
+    static final String MERGE_SQL =
+        "SET NOCOUNT ON; " +
+        "DECLARE @actions TABLE (Action NVARCHAR(10)); " +
+        "MERGE BirthStatistics WITH (HOLDLOCK) AS t " +
+        "USING (SELECT StatYear, RecordType, AreaCode, AreaName, Gender, BirthWeight, MultipleBirth, BirthCount " +
+        "       FROM (SELECT *, ROW_NUMBER() OVER (PARTITION BY " + NATURAL_KEY + " ORDER BY StageID DESC) AS Latest " +
+        "             FROM " + STAGE_TABLE + ") staged " +
+        "       WHERE Latest = 1) AS s " +
+        "ON t.StatYear = s.StatYear AND t.RecordType = s.RecordType AND t.AreaCode = s.AreaCode " +
+        "AND t.Gender = s.Gender AND t.BirthWeight = s.BirthWeight AND t.MultipleBirth = s.MultipleBirth " +
+        "WHEN MATCHED AND (t.BirthCount <> s.BirthCount OR t.BirthCount IS NULL) THEN " +
+        "    UPDATE SET BirthCount = s.BirthCount " +
+        "WHEN NOT MATCHED BY TARGET THEN " +
+        "    INSERT (StatYear, RecordType, AreaCode, AreaName, Gender, BirthWeight, MultipleBirth, BirthCount) " +
+        "    VALUES (s.StatYear, s.RecordType, s.AreaCode, s.AreaName, s.Gender, s.BirthWeight, s.MultipleBirth, " +
+        "            s.BirthCount) " +
+        "OUTPUT $action INTO @actions; " +
+        "SELECT COALESCE(SUM(CASE WHEN Action = 'INSERT' THEN 1 ELSE 0 END), 0), " +
+        "       COALESCE(SUM(CASE WHEN Action = 'UPDATE' THEN 1 ELSE 0 END), 0) FROM @actions";
+
+    private final ConnectionPool pool;
+    private final int batchSize;
+    private volatile Statement activeStatement;
+    private volatile boolean cancelled;
+
+    public UpsertImporter(ConnectionPool pool, int batchSize) {
+        this.pool = pool;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public static UpsertImporter fromConfig(ConfigManager config, ConnectionPool pool) {
+        return new UpsertImporter(pool, config.getCsvBatchSize());
+    }
+
+    public Result run(File file, ImportProgress progress) throws Exception {
+        long fileSize = file.length();
+        if (fileSize == 0) {
+            throw new IOException("CSV file is empty");
+        }
+        String hash = sha256(file);
+
+        try (Connection conn = pool.getConnection()) {
+            boolean history = hasHistoryTable(conn);
+            if (history) {
+                String previous = findPreviousImport(conn, hash);
+                if (previous != null) {
+                    return new Result(file.getName(), hash, true, previous, 0, 0, 0);
+                }
+            }
+
+            boolean starSchema = BirthSchema.isStarSchema(conn);
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                try (Statement stmt = track(conn.createStatement())) {
+                    stmt.execute(CREATE_STAGE_SQL);
+                }
+                long rowsRead = stage(conn, file, fileSize, progress);
+                checkCancelled();
+                if (starSchema) {
+                    // Only the temp table has changed so far
+                    conn.commit();
+                    BirthSchema.addDimensionValues(conn, STAGE_TABLE);
+                }
+
+                long inserted;
+                long updated;
+                try (Statement stmt = track(conn.createStatement());
+                     ResultSet rs = stmt.executeQuery(MERGE_SQL)) {
+                    rs.next();
+                    inserted = rs.getLong(1);
+                    updated = rs.getLong(2);
+                }
+                if (history) {
+                    recordImport(conn, hash, file.getName(), rowsRead, inserted, updated);
+                }
+                conn.commit();
+                return new Result(file.getName(), hash, false, null, rowsRead, inserted, updated);
+            } catch (Exception e) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                if (cancelled && e instanceof SQLException) {
+                    throw new CancellationException("Import cancelled");
+                }
+                throw e;
+            } finally {
+                activeStatement = null;
+                // Pooled sessions outlive this import, so the temp table must not
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(DROP_STAGE_SQL);
+                    conn.setAutoCommit(autoCommit);
+                } catch (SQLException e) {
+                    // A broken connection is discarded by the pool along with its temp table
+                }
+            }
+        }
+    }
+
+    // May be called from any thread
+    public void cancel() {
+        cancelled = true;
+        Statement statement = activeStatement;
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                System.err.println("Could not cancel upsert: " + e.getMessage());
+            }
+        }
+    }
+
+    private long stage(Connection conn, File file, long fileSize, ImportProgress progress)
+            throws IOException, SQLException {
+        RecordBatch batch = new RecordBatch(batchSize);
+        long rows = 0;
+        try (CountingInputStream in = new CountingInputStream(new FileInputStream(file));
+             CsvTokenizer csv = new CsvTokenizer(new InputStreamReader(in, StandardCharsets.UTF_8));
+             PreparedStatement pstmt = track(conn.prepareStatement(STAGE_INSERT_SQL))) {
+            if (!csv.next()) {
+                throw new IOException("CSV file is empty");
+            }
+            while (csv.next()) {
+                if (csv.getFieldCount() == 1 && csv.isEmpty(0)) {
+                    continue;
+                }
+                if (batch.isEmpty()) {
+                    batch.setFirstLine(csv.getLineNumber());
+                }
+                try {
+                    batch.add(csv);
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Error on line " + csv.getLineNumber() + ": "
+                        + csv.getRecordText() + " (" + e.getMessage() + ")", e);
+                }
+                if (batch.isFull()) {
+                    rows += flush(batch, pstmt, progress, in.getCount(), fileSize);
+                }
+            }
+            rows += flush(batch, pstmt, progress, fileSize, fileSize);
+        }
+        return rows;
+    }
+
+    private int flush(RecordBatch batch, PreparedStatement pstmt, ImportProgress progress,
+                      long bytesRead, long fileSize) throws SQLException {
+        checkCancelled();
+        int rows = batch.size();
+        if (rows == 0) {
+            return 0;
+        }
+        long start = Metrics.start();
+        try {
+            batch.addBatchTo(pstmt);
+            pstmt.executeBatch();
+        } catch (SQLException e) {
+            throw new SQLException("Error staging batch starting at line " + batch.getFirstLine()
+                + ": " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+        }
+        Metrics.getInstance().recordBatch(start, rows);
+        batch.clear();
+        if (progress != null) {
+            progress.batchWritten(rows, bytesRead, fileSize);
+        }
+        return rows;
+    }
+
+    private <S extends Statement> S track(S statement) {
+        activeStatement = statement;
+        return statement;
+    }
+
+    private void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Import cancelled");
+        }
+    }
+
+    private static boolean hasHistoryTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT OBJECT_ID('ImportHistory')")) {
+            if (rs.next() && rs.getObject(1) != null) {
+                return true;
+            }
+        }
+        System.err.println("ImportHistory table not found (see create_import_history.sql); "
+            + "files will not be checked for repeats");
+        return false;
+    }
+
+    // Describes the earlier import of the same content, or returns null if there was none
+    private static String findPreviousImport(Connection conn, String hash) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT FileName, ImportedAt FROM ImportHistory WHERE ContentHash = ?")) {
+            stmt.setString(1, hash);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                Timestamp at = rs.getTimestamp(2);
+                return String.format("%s on %tF %<tR", rs.getString(1), at);
+            }
+        }
+    }
+
+    private static void recordImport(Connection conn, String hash, String fileName, long rowsRead,
+                                     long inserted, long updated) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO ImportHistory (ContentHash, FileName, RowsRead, RowsInserted, RowsUpdated) " +
+                "VALUES (?, ?, ?, ?, ?)")) {
+            stmt.setString(1, hash);
+            stmt.setString(2, fileName);
+            stmt.setLong(3, rowsRead);
+            stmt.setLong(4, inserted);
+            stmt.setLong(5, updated);
+            stmt.executeUpdate();
+        }
+    }
+
+    static String sha256(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    public static final class Result {
+        public final String fileName;
+        public final String hash;
+        public final boolean skipped;
+        public final String previousImport;  // set when skipped
+        public final long rowsRead;
+        public final long inserted;
+        public final long updated;
+
+        Result(String fileName, String hash, boolean skipped, String previousImport, long rowsRead,
+               long inserted, long updated) {
+            this.fileName = fileName;
+            this.hash = hash;
+            this.skipped = skipped;
+            this.previousImport = previousImport;
+            this.rowsRead = rowsRead;
+            this.inserted = inserted;
+            this.updated = updated;
+        }
+
+        // Rows that matched an existing record with the same BirthCount (or repeated a key in the file)
+        public long getUnchanged() {
+            return rowsRead - inserted - updated;
+        }
+
+        @Override
+        public String toString() {
+            if (skipped) {
+                return "Skipped " + fileName + ": the same content was already imported as " + previousImport;
+            }
+            return String.format("Merged %s: %d rows read, %d inserted, %d updated, %d unchanged",
+                fileName, rowsRead, inserted, updated, getUnchanged());
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package birthstats;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// Output buffer for the exporters. Text is encoded to UTF-8 by hand straight into one reusable
+// byte array, which is written to a file channel in large blocks. Nothing is allocated per row.
+public class Utf8Sink implements Closeable {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final WritableByteChannel channel;
+    private final byte[] buffer;
+    private final ByteBuffer view;
+    private int pos;
+    private long bytesWritten;
+
+    public Utf8Sink(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = new byte[Math.max(4096, bufferSize)];
+        this.view = ByteBuffer.wrap(buffer);
+    }
+
+    // Creates or truncates the file; with gzip the bytes pass through a GZIPOutputStream first
+    public static Utf8Sink open(File file, boolean gzip, int bufferSize) throws IOException {
+        FileChannel fileChannel = FileChannel.open(file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        if (!gzip) {
+            return new Utf8Sink(fileChannel, bufferSize);
+        }
+        try {
+            // Fastest deflate level: keeps gzip exports close to disk speed at a small cost in size
+            GZIPOutputStream zip = new GZIPOutputStream(Channels.newOutputStream(fileChannel), 65536) {
+                {
+                    def.setLevel(Deflater.BEST_SPEED);
+                }
+            };
+            return new Utf8Sink(Channels.newChannel(zip), bufferSize);
+        } catch (IOException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    // Bytes handed to the channel so far plus what is still buffered (before compression)
+    public long getBytesWritten() {
+        return bytesWritten + pos;
+    }
+
+    public Utf8Sink append(char c) throws IOException {
+        if (c < 0x80) {
+            if (pos == buffer.length) {
+                flushBuffer();
+            }
+            buffer[pos++] = (byte) c;
+        } else {
+            encode(c, (char) 0);
+        }
+        return this;
+    }
+
+    public Utf8Sink append(String s) throws IOException {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (pos == buffer.length) {
+                    flushBuffer();
+                }
+                buffer[pos++] = (byte) c;
+            } else {
+                i += encode(c, i + 1 < n ? s.charAt(i + 1) : 0);
+            }
+        }
+        return this;
+    }
+
+    public Utf8Sink append(int value) throws IOException {
+        if (value == Integer.MIN_VALUE) {
+            return append(Integer.toString(value));
+        }
+        ensure(11);
+        if (value < 0) {
+            buffer[pos++] = '-';
+            value = -value;
+        }
+        int end = pos + digits(value);
+        for (int i = end - 1; i >= pos; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        pos = end;
+        return this;
+    }
+
+    // CSV text field: always quoted, embedded quotes doubled, null written as an empty field
+    public Utf8Sink appendCsvQuoted(String s) throws IOException {
+        if (s == null) {
+            return this;
+        }
+        append('"');
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c == '"') {
+                append('"').append('"');
+            } else if (c < 0x80) {
+                append(c);
+            } else {
+                i += encode(c, i + 1 < n ? s.charAt(i + 1) : 0);
+            }
+        }
+        return append('"');
+    }
+
+    // JSON string literal including the quotes; null becomes the null literal
+    public Utf8Sink appendJsonString(String s) throws IOException {
+        if (s == null) {
+            return append("null");
+        }
+        append('"');
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                append('\\').append(c);
+            } else if (c < 0x20) {
+                appendControlEscape(c);
+            } else if (c < 0x80) {
+                append(c);
+            } else {
+                i += encode(c, i + 1 < n ? s.charAt(i + 1) : 0);
+            }
+        }
+        return append('"');
+    }
+
+    // XML character data with &, < and > escaped; control characters XML 1.0 forbids are dropped
+    public Utf8Sink appendXmlText(String s) throws IOException {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c == '&') {
+                append("&amp;");
+            } else if (c == '<') {
+                append("&lt;");
+            } else if (c == '>') {
+                append("&gt;");
+            } else if (c < 0x20) {
+                if (c == '\t' || c == '\n' || c == '\r') {
+                    append(c);
+                }
+            } else if (c < 0x80) {
+                append(c);
+            } else {
+                i += encode(c, i + 1 < n ? s.charAt(i + 1) : 0);
+            }
+        }
+        return this;
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Encodes one non-ASCII char; returns 1 if it consumed the following low surrogate as well
+    private int encode(char c, char next) throws IOException {
+        ensure(4);
+        if (c < 0x800) {
+            buffer[pos++] = (byte) (0xC0 | (c >> 6));
+            buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+            return 0;
+        }
+        if (Character.isHighSurrogate(c) && Character.isLowSurrogate(next)) {
+            int cp = Character.toCodePoint(c, next);
+            buffer[pos++] = (byte) (0xF0 | (cp >> 18));
+            buffer[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+            buffer[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+            buffer[pos++] = (byte) (0x80 | (cp & 0x3F));
+            return 1;
+        }
+        if (Character.isSurrogate(c)) {
+            buffer[pos++] = '?';  // Unpaired surrogate, same as the JDK encoder
+            return 0;
+        }
+        buffer[pos++] = (byte) (0xE0 | (c >> 12));
+        buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+        return 0;
+    }
+
+    private void appendControlEscape(char c) throws IOException {
+        switch (c) {
+            case '\n':
+                append("\\n");
+                break;
+            case '\r':
+                append("\\r");
+                break;
+            case '\t':
+                append("\\t");
+                break;
+            default:
+                append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                break;
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (pos + bytes > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (pos == 0) {
+            return;
+        }
+        view.clear();
+        view.limit(pos);
+        while (view.hasRemaining()) {
+            channel.write(view);
+        }
+        bytesWritten += pos;
+        pos = 0;
+    }
+
+    private static int digits(int value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
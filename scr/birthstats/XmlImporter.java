@@ -0,0 +1,161 @@
+package birthstats;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.sql.Connection;
+
+// Streaming import of the XML written by exportToXML():
+// <birthStats><record><year>..</year><recordType>..</recordType>...</record>...</birthStats>
+// Elements are read with a StAX XMLStreamReader and mapped straight to columns, no DOM is built.
+// Rows are inserted in csv.batch.size batches inside one transaction.
+public class XmlImporter {
+    private final ConnectionPool pool;
+    private final int batchSize;
+    private volatile BatchInserter inserter;
+    private volatile boolean cancelled;
+
+    public XmlImporter(ConnectionPool pool, int batchSize) {
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+
+    public static XmlImporter fromConfig(ConfigManager config, ConnectionPool pool) {
+        return new XmlImporter(pool, config.getCsvBatchSize());
+    }
+
+    public long run(File file, ImportProgress progress) throws Exception {
+        long fileSize = file.length();
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        // Data files never need a DTD; refusing them also rules out external entity tricks
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+
+        try (Connection conn = pool.getConnection();
+             CountingInputStream in = new CountingInputStream(new FileInputStream(file));
+             InputStream data = JsonImporter.decompress(file, in);
+             BatchInserter batches = new BatchInserter(conn, batchSize, progress, in, fileSize)) {
+            inserter = batches;
+            if (cancelled) {
+                batches.cancel();
+            }
+
+            // The reader picks up the encoding from the XML declaration
+            XMLStreamReader xml = factory.createXMLStreamReader(data);
+            try {
+                xml.nextTag();
+                if (!"birthStats".equals(xml.getLocalName())) {
+                    throw error(xml, "Expected <birthStats> as the root element, found <" + xml.getLocalName() + ">");
+                }
+                while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    if ("record".equals(xml.getLocalName())) {
+                        readRecord(xml, batches);
+                    } else {
+                        skipElement(xml);
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+            return batches.finish();
+        } finally {
+            inserter = null;
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+        BatchInserter current = inserter;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    private static void readRecord(XMLStreamReader xml, BatchInserter batches) throws Exception {
+        int line = xml.getLocation().getLineNumber();
+        Integer year = null;
+        Integer count = null;
+        String type = null;
+        String code = null;
+        String name = null;
+        String sex = null;
+        String weight = null;
+        String multiple = null;
+
+        while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (xml.getLocalName()) {
+                case "year":
+                    year = readInt(xml);
+                    break;
+                case "birthCount":
+                    count = readInt(xml);
+                    break;
+                case "recordType":
+                    type = readString(xml);
+                    break;
+                case "areaCode":
+                    code = readString(xml);
+                    break;
+                case "areaName":
+                    name = readString(xml);
+                    break;
+                case "gender":
+                    sex = readString(xml);
+                    break;
+                case "birthWeight":
+                    weight = readString(xml);
+                    break;
+                case "multipleBirth":
+                    multiple = readString(xml);
+                    break;
+                default:
+                    skipElement(xml);
+                    break;
+            }
+        }
+        if (year == null || count == null) {
+            throw new IllegalArgumentException("Record starting on line " + line + " is missing <"
+                + (year == null ? "year" : "birthCount") + ">");
+        }
+        batches.add(year, type, code, name, sex, weight, multiple, count);
+    }
+
+    private static Integer readInt(XMLStreamReader xml) throws XMLStreamException {
+        String text = xml.getElementText().trim();
+        if (text.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw error(xml, "Expected a whole number, got '" + text + "'");
+        }
+    }
+
+    // Trimmed like the other importers; a missing element stays NULL
+    private static String readString(XMLStreamReader xml) throws XMLStreamException {
+        return xml.getElementText().trim();
+    }
+
+    // Skips the current element and everything inside it
+    private static void skipElement(XMLStreamReader xml) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static XMLStreamException error(XMLStreamReader xml, String message) {
+        return new XMLStreamException(message, xml.getLocation());
+    }
+}
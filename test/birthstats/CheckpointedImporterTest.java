@@ -0,0 +1,155 @@
+package birthstats;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CheckpointedImporterTest {
+    private static final String HEADER =
+        "StatYear,RecordType,AreaCode,AreaName,Gender,BirthWeight,MultipleBirth,BirthCount";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final FakeDriver.Database db = FakeDriver.newDatabase();
+    private ConnectionPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new ConnectionPool(db.url, "user", "password", 2, 0, 1000, 60000, 0, 1);
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+    }
+
+    private static String row(int i) {
+        return "2020,Live,A" + i + ",Area " + i + ",M,2500-2999,Single," + i;
+    }
+
+    private File writeCsv(int rows) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        for (int i = 1; i <= rows; i++) {
+            lines.add(row(i));
+        }
+        File csv = folder.newFile("births.csv");
+        Files.write(csv.toPath(), lines, StandardCharsets.UTF_8);
+        return csv;
+    }
+
+    private CheckpointedImporter.Result runImport(File csv) throws Exception {
+        // Batches of 100 rows, a commit after every block of the file
+        return new CheckpointedImporter(pool, 100, 1, new File(folder.getRoot(), "errors.log")).run(csv, null);
+    }
+
+    private void withCheckpointTable(Object[][] checkpointRow) {
+        db.queries = sql -> {
+            if (sql.contains("OBJECT_ID('ImportCheckpoint')")) {
+                return new Object[][] {{1}};
+            }
+            if (sql.contains("FROM ImportCheckpoint")) {
+                return checkpointRow;
+            }
+            return new Object[0][];
+        };
+    }
+
+    @Test
+    public void everyCommitCarriesTheCheckpointOfItsRows() throws Exception {
+        withCheckpointTable(new Object[0][]);
+        // Larger than one 256 KB block, so the import commits more than once
+        File csv = writeCsv(8000);
+        assertEquals(8000, runImport(csv).totalRows);
+
+        boolean rowsPending = false;
+        boolean checkpointPending = false;
+        int commits = 0;
+        for (String entry : db.logSnapshot()) {
+            if (entry.contains(" batch ")) {
+                rowsPending = true;
+            } else if (entry.contains("UPDATE ImportCheckpoint") || entry.contains("DELETE FROM ImportCheckpoint")) {
+                checkpointPending = true;
+            } else if (entry.endsWith(" commit") && rowsPending) {
+                assertTrue("Rows committed without their checkpoint", checkpointPending);
+                rowsPending = false;
+                checkpointPending = false;
+                commits++;
+            }
+        }
+        assertTrue(commits > 1);
+        assertFalse(CheckpointedImporter.checkpointFile(csv).exists());
+
+        List<String> log = db.logSnapshot();
+        int lastBatch = -1;
+        int delete = -1;
+        for (int i = 0; i < log.size(); i++) {
+            if (log.get(i).contains(" batch ")) {
+                lastBatch = i;
+            } else if (log.get(i).contains("DELETE FROM ImportCheckpoint")) {
+                delete = i;
+            }
+        }
+        assertTrue("The final commit forgets the checkpoint", delete > lastBatch);
+    }
+
+    private static int lastRecordEnd(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return CheckpointedImporter.lastRecordEnd(bytes, bytes.length);
+    }
+
+    @Test
+    public void blocksAreCutOnRecordsTheWayTheTokenizerReadsThem() {
+        // A stray quote inside an unquoted field is an ordinary character
+        String stray = "2020,Live,A1,O\"Neil,M,2500-2999,Single,1\n";
+        assertEquals((stray + stray).length(), lastRecordEnd(stray + stray + "2020,Li"));
+        // A newline inside a quoted field, with an escaped quote, is not a record end
+        String quoted = "2020,Live,A1,\"North\n\"\"East\"\"\",M,2500-2999,Single,1\n";
+        assertEquals(quoted.length(), lastRecordEnd(quoted + "2020,\"Li\nve"));
+        assertEquals(0, lastRecordEnd("2020,\"Li\nve"));
+        // A quote that opens a field after blanks still quotes it
+        String padded = "2020, \"a\nb\",A1\n";
+        assertEquals(padded.length(), lastRecordEnd(padded));
+        assertEquals(0, lastRecordEnd("\uFEFF\"Stat\nYear\""));
+    }
+
+    @Test
+    public void resumesFromTheCheckpointRow() throws Exception {
+        File csv = writeCsv(7);
+        long offset = (HEADER + "\n").length();
+        for (int i = 1; i <= 3; i++) {
+            offset += (row(i) + "\n").length();
+        }
+        withCheckpointTable(new Object[][] {{offset, 5L, 3L, 0L}});
+
+        CheckpointedImporter.Result result = runImport(csv);
+        assertEquals(7, result.totalRows);
+        assertEquals(4, result.rowsThisRun);
+        assertEquals(5, result.resumedFromLine);
+    }
+
+    @Test
+    public void withoutTheTableTheCheckpointFallsBackToAFile() throws Exception {
+        db.queries = sql -> sql.contains("OBJECT_ID") ? new Object[][] {{null}} : new Object[0][];
+        File csv = writeCsv(7);
+        assertEquals(7, runImport(csv).totalRows);
+
+        assertFalse(db.logSnapshot().stream().anyMatch(e -> e.contains("ImportCheckpoint (")
+            || e.contains("UPDATE ImportCheckpoint")));
+        assertFalse(CheckpointedImporter.checkpointFile(csv).exists());
+    }
+}
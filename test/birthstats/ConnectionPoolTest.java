@@ -0,0 +1,193 @@
+package birthstats;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConnectionPoolTest {
+    private final FakeDriver.Database db = FakeDriver.newDatabase();
+    private ConnectionPool pool;
+
+    @After
+    public void closePool() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private ConnectionPool newPool(int maxSize, int minIdle, long timeoutMs, long idleTimeoutMs, long leakMs) {
+        pool = new ConnectionPool(db.url, "user", "password", maxSize, minIdle, timeoutMs, idleTimeoutMs, leakMs, 1);
+        return pool;
+    }
+
+    @Test
+    public void closeReturnsTheConnectionToThePool() throws SQLException {
+        newPool(2, 0, 1000, 60000, 0);
+        Connection first = pool.getConnection();
+        assertEquals(1, pool.getStats().active);
+        first.close();
+        first.close();
+        assertTrue(first.isClosed());
+        assertEquals(0, pool.getStats().active);
+        assertEquals(1, pool.getStats().idle);
+
+        try (Connection second = pool.getConnection()) {
+            assertFalse(second.isClosed());
+        }
+        assertEquals(1, db.connections.size());
+        assertFalse(db.connections.get(0).closed);
+    }
+
+    @Test
+    public void aClosedHandleCannotReachTheConnection() throws SQLException {
+        newPool(1, 0, 1000, 60000, 0);
+        Connection handle = pool.getConnection();
+        handle.close();
+        try (Connection other = pool.getConnection()) {
+            handle.createStatement();
+            fail("A closed handle must not reach the connection lent to someone else");
+        } catch (SQLException expected) {
+            // Connection is closed
+        }
+    }
+
+    @Test
+    public void borrowTimesOutWhenThePoolIsExhausted() throws SQLException {
+        newPool(1, 0, 100, 60000, 0);
+        try (Connection held = pool.getConnection()) {
+            long start = System.nanoTime();
+            try {
+                pool.getConnection();
+                fail("Expected a timeout");
+            } catch (SQLTransientConnectionException expected) {
+                assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+            }
+        }
+        assertEquals(1, pool.getStats().timeouts);
+    }
+
+    @Test
+    public void aWaitingBorrowerGetsTheReturnedConnection() throws Exception {
+        newPool(1, 0, 5000, 60000, 0);
+        Connection held = pool.getConnection();
+        CompletableFuture<Connection> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.getConnection();
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        while (pool.getStats().waiting == 0) {
+            Thread.sleep(5);
+        }
+        held.close();
+        waiter.get(5, TimeUnit.SECONDS).close();
+        assertEquals(1, db.connections.size());
+    }
+
+    @Test
+    public void uncommittedWorkIsRolledBackOnReturn() throws SQLException {
+        newPool(1, 0, 1000, 60000, 0);
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+        }
+        assertTrue(db.logSnapshot().contains("1 rollback"));
+        assertTrue(db.connections.get(0).autoCommit);
+    }
+
+    @Test
+    public void anInvalidIdleConnectionIsReplacedOnBorrow() throws Exception {
+        newPool(2, 0, 1000, 60000, 0);
+        pool.getConnection().close();
+        Thread.sleep(600);  // Past the window in which a just-returned connection skips validation
+        db.connections.get(0).valid = false;
+
+        try (Connection conn = pool.getConnection()) {
+            assertFalse(conn.isClosed());
+        }
+        assertEquals(2, db.connections.size());
+        assertTrue(db.connections.get(0).closed);
+        assertEquals(1, pool.getStats().validationFailures);
+        assertEquals(1, pool.getStats().total);
+    }
+
+    @Test
+    public void housekeepingClosesIdleConnectionsDownToMinIdle() throws Exception {
+        newPool(3, 1, 1000, 1, 0);
+        Connection a = pool.getConnection();
+        Connection b = pool.getConnection();
+        Connection c = pool.getConnection();
+        a.close();
+        b.close();
+        c.close();
+        Thread.sleep(20);
+
+        pool.housekeep();
+        assertEquals(1, pool.getStats().idle);
+        assertEquals(1, pool.getStats().total);
+        assertEquals(2, pool.getStats().destroyed);
+    }
+
+    @Test
+    public void housekeepingTopsIdleConnectionsUpToMinIdle() throws SQLException {
+        newPool(5, 2, 1000, 60000, 0);
+        pool.housekeep();
+        assertEquals("An unused pool does not connect on its own", 0, db.connections.size());
+
+        pool.getConnection().close();
+        pool.housekeep();
+        assertEquals(2, pool.getStats().idle);
+        assertEquals(2, db.connections.size());
+
+        try (Connection held = pool.getConnection()) {
+            pool.housekeep();
+            assertEquals(2, pool.getStats().idle);
+            assertEquals(3, pool.getStats().total);
+        }
+    }
+
+    @Test
+    public void replenishingGivesUpQuietlyWhenTheDatabaseIsDown() throws SQLException {
+        newPool(5, 2, 1000, 60000, 0);
+        pool.getConnection().close();
+        db.unreachable = true;
+        pool.housekeep();
+        assertEquals(1, pool.getStats().total);
+        assertEquals(1, pool.getStats().idle);
+    }
+
+    @Test
+    public void aConnectionHeldTooLongIsReportedAsALeak() throws Exception {
+        newPool(2, 0, 1000, 60000, 10);
+        try (Connection held = pool.getConnection()) {
+            Thread.sleep(30);
+            pool.housekeep();
+            pool.housekeep();
+        }
+        assertEquals(1, pool.getStats().leaks);
+    }
+
+    @Test
+    public void closingThePoolClosesIdleConnections() throws SQLException {
+        newPool(2, 0, 1000, 60000, 0);
+        pool.getConnection().close();
+        pool.close();
+        assertTrue(db.connections.get(0).closed);
+        try {
+            pool.getConnection();
+            fail("Expected the closed pool to refuse");
+        } catch (SQLException expected) {
+            // Connection pool is closed
+        }
+    }
+}
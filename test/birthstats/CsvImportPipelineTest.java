@@ -0,0 +1,217 @@
+package birthstats;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CsvImportPipelineTest {
+    private static final String MOVE = "execute INSERT INTO BirthStatistics ";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final FakeDriver.Database db = FakeDriver.newDatabase();
+    private ConnectionPool pool;
+    private File csv;
+
+    @Before
+    public void setUp() throws IOException {
+        pool = new ConnectionPool(db.url, "user", "password", 3, 0, 1000, 60000, 0, 1);
+        List<String> lines = new ArrayList<>();
+        lines.add("StatYear,RecordType,AreaCode,AreaName,Gender,BirthWeight,MultipleBirth,BirthCount");
+        for (int i = 1; i <= 7; i++) {
+            lines.add("2020,Live,A" + i + ",Area " + i + ",M,2500-2999,Single," + i);
+        }
+        csv = folder.newFile("births.csv");
+        Files.write(csv.toPath(), lines, StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+    }
+
+    // With the summary trigger installed, more than one writer stages the import
+    private void withSummaryTable() {
+        db.queries = sql -> sql.contains("OBJECT_ID('BirthSummaryArea')") ? new Object[][] {{1}} : new Object[0][];
+    }
+
+    private long runImport() throws Exception {
+        // Two writers, batches of two rows
+        return new CsvImportPipeline(pool, 2, 2, 2, 4).run(csv, null);
+    }
+
+    @Test
+    public void withTheSummaryTriggerWritersFillTheStageAndOneTransactionMovesTheRows() throws Exception {
+        withSummaryTable();
+        assertEquals(7, runImport());
+
+        List<String> log = db.logSnapshot();
+        int staged = 0;
+        for (String entry : log) {
+            String what = entry.substring(entry.indexOf(' ') + 1);
+            if (what.startsWith("batch ")) {
+                assertTrue(entry, what.contains("INSERT INTO ##BirthImport_"));
+                staged += Integer.parseInt(what.split(" ")[1]);
+            }
+        }
+        assertEquals(7, staged);
+
+        List<String> moves = log.stream().filter(e -> e.contains(MOVE)).collect(Collectors.toList());
+        assertEquals(1, moves.size());
+        assertTrue(moves.get(0).startsWith("1 "));
+        assertTrue("Moved once every writer is done", log.indexOf(moves.get(0)) > lastIndexOf(log, " batch "));
+        assertTrue(moves.get(0).contains("FROM ##BirthImport_"));
+        assertEquals("1 commit", nextEntryOf(log, log.indexOf(moves.get(0)), "1"));
+        assertTrue(log.stream().skip(log.indexOf(moves.get(0))).anyMatch(e -> e.contains("DROP TABLE ##BirthImport_")));
+    }
+
+    @Test
+    public void onTheStarSchemaNewDimensionValuesAreAddedBeforeTheMove() throws Exception {
+        db.queries = sql -> sql.contains("'IsView'") ? new Object[][] {{1}} : new Object[0][];
+        assertEquals(7, runImport());
+
+        List<String> log = db.logSnapshot();
+        int move = indexOf(log, "1 " + MOVE);
+        List<String> dimensions = log.subList(0, move).stream()
+            .filter(e -> e.startsWith("1 execute INSERT INTO Dim")).collect(Collectors.toList());
+        assertEquals(5, dimensions.size());
+        for (String entry : dimensions) {
+            assertTrue(entry, entry.contains("FROM ##BirthImport_"));
+            assertTrue("Added after the last staged batch", log.indexOf(entry) > lastIndexOf(log, " batch "));
+        }
+    }
+
+    @Test
+    public void aFailedMoveCommitsNothing() throws Exception {
+        withSummaryTable();
+        db.failing = sql -> sql.startsWith("INSERT INTO BirthStatistics ");
+        try {
+            runImport();
+            fail("Expected the move to fail");
+        } catch (SQLException expected) {
+            // Injected failure
+        }
+
+        List<String> log = db.logSnapshot();
+        int failedAt = indexOf(log, "1 failed INSERT INTO BirthStatistics ");
+        assertTrue(failedAt >= 0);
+        assertEquals("1 rollback", nextEntryOf(log, failedAt, "1"));
+        assertTrue(log.stream().skip(failedAt).anyMatch(e -> e.contains("DROP TABLE ##BirthImport_")));
+    }
+
+    @Test
+    public void aFailedStagingWriterNeverTouchesBirthStatistics() throws Exception {
+        withSummaryTable();
+        db.failing = sql -> sql.startsWith("INSERT INTO ##BirthImport_");
+        try {
+            runImport();
+            fail("Expected the writers to fail");
+        } catch (SQLException expected) {
+            // Injected failure
+        }
+
+        List<String> log = db.logSnapshot();
+        assertFalse(log.stream().anyMatch(e -> e.contains("INSERT INTO BirthStatistics")));
+        assertTrue(log.stream().anyMatch(e -> e.contains("DROP TABLE ##BirthImport_")));
+        assertEquals(0, pool.getStats().active);
+    }
+
+    @Test
+    public void withoutTriggersWritersInsertDirectlyAndCommitAtTheEnd() throws Exception {
+        assertEquals(7, runImport());
+
+        List<String> log = db.logSnapshot();
+        assertFalse(log.stream().anyMatch(e -> e.contains("##BirthImport_")));
+        int staged = 0;
+        for (String entry : log) {
+            if (entry.contains(" batch ")) {
+                assertTrue(entry, entry.contains("INSERT INTO BirthStatistics"));
+                staged += Integer.parseInt(entry.split(" ")[2]);
+            }
+        }
+        assertEquals(7, staged);
+        int lastBatch = lastIndexOf(log, " batch ");
+        for (String connection : new String[] {"1", "2"}) {
+            int commit = indexOf(log, connection + " commit");
+            assertTrue("Writer " + connection + " commits once all writers are done", commit > lastBatch);
+        }
+    }
+
+    @Test
+    public void aFailedDirectWriterCommitsNothing() throws Exception {
+        db.failing = sql -> sql.startsWith("INSERT INTO BirthStatistics");
+        try {
+            runImport();
+            fail("Expected the writers to fail");
+        } catch (SQLException expected) {
+            // Injected failure
+        }
+
+        List<String> log = db.logSnapshot();
+        for (String connection : new String[] {"1", "2"}) {
+            int rollback = indexOf(log, connection + " rollback");
+            int commit = indexOf(log, connection + " commit");
+            assertTrue(rollback >= 0);
+            assertTrue("Writer " + connection + " rolled back before anything else", commit < 0 || commit > rollback);
+        }
+    }
+
+    @Test
+    public void aCommitFailingAfterAnotherWriterCommittedIsReported() throws Exception {
+        AtomicInteger commits = new AtomicInteger();
+        db.failing = sql -> sql.equals("COMMIT") && commits.incrementAndGet() == 2;
+        try {
+            runImport();
+            fail("Expected the second commit to fail");
+        } catch (SQLException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith("Import partly saved"));
+            assertTrue(expected.getMessage(), expected.getMessage().contains("of 7 rows were committed"));
+        }
+    }
+
+    private static int indexOf(List<String> log, String prefix) {
+        for (int i = 0; i < log.size(); i++) {
+            if (log.get(i).startsWith(prefix)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(List<String> log, String part) {
+        for (int i = log.size() - 1; i >= 0; i--) {
+            if (log.get(i).contains(part)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // The next thing the same connection did after log entry i
+    private static String nextEntryOf(List<String> log, int i, String connection) {
+        for (int j = i + 1; j < log.size(); j++) {
+            if (log.get(j).startsWith(connection + " ")) {
+                return log.get(j);
+            }
+        }
+        return null;
+    }
+}
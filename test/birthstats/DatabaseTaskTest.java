@@ -0,0 +1,85 @@
+package birthstats;
+
+import org.junit.Test;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DatabaseTaskTest {
+
+    // A worker that, like a JDBC call, does not stop when interrupted
+    private static final class StubbornTask extends DatabaseTask<Void, Void> {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean workerRunning = new AtomicBoolean();
+        volatile boolean cancelledWhileRunning;
+        final CountDownLatch cancelledCalled = new CountDownLatch(1);
+
+        StubbornTask() {
+            super("Stubborn", Metrics.Operation.EXPORT);
+        }
+
+        @Override
+        protected Void runInBackground() {
+            workerRunning.set(true);
+            started.countDown();
+            while (true) {
+                try {
+                    release.await();
+                    break;
+                } catch (InterruptedException e) {
+                    // Keep going, the way a statement that ignores interrupts would
+                }
+            }
+            workerRunning.set(false);
+            return null;
+        }
+
+        @Override
+        protected void cancelled() {
+            cancelledWhileRunning = workerRunning.get();
+            cancelledCalled.countDown();
+        }
+    }
+
+    private static boolean finishedOnEdt(DatabaseTask<?, ?> task) throws Exception {
+        boolean[] finished = new boolean[1];
+        SwingUtilities.invokeAndWait(() -> finished[0] = task.isFinished());
+        return finished[0];
+    }
+
+    @Test
+    public void cancelledRunsOnlyAfterTheWorkerHasExited() throws Exception {
+        long cancelledBefore = Metrics.getInstance().getStats(Metrics.Operation.EXPORT).getCancelled();
+        StubbornTask task = new StubbornTask();
+        task.execute();
+        assertTrue(task.started.await(5, TimeUnit.SECONDS));
+
+        SwingUtilities.invokeAndWait(task::cancelTask);
+        assertTrue(task.isDone());
+        assertFalse(task.cancelledCalled.await(200, TimeUnit.MILLISECONDS));
+        assertFalse("Still busy while the worker runs", finishedOnEdt(task));
+
+        task.release.countDown();
+        assertTrue(task.cancelledCalled.await(5, TimeUnit.SECONDS));
+        assertFalse(task.cancelledWhileRunning);
+        assertTrue(finishedOnEdt(task));
+        assertEquals(cancelledBefore + 1, Metrics.getInstance().getStats(Metrics.Operation.EXPORT).getCancelled());
+    }
+
+    @Test
+    public void aTaskCancelledBeforeItStartsFinishesAtOnce() throws Exception {
+        StubbornTask task = new StubbornTask();
+        SwingUtilities.invokeAndWait(task::cancelTask);
+        task.execute();
+        assertTrue(task.cancelledCalled.await(5, TimeUnit.SECONDS));
+        assertTrue(finishedOnEdt(task));
+        assertFalse(task.workerRunning.get());
+    }
+}
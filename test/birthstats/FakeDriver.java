@@ -0,0 +1,268 @@
+package birthstats;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+// Stand-in JDBC driver for tests. "jdbc:fake:<name>" connects to an in-memory Database that
+// records every statement run through it; queries answer from a test-supplied function.
+final class FakeDriver implements Driver {
+    private static final String PREFIX = "jdbc:fake:";
+    private static final Map<String, Database> DATABASES = new ConcurrentHashMap<>();
+    private static final AtomicInteger NAMES = new AtomicInteger();
+
+    static {
+        try {
+            DriverManager.registerDriver(new FakeDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // A fresh database with its own URL
+    static Database newDatabase() {
+        Database db = new Database(PREFIX + "db" + NAMES.incrementAndGet());
+        DATABASES.put(db.url, db);
+        return db;
+    }
+
+    static final class Database {
+        final String url;
+        final List<FakeConnection> connections = Collections.synchronizedList(new ArrayList<>());
+        // Each entry: "<connection number> <what>", e.g. "2 batch 500 INSERT INTO ..." or "1 commit"
+        final List<String> log = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean unreachable;
+        volatile Function<String, Object[][]> queries = sql -> new Object[0][];
+        // Statements matching this fail with an SQLException instead of running; commit() is "COMMIT"
+        volatile Predicate<String> failing = sql -> false;
+
+        Database(String url) {
+            this.url = url;
+        }
+
+        List<String> logSnapshot() {
+            synchronized (log) {
+                return new ArrayList<>(log);
+            }
+        }
+    }
+
+    static final class FakeConnection {
+        final Database db;
+        final int number;
+        volatile boolean closed;
+        volatile boolean valid = true;
+        volatile boolean autoCommit = true;
+
+        FakeConnection(Database db, int number) {
+            this.db = db;
+            this.number = number;
+        }
+
+        void log(String entry) {
+            db.log.add(number + " " + entry);
+        }
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(FakeDriver.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (p, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            closed = true;
+                            return null;
+                        case "isClosed":
+                            return closed;
+                        case "isValid":
+                            return valid && !closed;
+                        case "getAutoCommit":
+                            return autoCommit;
+                        case "setAutoCommit":
+                            if (!autoCommit && (Boolean) args[0]) {
+                                log("commit");
+                            }
+                            autoCommit = (Boolean) args[0];
+                            return null;
+                        case "commit":
+                            check("COMMIT");
+                            log("commit");
+                            return null;
+                        case "rollback":
+                            log("rollback");
+                            return null;
+                        case "createStatement":
+                            return statement(null);
+                        case "prepareStatement":
+                            return statement((String) args[0]);
+                        case "isWrapperFor":
+                            return false;
+                        case "hashCode":
+                            return System.identityHashCode(p);
+                        case "equals":
+                            return p == args[0];
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+        }
+
+        // Serves both Statement and PreparedStatement; parameters are ignored
+        private Statement statement(String preparedSql) {
+            List<String> batch = new ArrayList<>();
+            return (Statement) Proxy.newProxyInstance(FakeDriver.class.getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, (p, method, args) -> {
+                    if (closed) {
+                        throw new SQLException("Connection is closed");
+                    }
+                    switch (method.getName()) {
+                        case "addBatch":
+                            batch.add(args == null ? preparedSql : (String) args[0]);
+                            return null;
+                        case "executeBatch": {
+                            check(batch.get(0));
+                            log("batch " + batch.size() + " " + batch.get(0));
+                            int[] counts = new int[batch.size()];
+                            Arrays.fill(counts, 1);
+                            batch.clear();
+                            return counts;
+                        }
+                        case "execute":
+                        case "executeUpdate": {
+                            String sql = args != null && args.length > 0 && args[0] instanceof String
+                                ? (String) args[0] : preparedSql;
+                            check(sql);
+                            log("execute " + sql);
+                            return method.getName().equals("execute") ? (Object) false : (Object) 1;
+                        }
+                        case "executeQuery": {
+                            String sql = args != null && args.length > 0 ? (String) args[0] : preparedSql;
+                            check(sql);
+                            log("query " + sql);
+                            return resultSet(db.queries.apply(sql));
+                        }
+                        case "hashCode":
+                            return System.identityHashCode(p);
+                        case "equals":
+                            return p == args[0];
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+        }
+
+        private void check(String sql) throws SQLException {
+            if (db.failing.test(sql)) {
+                log("failed " + sql);
+                throw new SQLException("Injected failure: " + sql);
+            }
+        }
+
+        private static ResultSet resultSet(Object[][] rows) {
+            int[] position = {-1};
+            boolean[] wasNull = {false};
+            return (ResultSet) Proxy.newProxyInstance(FakeDriver.class.getClassLoader(),
+                new Class<?>[] {ResultSet.class}, (p, method, args) -> {
+                    switch (method.getName()) {
+                        case "next":
+                            return ++position[0] < rows.length;
+                        case "wasNull":
+                            return wasNull[0];
+                        case "getObject":
+                        case "getString":
+                        case "getInt":
+                        case "getLong": {
+                            Object value = rows[position[0]][(Integer) args[0] - 1];
+                            wasNull[0] = value == null;
+                            if (method.getName().equals("getInt")) {
+                                return value == null ? 0 : ((Number) value).intValue();
+                            }
+                            if (method.getName().equals("getLong")) {
+                                return value == null ? 0L : ((Number) value).longValue();
+                            }
+                            return method.getName().equals("getString") && value != null ? value.toString() : value;
+                        }
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+        }
+    }
+
+    // What an unimplemented method returns: nothing, false or zero
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        Database db = DATABASES.get(url);
+        if (db == null || db.unreachable) {
+            throw new SQLException("Cannot reach " + url);
+        }
+        FakeConnection conn;
+        synchronized (db.connections) {
+            conn = new FakeConnection(db, db.connections.size() + 1);
+            db.connections.add(conn);
+        }
+        return conn.proxy();
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
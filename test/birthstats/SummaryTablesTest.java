@@ -0,0 +1,66 @@
+package birthstats;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SummaryTablesTest {
+    private final FakeDriver.Database db = FakeDriver.newDatabase();
+    private ConnectionPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new ConnectionPool(db.url, "user", "password", 1, 0, 1000, 60000, 0, 1);
+        db.queries = sql -> sql.contains("OBJECT_ID('BirthSummaryArea')") ? new Object[][] {{1}} : new Object[0][];
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    public void eachViewReadsItsOwnRollup() throws Exception {
+        try (Connection conn = pool.getConnection()) {
+            assertTrue(SummaryTables.query(conn, SummaryTables.View.AREA, stmt -> { }).fromSummary);
+            SummaryTables.query(conn, SummaryTables.View.YEAR_GENDER, stmt -> { });
+        }
+        List<String> queries = db.logSnapshot().stream()
+            .filter(e -> e.contains("query SELECT") && e.contains("SUM(TotalBirths)")).collect(Collectors.toList());
+        assertEquals(2, queries.size());
+        assertTrue(queries.get(0), queries.get(0).contains("FROM BirthSummaryArea GROUP BY AreaCode, AreaName"));
+        assertTrue(queries.get(1), queries.get(1).contains("FROM BirthSummary GROUP BY StatYear, Gender"));
+    }
+
+    @Test
+    public void withoutTheRollupsTheRawRowsAreGroupedTheSameWay() throws Exception {
+        db.queries = sql -> sql.contains("OBJECT_ID") ? new Object[][] {{null}} : new Object[0][];
+        try (Connection conn = pool.getConnection()) {
+            assertFalse(SummaryTables.query(conn, SummaryTables.View.GENDER_WEIGHT, stmt -> { }).fromSummary);
+        }
+        assertTrue(db.logSnapshot().stream().anyMatch(e -> e.contains(
+            "FROM BirthStatistics GROUP BY NULLIF(Gender, N''), NULLIF(BirthWeight, N'')")));
+    }
+
+    @Test
+    public void checkRecomputesBothRollupsInOneTransaction() throws Exception {
+        try (Connection conn = pool.getConnection()) {
+            assertTrue(SummaryTables.check(conn, true, stmt -> { }).isConsistent());
+        }
+        List<String> log = db.logSnapshot();
+        List<String> diffs = log.stream().filter(e -> e.contains("UNION ALL")).collect(Collectors.toList());
+        assertEquals(2, diffs.size());
+        assertTrue(diffs.get(0), diffs.get(0).contains("FROM BirthSummary "));
+        assertTrue(diffs.get(1), diffs.get(1).contains("FROM BirthSummaryArea "));
+        assertFalse("Nothing to repair", log.stream().anyMatch(e -> e.contains("DELETE FROM BirthSummary")));
+        assertTrue("Committed once both are checked", log.indexOf("1 commit") > log.indexOf(diffs.get(1)));
+    }
+}